@@ -0,0 +1,66 @@
+#!/bin/bash
+
+# Poll benchmark for ShodhACode API
+#
+# Simulates many contestants polling the API at once and reports throughput and
+# latency percentiles. Run it once against a normal start and once with
+# VIRTUAL_THREADS_ENABLED=true (JDK 21+) to compare the two request-handling modes.
+#
+# Usage: ./poll-benchmark.sh [concurrency] [requests] [path...]
+#   BASE_URL   API base (default http://localhost:8080/api)
+#
+# Example: ./poll-benchmark.sh 500 20000 /contests/3/leaderboard /submissions/user/1/contest/3
+
+BASE_URL=${BASE_URL:-http://localhost:8080/api}
+CONCURRENCY=${1:-200}
+REQUESTS=${2:-10000}
+if ! [[ "$CONCURRENCY" =~ ^[1-9][0-9]*$ && "$REQUESTS" =~ ^[1-9][0-9]*$ ]]; then
+    echo "Usage: $0 [concurrency] [requests] [path...]" >&2
+    exit 1
+fi
+# Paths only follow both numbers; with fewer arguments there are none
+if [ $# -ge 2 ]; then
+    shift 2
+else
+    shift $#
+fi
+PATHS=("$@")
+if [ ${#PATHS[@]} -eq 0 ]; then
+    PATHS=("/contests/3/leaderboard" "/contests/1" "/problems/1")
+fi
+
+RESULTS=$(mktemp)
+trap 'rm -f "$RESULTS"' EXIT
+
+echo "Benchmarking $BASE_URL"
+echo "  Concurrency: $CONCURRENCY"
+echo "  Requests:    $REQUESTS"
+echo "  Paths:       ${PATHS[*]}"
+echo ""
+
+START=$(date +%s.%N)
+
+# Each line is one request: "<http code> <seconds>"
+for ((i = 0; i < REQUESTS; i++)); do
+    echo "${PATHS[$((i % ${#PATHS[@]}))]}"
+done | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -w '%{http_code} %{time_total}\n' "$BASE_URL{}" >> "$RESULTS"
+
+END=$(date +%s.%N)
+
+ERRORS=$(awk '$1 !~ /^(2|304)/' "$RESULTS" | wc -l)
+
+# Percentiles over the sorted latencies (nearest-rank)
+awk '{ print $2 }' "$RESULTS" | sort -n | awk -v start="$START" -v end="$END" -v errors="$ERRORS" '
+    { lat[++n] = $1 }
+    function pct(p,    i) { i = int(n * p); if (i < 1) i = 1; return lat[i] * 1000 }
+    END {
+        elapsed = end - start
+        printf "Completed:   %d requests in %.2fs (%d errors)\n", n, elapsed, errors
+        printf "Throughput:  %.1f req/s\n", n / elapsed
+        printf "Latency p50: %.1f ms\n", pct(0.50)
+        printf "Latency p95: %.1f ms\n", pct(0.95)
+        printf "Latency p99: %.1f ms\n", pct(0.99)
+        printf "Latency max: %.1f ms\n", lat[n] * 1000
+    }
+'
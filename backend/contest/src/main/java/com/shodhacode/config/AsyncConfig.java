@@ -1,18 +1,38 @@
 package com.shodhacode.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * Executors for background work. With {@code spring.threads.virtual.enabled=true} on
+ * JDK 21+ both run on virtual threads (Tomcat request handling switches too); otherwise
+ * they fall back to the bounded platform-thread pools.
+ */
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig {
 
+    @Value("${judge.workers:4}")
+    private int judgeWorkers;
+
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("CodeExecutor-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -21,4 +41,30 @@ public Executor taskExecutor() {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs judge jobs for SimpleQueueService. At most {@code judge.workers} jobs run at once
+     * in either mode; with virtual threads a blocked judge (waiting on a sandbox or the DB)
+     * does not hold an OS thread.
+     */
+    @Bean(name = "judgeExecutor")
+    public TaskExecutor judgeExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Judge workers use virtual threads (limit {})", judgeWorkers);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Judge-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(judgeWorkers);
+            executor.setTaskTerminationTimeout(5000);
+            return executor;
+        }
+        log.info("Judge workers use a fixed pool of {} platform threads", judgeWorkers);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(judgeWorkers);
+        executor.setMaxPoolSize(judgeWorkers);
+        executor.setThreadNamePrefix("Judge-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        executor.initialize();
+        return executor;
+    }
+}
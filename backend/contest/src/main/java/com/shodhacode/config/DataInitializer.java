@@ -2,28 +2,41 @@
 
 import com.shodhacode.entity.*;
 import com.shodhacode.repository.*;
+import com.shodhacode.service.SourceStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer {
 
+    @Value("${app.role:all}")
+    private NodeRole role;
+
     @Bean
     CommandLineRunner initDatabase(UserRepository userRepository,
                                   ContestRepository contestRepository,
                                   ProblemRepository problemRepository,
                                   TestCaseRepository testCaseRepository,
                                   ContestParticipantRepository contestParticipantRepository,
-                                  SubmissionRepository submissionRepository) {
+                                  SubmissionRepository submissionRepository,
+                                  SubmissionContentRepository submissionContentRepository,
+                                  SourceStore sourceStore) {
         return args -> {
+            // Worker nodes and nodes joining an existing shared database leave the data alone
+            if (!role.servesApi() || userRepository.count() > 0) {
+                log.info("Skipping sample data initialization");
+                return;
+            }
             log.info("Initializing sample data...");
 
             // Create sample users
@@ -157,6 +170,7 @@ CommandLineRunner initDatabase(UserRepository userRepository,
             oldProblem3.setPoints(50);
             oldProblem3.setTimeLimit(1000);
             oldProblem3.setMemoryLimit(256);
+            oldProblem3.setJudgeMode(JudgeMode.BATCH);
             oldProblem3.setContest(savedOldContest);
             Problem savedOldProblem3 = problemRepository.save(oldProblem3);
 
@@ -516,6 +530,16 @@ CommandLineRunner initDatabase(UserRepository userRepository,
             dylanSubmission.setSubmittedAt(LocalDateTime.now().minusDays(2));
             submissionRepository.save(dylanSubmission);
 
+            // Source code lives in the blob store, output in the compressed side table
+            List<Submission> sampleSubmissions = Arrays.asList(aliceSubmission1, aliceSubmission2, bobSubmission,
+                    charlieSubmission, dylanSubmission);
+            sourceStore.retain(sampleSubmissions.stream().map(Submission::getCode).toList());
+            for (Submission submission : sampleSubmissions) {
+                submission.setSourceHash(SourceStore.hash(submission.getCode()));
+                submissionRepository.save(submission);
+                submissionContentRepository.save(new SubmissionContent(submission.getId(), null));
+            }
+
             log.info("Sample data initialization completed!");
             log.info("Created 3 contests:");
             log.info("  - Active contest 1: {} with 3 problems", savedOldContest.getTitle());
@@ -0,0 +1,22 @@
+package com.shodhacode.config;
+
+/**
+ * What a process does in a scaled-out deployment ({@code app.role}).
+ * API and worker nodes share one database, which also serves as the judge queue.
+ */
+public enum NodeRole {
+    /** Single process: HTTP API and judge (the default). */
+    ALL,
+    /** HTTP API only; submissions are judged by worker nodes. */
+    API,
+    /** Judge only; claims pending submissions from the database. */
+    WORKER;
+
+    public boolean servesApi() {
+        return this != WORKER;
+    }
+
+    public boolean runsJudge() {
+        return this != API;
+    }
+}
@@ -9,6 +9,13 @@ public class ApplicationConstants {
     // Execution limits
     public static final int DEFAULT_TIME_LIMIT = 2000; // 2 seconds in milliseconds
     public static final int DEFAULT_MEMORY_LIMIT = 256; // 256 MB
+    public static final int COMPILE_TIME_LIMIT = 30000; // once per submission, not charged to test cases
+    public static final int COMPILE_MEMORY_LIMIT = 1024; // MB
+    // Batch mode: headroom for the in-sandbox runner on top of the tests' own limits
+    public static final int BATCH_RUNNER_TIME = 2000; // milliseconds
+    public static final int BATCH_RUNNER_MEMORY = 32; // MB
+    // Output kept per stream of a run; tests also allow twice their expected output
+    public static final int MAX_RUN_OUTPUT = 4 * 1024 * 1024; // bytes
     
     // Queue processing
     public static final int QUEUE_PROCESSING_DELAY = 1000; // 1 second delay between queue processing
@@ -25,6 +32,14 @@ public class ApplicationConstants {
     public static final String USERS_PATH = "/users";
     public static final String CONFIG_PATH = "/config";
     
+    // Submission history paging
+    public static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+    
+    // Global ranking
+    public static final int DEFAULT_RANKING_SIZE = 10;
+    public static final int MAX_RANKING_SIZE = 100;
+    
     // Contest defaults
     public static final int DEFAULT_PROBLEM_POINTS = 100;
     
@@ -33,11 +48,14 @@ public class ApplicationConstants {
     public static final String RESULT_FAILED = "Failed";
     public static final String RESULT_TIME_LIMIT_EXCEEDED = "Time Limit Exceeded";
     public static final String RESULT_RUNTIME_ERROR = "Runtime Error";
+    public static final String RESULT_MEMORY_LIMIT_EXCEEDED = "Memory Limit Exceeded";
+    public static final String RESULT_OUTPUT_LIMIT_EXCEEDED = "Output Limit Exceeded";
     public static final String RESULT_COMPILATION_ERROR = "Compilation Error";
     
     // Validation limits
     public static final int MAX_CODE_LENGTH = 10000;
     public static final int MAX_OUTPUT_LENGTH = 5000;
+    public static final int MAX_ERROR_MESSAGE_LENGTH = 2000;
     
     // Validation messages
     public static final String CODE_TOO_LONG = "Code cannot exceed 10000 characters";
@@ -1,21 +1,19 @@
 package com.shodhacode.controller;
 
 import com.shodhacode.constants.ApplicationConstants;
-import com.shodhacode.dto.ContestSummary;
-import com.shodhacode.dto.ContestWithProblems;
 import com.shodhacode.dto.JoinContestRequest;
 import com.shodhacode.dto.JoinContestResponse;
-import com.shodhacode.dto.LeaderboardEntry;
-import com.shodhacode.dto.ProblemSummary;
 import com.shodhacode.dto.ProblemDetail;
 import com.shodhacode.entity.Contest;
 import com.shodhacode.entity.ContestParticipant;
-import com.shodhacode.entity.SubmissionStatus;
 import com.shodhacode.entity.User;
 import com.shodhacode.repository.ContestRepository;
 import com.shodhacode.repository.ContestParticipantRepository;
-import com.shodhacode.repository.SubmissionRepository;
+import com.shodhacode.service.CatalogService;
+import com.shodhacode.service.ContestAnalyticsService;
+import com.shodhacode.service.LeaderboardService;
 import com.shodhacode.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,12 +21,7 @@
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(ApplicationConstants.CONTESTS_PATH)
@@ -37,108 +30,63 @@
 public class ContestController {
 
     private final ContestRepository contestRepository;
-    private final SubmissionRepository submissionRepository;
     private final ContestParticipantRepository contestParticipantRepository;
     private final UserService userService;
+    private final CatalogService catalogService;
+    private final LeaderboardService leaderboardService;
+    private final ContestAnalyticsService contestAnalyticsService;
 
     @GetMapping("/{contestId}")
-    public ResponseEntity<ContestWithProblems> getContest(@PathVariable Long contestId) {
+    public ResponseEntity<byte[]> getContest(@PathVariable Long contestId, HttpServletRequest request) {
         log.info("Fetching contest with ID: {}", contestId);
-        return contestRepository.findById(contestId)
-                .map(contest -> ResponseEntity.ok(ContestWithProblems.from(contest)))
-                .orElse(ResponseEntity.notFound().build());
+        return CatalogResponses.of(catalogService.contest(contestId), request);
     }
 
     @GetMapping("/{contestId}/leaderboard")
-    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(@PathVariable Long contestId) {
-        log.info("Fetching leaderboard for contest: {}", contestId);
-
-        // Get contest with participants
-        Optional<Contest> contestOpt = contestRepository.findById(contestId);
-        if (contestOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<byte[]> getLeaderboard(@PathVariable Long contestId,
+                                                 @RequestParam(required = false) Integer page,
+                                                 HttpServletRequest request) {
+        log.info("Fetching leaderboard for contest: {} (page {})", contestId, page);
+        // Without a page, the whole ranking as a plain array
+        if (page == null) {
+            return CatalogResponses.of(leaderboardService.leaderboard(contestId), request);
         }
-
-        Contest contest = contestOpt.get();
-
-        // Get all contest participants and their scores
-        List<ContestParticipant> participants = contestParticipantRepository.findByContestId(contestId);
-        List<LeaderboardEntry> leaderboard = new ArrayList<>();
-
-        for (ContestParticipant participant : participants) {
-            // Include all participants who have joined the contest
-            LeaderboardEntry entry = new LeaderboardEntry();
-            entry.setUserId(participant.getUser().getId());
-            entry.setUsername(participant.getUser().getUsername());
-            entry.setFullName(participant.getUser().getFullName());
-            entry.setScore(participant.getScore() != null ? participant.getScore() : 0);
-            entry.setProblemsSolved(participant.getProblemsSolved() != null ? participant.getProblemsSolved() : 0);
-
-            // Get last submission time
-            submissionRepository.findByUserIdAndContestId(
-                participant.getUser().getId(), contestId
-            ).stream()
-                .filter(s -> !s.getIsTestRun()) // Only count real submissions, not test runs
-                .map(s -> s.getSubmittedAt())
-                .max(LocalDateTime::compareTo)
-                .ifPresent(lastSubmission -> entry.setLastSubmission(lastSubmission.toString()));
-
-            entry.setRank(0); // Will be set after sorting
-            leaderboard.add(entry);
+        if (page < 0) {
+            return ResponseEntity.badRequest().build();
         }
+        return CatalogResponses.of(leaderboardService.page(contestId, page), request);
+    }
 
-        // Sort by score descending, then problems solved descending
-        leaderboard.sort((a, b) -> {
-            int scoreCompare = Integer.compare(b.getScore(), a.getScore());
-            if (scoreCompare != 0) return scoreCompare;
-            return Integer.compare(b.getProblemsSolved(), a.getProblemsSolved());
-        });
-
-        // Assign ranks
-        for (int i = 0; i < leaderboard.size(); i++) {
-            leaderboard.get(i).setRank(i + 1);
-        }
+    @GetMapping("/{contestId}/leaderboard/changes")
+    public ResponseEntity<byte[]> getLeaderboardChanges(@PathVariable Long contestId,
+                                                        @RequestParam long since,
+                                                        HttpServletRequest request) {
+        log.debug("Fetching leaderboard changes for contest {} since version {}", contestId, since);
+        return CatalogResponses.of(leaderboardService.changes(contestId, since), request);
+    }
 
-        return ResponseEntity.ok(leaderboard);
+    @GetMapping("/{contestId}/analytics")
+    public ResponseEntity<byte[]> getContestAnalytics(@PathVariable Long contestId, HttpServletRequest request) {
+        log.debug("Fetching analytics for contest {}", contestId);
+        return CatalogResponses.of(contestAnalyticsService.analytics(contestId), request);
     }
 
     @GetMapping
-    public ResponseEntity<List<ContestWithProblems>> getAllContests() {
+    public ResponseEntity<byte[]> getAllContests(HttpServletRequest request) {
         log.info("Fetching all contests");
-        List<Contest> contests = contestRepository.findAll();
-        List<ContestWithProblems> contestDtos = contests.stream()
-                .map(ContestWithProblems::from)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(contestDtos);
+        return CatalogResponses.of(catalogService.allContests(), request);
     }
     
     @GetMapping("/{contestId}/problems")
-    public ResponseEntity<List<ProblemSummary>> getContestProblems(@PathVariable Long contestId) {
+    public ResponseEntity<byte[]> getContestProblems(@PathVariable Long contestId, HttpServletRequest request) {
         log.info("Fetching problems for contest: {}", contestId);
-        return contestRepository.findById(contestId)
-                .map(contest -> {
-                    List<ProblemSummary> summaries = contest.getProblems().stream()
-                            .map(ProblemSummary::from)
-                            .collect(Collectors.toList());
-                    return ResponseEntity.ok(summaries);
-                })
-                .orElse(ResponseEntity.notFound().build());
+        return CatalogResponses.of(catalogService.contestProblems(contestId), request);
     }
     
     @GetMapping("/summary")
-    public ResponseEntity<List<ContestSummary>> getAllContestSummaries() {
+    public ResponseEntity<byte[]> getAllContestSummaries(HttpServletRequest request) {
         log.info("Fetching all contest summaries with user counts");
-        
-        List<Contest> contests = contestRepository.findAll();
-        List<ContestSummary> summaries = contests.stream()
-                .map(contest -> {
-                    // Use actual participant count from contest participants
-                    Long userCount = (long) contest.getContestParticipants().size();
-                    return ContestSummary.from(contest, userCount);
-                })
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(summaries);
+        return CatalogResponses.of(catalogService.contestSummaries(), request);
     }
     
     @GetMapping("/{contestId}/participants/{userId}")
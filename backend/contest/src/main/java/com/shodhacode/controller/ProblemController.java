@@ -1,15 +1,20 @@
 package com.shodhacode.controller;
 
 import com.shodhacode.constants.ApplicationConstants;
-import com.shodhacode.dto.ProblemDetail;
+import com.shodhacode.dto.ProblemImportResult;
 import com.shodhacode.dto.ProblemSummary;
 import com.shodhacode.entity.Problem;
 import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.service.CatalogService;
+import com.shodhacode.service.ProblemImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,23 +24,19 @@
 public class ProblemController {
 
     private final ProblemRepository problemRepository;
+    private final CatalogService catalogService;
+    private final ProblemImportService problemImportService;
 
     @GetMapping
-    public ResponseEntity<List<ProblemSummary>> getAllProblems() {
+    public ResponseEntity<byte[]> getAllProblems(HttpServletRequest request) {
         log.info("Fetching all problems");
-        List<Problem> problems = problemRepository.findAll();
-        List<ProblemSummary> summaries = problems.stream()
-                .map(ProblemSummary::from)
-                .collect(java.util.stream.Collectors.toList());
-        return ResponseEntity.ok(summaries);
+        return CatalogResponses.of(catalogService.allProblems(), request);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProblemDetail> getProblemById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getProblemById(@PathVariable Long id, HttpServletRequest request) {
         log.info("Fetching problem with ID: {}", id);
-        return problemRepository.findById(id)
-                .map(problem -> ResponseEntity.ok(ProblemDetail.from(problem)))
-                .orElse(ResponseEntity.notFound().build());
+        return CatalogResponses.of(catalogService.problem(id), request);
     }
 
     @GetMapping("/contest/{contestId}")
@@ -47,4 +48,22 @@ public ResponseEntity<List<ProblemSummary>> getProblemsByContest(@PathVariable L
                 .collect(java.util.stream.Collectors.toList());
         return ResponseEntity.ok(summaries);
     }
-}
\ No newline at end of file
+
+    // The request body is the zip package itself, read as it arrives rather than buffered
+    @PostMapping(value = "/import", consumes = {"application/zip", "application/octet-stream"})
+    public ResponseEntity<?> importProblems(@RequestParam(required = false) Long contestId,
+                                            HttpServletRequest request) {
+        log.info("Importing problem package into contest {}", contestId);
+
+        try {
+            ProblemImportResult result = problemImportService.importPackage(request.getInputStream(), contestId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (IllegalArgumentException e) {
+            log.error("Problem import failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.error("Problem import failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Unreadable package: " + e.getMessage());
+        }
+    }
+}
@@ -1,27 +1,35 @@
 package com.shodhacode.controller;
 
 import com.shodhacode.constants.ApplicationConstants;
+import com.shodhacode.dto.SubmissionHistoryPage;
 import com.shodhacode.dto.SubmissionRequest;
 import com.shodhacode.dto.SubmissionResponse;
-import com.shodhacode.entity.Contest;
-import com.shodhacode.entity.Submission;
-import com.shodhacode.entity.Problem;
-import com.shodhacode.entity.User;
+import com.shodhacode.dto.SubmissionResult;
+import com.shodhacode.dto.SubmissionSource;
+import com.shodhacode.dto.SubmissionSummary;
+import com.shodhacode.entity.SubmissionStatus;
 import com.shodhacode.entity.ProgrammingLanguage;
-import com.shodhacode.repository.ContestParticipantRepository;
-import com.shodhacode.repository.ProblemRepository;
 import com.shodhacode.repository.SubmissionRepository;
 import com.shodhacode.repository.UserRepository;
-import com.shodhacode.service.SimpleQueueService;
+import com.shodhacode.service.ContestAccessCache;
+import com.shodhacode.service.ContestAccessCache.ContestAccess;
+import com.shodhacode.service.SubmissionIngestor;
+import com.shodhacode.service.SubmissionThrottle;
+import com.shodhacode.service.SubmissionStatusTracker;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDateTime;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,60 +40,33 @@ public class SubmissionController {
 
     private final SubmissionRepository submissionRepository;
     private final UserRepository userRepository;
-    private final ProblemRepository problemRepository;
-    private final ContestParticipantRepository contestParticipantRepository;
-    private final SimpleQueueService queueService;
+    private final ContestAccessCache contestAccessCache;
+    private final SubmissionIngestor submissionIngestor;
+    private final SubmissionStatusTracker statusTracker;
+    private final SubmissionThrottle submissionThrottle;
 
     @PostMapping("/run")
     public ResponseEntity<?> runCode(@Valid @RequestBody SubmissionRequest request) {
         log.info("Received RUN request from user {} for problem {}",
                 request.getUserId(), request.getProblemId());
 
-        // Validate user exists
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         // Validate problem exists
-        Problem problem = problemRepository.findById(request.getProblemId())
+        ContestAccess contest = contestAccessCache.forProblem(request.getProblemId())
                 .orElseThrow(() -> new RuntimeException("Problem not found"));
 
-        // Check if user has joined the contest
-        Contest contest = problem.getContest();
-        if (contest != null) {
-            // Check if contest has ended
-            LocalDateTime now = LocalDateTime.now();
-            if (contest.getEndTime() != null && now.isAfter(contest.getEndTime())) {
-                log.warn("User {} attempting to submit to ended contest {} - rejecting submission", user.getUsername(), contest.getTitle());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Contest has ended. You cannot attempt problems from ended contests.");
-            }
-
-            boolean hasJoined = contestParticipantRepository.existsByUserIdAndContestId(user.getId(), contest.getId());
-            if (!hasJoined) {
-                log.warn("User {} has not joined contest {} - rejecting submission", user.getUsername(), contest.getTitle());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Please join the contest first before attempting problems");
-            }
+        ResponseEntity<?> rejected = checkAccess(request.getUserId(), contest);
+        if (rejected != null) {
+            return rejected;
         }
 
-        // Create submission for testing (not saved to leaderboard)
-        Submission submission = new Submission();
-        submission.setUser(user);
-        submission.setProblem(problem);
-        submission.setCode(request.getCode());
-        submission.setLanguage(request.getLanguage());
-        submission.setSubmittedAt(LocalDateTime.now());
-        submission.setIsTestRun(true);  // Mark as test run
-
-        submission = submissionRepository.save(submission);
-        log.info("Created test run with ID: {}", submission.getId());
-
-        // Add to processing queue (will only run sample test cases)
-        queueService.addToQueue(submission.getId());
+        // Create submission for testing (not saved to leaderboard); queued once inserted,
+        // where it will only run sample test cases
+        String submissionId = accept(request, true, contest);
+        log.info("Created test run with ID: {}", submissionId);
 
         return ResponseEntity.ok(new SubmissionResponse(
-                submission.getId(),
-                submission.getStatus().toString()
+                submissionId,
+                SubmissionStatus.PENDING.toString()
         ));
     }
 
@@ -94,85 +75,92 @@ public ResponseEntity<?> submitCode(@Valid @RequestBody SubmissionRequest reques
         log.info("Received SUBMIT from user {} for problem {}",
                 request.getUserId(), request.getProblemId());
 
-        // Validate user exists
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         // Validate problem exists
-        Problem problem = problemRepository.findById(request.getProblemId())
+        ContestAccess contest = contestAccessCache.forProblem(request.getProblemId())
                 .orElseThrow(() -> new RuntimeException("Problem not found"));
 
-        // Check if user has joined the contest
-        Contest contest = problem.getContest();
-        if (contest != null) {
-            // Check if contest has ended
-            LocalDateTime now = LocalDateTime.now();
-            if (contest.getEndTime() != null && now.isAfter(contest.getEndTime())) {
-                log.warn("User {} attempting to submit to ended contest {} - rejecting submission", user.getUsername(), contest.getTitle());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Contest has ended. You cannot attempt problems from ended contests.");
-            }
-
-            boolean hasJoined = contestParticipantRepository.existsByUserIdAndContestId(user.getId(), contest.getId());
-            if (!hasJoined) {
-                log.warn("User {} has not joined contest {} - rejecting submission", user.getUsername(), contest.getTitle());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                    .body("Please join the contest first before attempting problems");
-            }
+        ResponseEntity<?> rejected = checkAccess(request.getUserId(), contest);
+        if (rejected != null) {
+            return rejected;
         }
 
-        // Create submission
-        Submission submission = new Submission();
-        submission.setUser(user);
-        submission.setProblem(problem);
-        submission.setCode(request.getCode());
-        submission.setLanguage(request.getLanguage());
-        submission.setSubmittedAt(LocalDateTime.now());
-        submission.setIsTestRun(false);  // Full submission
-
-        submission = submissionRepository.save(submission);
-        log.info("Created submission with ID: {}", submission.getId());
-
-        // Add to processing queue (will run ALL test cases)
-        queueService.addToQueue(submission.getId());
+        // Create submission; queued once inserted, where it will run ALL test cases
+        String submissionId = accept(request, false, contest);
+        log.info("Created submission with ID: {}", submissionId);
 
         return ResponseEntity.ok(new SubmissionResponse(
-                submission.getId(),
-                submission.getStatus().toString()
+                submissionId,
+                SubmissionStatus.PENDING.toString()
         ));
     }
 
     @GetMapping("/{submissionId}")
-    public ResponseEntity<Submission> getSubmission(@PathVariable String submissionId) {
+    public ResponseEntity<SubmissionResult> getSubmission(@PathVariable String submissionId) {
         log.debug("Fetching submission: {}", submissionId);
-        return submissionRepository.findById(submissionId)
+        // Accepted submissions are only in memory until their batched insert
+        return submissionIngestor.findPendingResult(submissionId)
+                .or(() -> submissionRepository.findResultById(submissionId))
+                // Accepted by another node that has not inserted it yet
+                .or(() -> submissionIngestor.findRecentlyAccepted(submissionId))
+                .map(statusTracker::overlay)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{submissionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSubmission(@PathVariable String submissionId) {
+        log.debug("Streaming status for submission: {}", submissionId);
+        return submissionIngestor.findPendingResult(submissionId)
+                .or(() -> submissionRepository.findResultById(submissionId))
+                // Accepted by another node that has not inserted it yet
+                .or(() -> submissionIngestor.findRecentlyAccepted(submissionId))
+                .map(statusTracker::subscribe)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{submissionId}/code")
+    public ResponseEntity<SubmissionSource> getSubmissionCode(@PathVariable String submissionId) {
+        log.debug("Fetching source for submission: {}", submissionId);
+        return submissionIngestor.findPendingSource(submissionId)
+                .or(() -> submissionRepository.findSourceById(submissionId))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/user/{userId}/problem/{problemId}/latest")
-    public ResponseEntity<Submission> getLatestSubmission(@PathVariable Long userId, 
-                                                          @PathVariable Long problemId) {
+    public ResponseEntity<SubmissionSummary> getLatestSubmission(@PathVariable Long userId, 
+                                                                 @PathVariable Long problemId) {
         log.info("Fetching latest submission for user {} on problem {}", userId, problemId);
-        return submissionRepository.findFirstByUserIdAndProblemIdOrderBySubmittedAtDesc(userId, problemId)
+        return submissionRepository.findHistoryByUserIdAndProblemId(userId, problemId, Limit.of(1))
+                .stream()
+                .findFirst()
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/user/{userId}/problem/{problemId}")
-    public ResponseEntity<List<Submission>> getUserProblemSubmissions(@PathVariable Long userId,
-                                                                      @PathVariable Long problemId) {
-        log.info("Fetching all submissions for user {} on problem {}", userId, problemId);
-        List<Submission> submissions = submissionRepository.findByUserIdAndProblemId(userId, problemId);
-        return ResponseEntity.ok(submissions);
+    public ResponseEntity<?> getUserProblemSubmissions(@PathVariable Long userId,
+                                                       @PathVariable Long problemId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "" + ApplicationConstants.DEFAULT_HISTORY_PAGE_SIZE) int size) {
+        log.info("Fetching submissions for user {} on problem {}", userId, problemId);
+        return historyPage(cursor, size,
+                limit -> submissionRepository.findHistoryByUserIdAndProblemId(userId, problemId, limit),
+                (submittedAt, id, limit) -> submissionRepository.findHistoryByUserIdAndProblemIdBefore(
+                        userId, problemId, submittedAt, id, limit));
     }
     
     @GetMapping("/user/{userId}/contest/{contestId}")
-    public ResponseEntity<List<Submission>> getUserContestSubmissions(@PathVariable Long userId,
-                                                                      @PathVariable Long contestId) {
-        log.info("Fetching all submissions for user {} in contest {}", userId, contestId);
-        List<Submission> submissions = submissionRepository.findByUserIdAndContestId(userId, contestId);
-        return ResponseEntity.ok(submissions);
+    public ResponseEntity<?> getUserContestSubmissions(@PathVariable Long userId,
+                                                       @PathVariable Long contestId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "" + ApplicationConstants.DEFAULT_HISTORY_PAGE_SIZE) int size) {
+        log.info("Fetching submissions for user {} in contest {}", userId, contestId);
+        return historyPage(cursor, size,
+                limit -> submissionRepository.findHistoryByUserIdAndContestId(userId, contestId, limit),
+                (submittedAt, id, limit) -> submissionRepository.findHistoryByUserIdAndContestIdBefore(
+                        userId, contestId, submittedAt, id, limit));
     }
     
     @GetMapping("/languages")
@@ -183,4 +171,79 @@ public ResponseEntity<List<String>> getSupportedLanguages() {
                 .collect(Collectors.toList());
         return ResponseEntity.ok(languages);
     }
-}
\ No newline at end of file
+
+    /**
+     * One page of a submission history, newest first: the first page without a cursor, else
+     * the rows after the cursor's position. One row more than the page is read to tell
+     * whether another page follows.
+     */
+    private ResponseEntity<?> historyPage(String cursor, int size,
+                                          Function<Limit, List<SubmissionSummary>> newest,
+                                          HistoryBefore before) {
+        try {
+            int pageSize = clampPageSize(size);
+            Limit limit = Limit.of(pageSize + 1);
+            List<SubmissionSummary> rows;
+            if (cursor == null) {
+                rows = newest.apply(limit);
+            } else {
+                SubmissionHistoryPage.Cursor position = SubmissionHistoryPage.decodeCursor(cursor);
+                rows = before.find(position.getSubmittedAt(), position.getId(), limit);
+            }
+            return ResponseEntity.ok(SubmissionHistoryPage.of(rows, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, ApplicationConstants.MAX_HISTORY_PAGE_SIZE));
+    }
+
+    @FunctionalInterface
+    private interface HistoryBefore {
+        List<SubmissionSummary> find(LocalDateTime submittedAt, String id, Limit limit);
+    }
+
+    /**
+     * Admission checks, answered from the access cache: the contest is open, the user has
+     * joined it (which also proves the user exists) and is not submitting too fast.
+     */
+    private ResponseEntity<?> checkAccess(Long userId, ContestAccess contest) {
+        if (contest.isContest()) {
+            // Check if contest has ended
+            if (contest.hasEnded(LocalDateTime.now())) {
+                log.warn("User {} attempting to submit to ended contest {} - rejecting submission", userId, contest.getTitle());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Contest has ended. You cannot attempt problems from ended contests.");
+            }
+
+            if (!contestAccessCache.isParticipant(contest, userId)) {
+                if (!userRepository.existsById(userId)) {
+                    throw new RuntimeException("User not found");
+                }
+                log.warn("User {} has not joined contest {} - rejecting submission", userId, contest.getTitle());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Please join the contest first before attempting problems");
+            }
+        } else if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+
+        long retryAfterMillis = submissionThrottle.tryAcquire(userId, contest);
+        if (retryAfterMillis == 0) {
+            return null;
+        }
+        long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        log.warn("User {} is submitting too fast - rejecting for {}s", userId, retryAfterSeconds);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body("Too many submissions. Please wait " + retryAfterSeconds + " seconds before trying again.");
+    }
+
+    private String accept(SubmissionRequest request, boolean testRun, ContestAccess contest) {
+        return submissionIngestor.accept(request.getUserId(), request.getProblemId(), request.getLanguage(),
+                request.getCode(), testRun, contest.getId(),
+                contest.getJudgeWeight() != null ? contest.getJudgeWeight() : 1);
+    }
+}
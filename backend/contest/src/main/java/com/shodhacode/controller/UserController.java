@@ -1,9 +1,12 @@
 package com.shodhacode.controller;
 
 import com.shodhacode.constants.ApplicationConstants;
+import com.shodhacode.dto.GlobalRankEntry;
+import com.shodhacode.dto.UserRank;
 import com.shodhacode.dto.UserRequest;
 import com.shodhacode.entity.User;
 import com.shodhacode.repository.UserRepository;
+import com.shodhacode.service.GlobalRankingService;
 import com.shodhacode.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +24,7 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final UserService userService;
+    private final GlobalRankingService globalRankingService;
 
     @GetMapping
     public ResponseEntity<List<User>> getAllUsers() {
@@ -28,6 +32,20 @@ public ResponseEntity<List<User>> getAllUsers() {
         return ResponseEntity.ok(userRepository.findAll());
     }
 
+    @GetMapping("/ranking")
+    public ResponseEntity<List<GlobalRankEntry>> getRanking(
+            @RequestParam(defaultValue = "" + ApplicationConstants.DEFAULT_RANKING_SIZE) int limit) {
+        int size = Math.max(1, Math.min(limit, ApplicationConstants.MAX_RANKING_SIZE));
+        return ResponseEntity.ok(globalRankingService.top(size));
+    }
+
+    @GetMapping("/{id}/rank")
+    public ResponseEntity<UserRank> getUserRank(@PathVariable Long id) {
+        return globalRankingService.rankOf(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUser(@PathVariable Long id) {
         return userRepository.findById(id)
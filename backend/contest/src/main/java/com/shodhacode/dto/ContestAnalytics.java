@@ -0,0 +1,20 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContestAnalytics {
+    private Long contestId;
+    // Verdicts written up to this time are included
+    private LocalDateTime updatedAt;
+    // Only submissions made before the freeze are counted (see Contest#freezeTime)
+    private boolean frozen;
+    private List<ProblemAnalytics> problems;
+}
@@ -1,6 +1,7 @@
 package com.shodhacode.dto;
 
 import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ScoringModel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,10 +20,12 @@ public class ContestSummary {
     private Boolean isActive;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private LocalDateTime freezeTime;
+    private ScoringModel scoringModel;
     private Integer problemCount;
     private Long registeredUsers;
     
-    public static ContestSummary from(Contest contest, Long userCount) {
+    public static ContestSummary from(Contest contest, Integer problemCount, Long userCount) {
         return ContestSummary.builder()
                 .id(contest.getId())
                 .title(contest.getTitle())
@@ -30,7 +33,9 @@ public static ContestSummary from(Contest contest, Long userCount) {
                 .isActive(contest.getIsActive())
                 .startTime(contest.getStartTime())
                 .endTime(contest.getEndTime())
-                .problemCount(contest.getProblems() != null ? contest.getProblems().size() : 0)
+                .freezeTime(contest.getFreezeTime())
+                .scoringModel(contest.getScoringModel() != null ? contest.getScoringModel() : ScoringModel.IOI)
+                .problemCount(problemCount)
                 .registeredUsers(userCount)
                 .build();
     }
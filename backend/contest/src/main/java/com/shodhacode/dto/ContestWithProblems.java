@@ -1,6 +1,7 @@
 package com.shodhacode.dto;
 
 import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ScoringModel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,6 +19,10 @@ public class ContestWithProblems {
     private String description;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private LocalDateTime freezeTime;
+    private LocalDateTime publishTime;
+    private ScoringModel scoringModel;
+    private Integer penaltyMinutes;
     private Boolean isActive;
     private List<ProblemSummary> problems;
     
@@ -28,6 +33,10 @@ public static ContestWithProblems from(Contest contest) {
         dto.setDescription(contest.getDescription());
         dto.setStartTime(contest.getStartTime());
         dto.setEndTime(contest.getEndTime());
+        dto.setFreezeTime(contest.getFreezeTime());
+        dto.setPublishTime(contest.getPublishTime());
+        dto.setScoringModel(contest.getScoringModel() != null ? contest.getScoringModel() : ScoringModel.IOI);
+        dto.setPenaltyMinutes(contest.getPenaltyMinutes());
         dto.setIsActive(contest.getIsActive());
         
         // Only include problem summaries (id, title, points)
@@ -0,0 +1,18 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlobalRankEntry {
+    // Users with the same score share a rank
+    private int rank;
+    private Long userId;
+    private String username;
+    private String fullName;
+    private Integer score;
+    private Integer problemsSolved;
+}
@@ -0,0 +1,64 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.constants.ApplicationConstants;
+import com.shodhacode.entity.Submission;
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Final judging result of one submission, queued for the batched verdict write.
+ * Carries the ids needed for score maintenance so nothing has to be re-read after the write.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeVerdict {
+    private String submissionId;
+    private Long userId;
+    private Long problemId;
+    private Long contestId;
+    private boolean testRun;
+    private SubmissionStatus status;
+    private Integer score;
+    private Integer testCasesPassed;
+    private Integer totalTestCases;
+    private Long executionTime;
+    private String output;
+    private String errorMessage;
+    private LocalDateTime submittedAt;
+
+    public static JudgeVerdict from(Submission submission) {
+        return JudgeVerdict.builder()
+                .submissionId(submission.getId())
+                .userId(submission.getUser() != null ? submission.getUser().getId() : null)
+                .problemId(submission.getProblem() != null ? submission.getProblem().getId() : null)
+                .contestId(submission.getProblem() != null && submission.getProblem().getContest() != null
+                        ? submission.getProblem().getContest().getId() : null)
+                .testRun(Boolean.TRUE.equals(submission.getIsTestRun()))
+                .status(submission.getStatus())
+                .score(submission.getScore())
+                .testCasesPassed(submission.getTestCasesPassed())
+                .totalTestCases(submission.getTotalTestCases())
+                .executionTime(submission.getExecutionTime())
+                .output(truncate(submission.getOutput(), ApplicationConstants.MAX_OUTPUT_LENGTH))
+                .errorMessage(truncate(submission.getErrorMessage(), ApplicationConstants.MAX_ERROR_MESSAGE_LENGTH))
+                .submittedAt(submission.getSubmittedAt())
+                .build();
+    }
+
+    // Judged real submission in a contest; every one can move the participant's standing
+    public boolean isContestAttempt() {
+        return !testRun && contestId != null
+                && status != SubmissionStatus.PENDING && status != SubmissionStatus.RUNNING;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
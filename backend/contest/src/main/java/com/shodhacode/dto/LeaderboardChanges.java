@@ -0,0 +1,26 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * What changed in a leaderboard between {@code fromVersion} and {@code version}: entries
+ * that are new or differ (rank included), and users no longer listed. When the server no
+ * longer knows {@code fromVersion}, {@code full} is set and the pages must be reloaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardChanges {
+    private Long contestId;
+    private long fromVersion;
+    private long version;
+    private boolean full;
+    private boolean frozen;
+    private int totalEntries;
+    private List<LeaderboardEntry> changed;
+    private List<Long> removed;
+}
@@ -14,5 +14,7 @@ public class LeaderboardEntry {
     private String fullName;
     private Integer score;
     private Integer problemsSolved;
+    // Minutes, ICPC contests only
+    private Integer penalty;
     private String lastSubmission;
 }
\ No newline at end of file
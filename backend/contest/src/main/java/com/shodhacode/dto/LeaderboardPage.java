@@ -0,0 +1,26 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One fixed-size page of a leaderboard snapshot. Pages of the same {@code version} are
+ * consistent with each other; follow up with the changes endpoint from that version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardPage {
+    private Long contestId;
+    private long version;
+    // The public ranking of a frozen scoreboard (see Contest#freezeTime)
+    private boolean frozen;
+    private int page;
+    private int pageSize;
+    private int totalPages;
+    private int totalEntries;
+    private List<LeaderboardEntry> entries;
+}
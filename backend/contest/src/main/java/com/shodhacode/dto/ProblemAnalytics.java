@@ -0,0 +1,28 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.entity.ProgrammingLanguage;
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class ProblemAnalytics {
+    private Long problemId;
+    private String title;
+    // Judged real submissions
+    private int attempts;
+    private int accepted;
+    // Percent of attempts that were accepted
+    private double acceptanceRate;
+    private int usersAttempted;
+    private int usersSolved;
+    private Long firstSolverId;
+    private String firstSolverUsername;
+    private LocalDateTime firstSolvedAt;
+    private Map<SubmissionStatus, Integer> verdicts;
+    private Map<ProgrammingLanguage, Integer> languages;
+}
@@ -24,7 +24,7 @@ public class ProblemDetail {
     private Integer memoryLimit;
     private List<TestCaseSample> sampleTestCases;
     
-    public static ProblemDetail from(Problem problem) {
+    public static ProblemDetail from(Problem problem, List<TestCase> sampleTestCases) {
         ProblemDetail detail = new ProblemDetail();
         detail.setId(problem.getId());
         detail.setTitle(problem.getTitle());
@@ -36,15 +36,12 @@ public static ProblemDetail from(Problem problem) {
         detail.setTimeLimit(problem.getTimeLimit());
         detail.setMemoryLimit(problem.getMemoryLimit());
         
-        // Only include non-hidden test cases (sample test cases)
-        if (problem.getTestCases() != null) {
-            detail.setSampleTestCases(
-                problem.getTestCases().stream()
-                    .filter(tc -> !tc.getIsHidden())
-                    .map(TestCaseSample::from)
-                    .collect(Collectors.toList())
-            );
-        }
+        // Only non-hidden test cases (sample test cases) are ever passed in
+        detail.setSampleTestCases(
+            sampleTestCases.stream()
+                .map(TestCaseSample::from)
+                .collect(Collectors.toList())
+        );
         
         return detail;
     }
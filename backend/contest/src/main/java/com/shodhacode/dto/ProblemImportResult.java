@@ -0,0 +1,17 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemImportResult {
+    private List<ProblemSummary> problems;
+    private int testCases;
+    // Test data imported, in bytes
+    private long bytes;
+}
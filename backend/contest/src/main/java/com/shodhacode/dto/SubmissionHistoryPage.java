@@ -0,0 +1,58 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a submission history, newest first.
+ * {@code nextCursor} is an opaque keyset cursor (submittedAt + id of the last row);
+ * it is null when there are no older submissions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionHistoryPage {
+    private List<SubmissionSummary> submissions;
+    private String nextCursor;
+
+    /**
+     * Builds a page from a query that fetched {@code size + 1} rows; the extra row
+     * only signals that another page exists and is dropped from the response.
+     */
+    public static SubmissionHistoryPage of(List<SubmissionSummary> rows, int size) {
+        if (rows.size() <= size) {
+            return new SubmissionHistoryPage(rows, null);
+        }
+        List<SubmissionSummary> page = rows.subList(0, size);
+        return new SubmissionHistoryPage(page, encodeCursor(page.get(size - 1)));
+    }
+
+    public static String encodeCursor(SubmissionSummary last) {
+        String raw = last.getSubmittedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Cursor {
+        private LocalDateTime submittedAt;
+        private String id;
+    }
+}
@@ -0,0 +1,41 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.entity.ProgrammingLanguage;
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Verdict view of a single submission, polled by the client while judging.
+ * Includes the judge output but never the submitted source. While the submission
+ * is being judged, {@code testCasesCompleted} reports live progress.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionResult {
+    private String id;
+    private Long problemId;
+    private SubmissionStatus status;
+    private ProgrammingLanguage language;
+    private Integer score;
+    private Integer testCasesPassed;
+    private Integer totalTestCases;
+    private Long executionTime;
+    private Boolean isTestRun;
+    private LocalDateTime submittedAt;
+    private String output;
+    private String errorMessage;
+    private Integer testCasesCompleted;
+
+    // Used by the JPQL constructor expression; progress is only known in memory
+    public SubmissionResult(String id, Long problemId, SubmissionStatus status, ProgrammingLanguage language,
+                            Integer score, Integer testCasesPassed, Integer totalTestCases, Long executionTime,
+                            Boolean isTestRun, LocalDateTime submittedAt, String output, String errorMessage) {
+        this(id, problemId, status, language, score, testCasesPassed, totalTestCases, executionTime,
+                isTestRun, submittedAt, output, errorMessage, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.entity.ProgrammingLanguage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionSource {
+    private String id;
+    private ProgrammingLanguage language;
+    private String code;
+    // SHA-256 of the code; equal for identical sources
+    private String sourceHash;
+}
@@ -0,0 +1,30 @@
+package com.shodhacode.dto;
+
+import com.shodhacode.entity.ProgrammingLanguage;
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status-only view of a submission used by the history lists.
+ * Selected directly by JPQL constructor expressions, so the code/output
+ * columns and the user/problem graph are never loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionSummary {
+    private String id;
+    private Long problemId;
+    private SubmissionStatus status;
+    private ProgrammingLanguage language;
+    private Integer score;
+    private Integer testCasesPassed;
+    private Integer totalTestCases;
+    private Long executionTime;
+    private Boolean isTestRun;
+    private LocalDateTime submittedAt;
+}
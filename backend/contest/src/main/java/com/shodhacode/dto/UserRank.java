@@ -0,0 +1,18 @@
+package com.shodhacode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRank {
+    private Long userId;
+    private int rank;
+    private Integer score;
+    private Integer problemsSolved;
+    private int totalUsers;
+    // Share of users with a lower score, 0-100
+    private double percentile;
+}
@@ -0,0 +1,31 @@
+package com.shodhacode.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saved state of a contest's in-memory analytics (see ContestAnalyticsService), so a
+ * restarted node only reads the verdicts written after {@code verdictsSeen}.
+ */
+@Entity
+@Table(name = "analytics_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsCheckpoint {
+    // One per contest
+    @Id
+    private Long contestId;
+
+    private LocalDateTime verdictsSeen;
+
+    // JSON of the per-problem counters
+    @Lob
+    private String state;
+
+    private LocalDateTime savedAt;
+}
@@ -0,0 +1,128 @@
+package com.shodhacode.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text as deflate with a preset dictionary of common solution boilerplate, so even
+ * short programs compress well. The first byte tells how the rest is encoded; values that
+ * do not get smaller are kept as plain UTF-8.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    private static final byte RAW = 0;
+    // A changed dictionary needs a new format byte: stored values keep referring to the old one
+    private static final byte DEFLATE_V1 = 1;
+
+    // Deflate finds matches closer to the end of the dictionary cheaper, so the most common
+    // fragments go last
+    private static final byte[] DICTIONARY_V1 = String.join("",
+            "All test cases passed!\nScore: Sample test cases passed: Test cases passed: ",
+            "Expected: Got: Test case Time Limit Exceeded Runtime Error Compilation Error ",
+            "const lines = require('fs').readFileSync(0, 'utf8').trim().split('\\n');\n",
+            "process.stdin.on('data', ",
+            "console.log(",
+            "#include <bits/stdc++.h>\n#include <iostream>\n#include <vector>\n#include <string>\n",
+            "using namespace std;\n\nint main() {\n    ios::sync_with_stdio(false);\n    cin.tie(nullptr);\n",
+            "    long long n;\n    cin >> n;\n    cout << ",
+            " << endl;\n    return 0;\n}\n",
+            "import java.util.*;\nimport java.io.*;\n\npublic class Main {\n",
+            "    public static void main(String[] args) throws IOException {\n",
+            "        BufferedReader br = new BufferedReader(new InputStreamReader(System.in));\n",
+            "        Scanner sc = new Scanner(System.in);\n        int n = sc.nextInt();\n",
+            "        System.out.println(",
+            "import sys\ninput = sys.stdin.readline\n\ndef main():\n",
+            "    n = int(input())\n    arr = list(map(int, input().split()))\n",
+            "for i in range(n):\n    ",
+            "print(",
+            "\n\nif __name__ == '__main__':\n    main()\n"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        return compress(text);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        return decompress(stored);
+    }
+
+    public static byte[] compress(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            out.write(DEFLATE_V1);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            if (out.size() < raw.length + 1) {
+                return out.toByteArray();
+            }
+        } finally {
+            deflater.end();
+        }
+        byte[] stored = new byte[raw.length + 1];
+        stored[0] = RAW;
+        System.arraycopy(raw, 0, stored, 1, raw.length);
+        return stored;
+    }
+
+    public static String decompress(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0) {
+            return "";
+        }
+        switch (stored[0]) {
+            case RAW:
+                return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE_V1:
+                return inflate(stored, DICTIONARY_V1);
+            default:
+                throw new IllegalArgumentException("Unknown compressed text format " + stored[0]);
+        }
+    }
+
+    private static String inflate(byte[] stored, byte[] dictionary) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalArgumentException("Truncated compressed text");
+                    }
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed text: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.shodhacode.entity;
 
+import com.shodhacode.service.CatalogCacheInvalidator;
 import jakarta.persistence.*;
 import lombok.*;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
@@ -11,6 +12,7 @@
 import java.util.Set;
 
 @Entity
+@EntityListeners(CatalogCacheInvalidator.class)
 @Table(name = "contests")
 @Getter
 @Setter
@@ -32,7 +34,26 @@ public class Contest {
     private LocalDateTime endTime;
     private Boolean isActive = true;
 
-    @OneToMany(mappedBy = "contest", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Per-contestant throttle for runs and submissions; null uses judge.throttle.*
+    private Integer submissionsPerMinute;
+    private Integer submissionBurst;
+
+    // Share of judge capacity relative to other contests with queued submissions; null means 1
+    private Integer judgeWeight;
+
+    // How participants are ranked; null means IOI
+    @Enumerated(EnumType.STRING)
+    private ScoringModel scoringModel;
+
+    // ICPC penalty per rejected attempt on a solved problem; null means 20
+    private Integer penaltyMinutes;
+
+    // Scoreboard freeze: from freezeTime the public leaderboard only shows verdicts of earlier
+    // submissions, until publishTime (null means at endTime). No freeze when freezeTime is null.
+    private LocalDateTime freezeTime;
+    private LocalDateTime publishTime;
+
+    @OneToMany(mappedBy = "contest", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<Problem> problems = new ArrayList<>();
     
@@ -1,23 +1,34 @@
 package com.shodhacode.entity;
 
+import com.shodhacode.service.CatalogCacheInvalidator;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(CatalogCacheInvalidator.class)
 @Table(name = "contest_participants", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "contest_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "contest_id"}),
+       indexes = {
+           // Covers the SQL ranking of a contest (ContestParticipantRepository)
+           @Index(name = "idx_contest_participants_ranking",
+                  columnList = "contest_id, score, problems_solved, penalty, last_scored_at")
+       })
 @Data
+@EqualsAndHashCode(exclude = {"user", "contest"})
+@ToString(exclude = {"user", "contest"})
 public class ContestParticipant {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contest_id", nullable = false)
     private Contest contest;
     
@@ -29,4 +40,10 @@ public class ContestParticipant {
     
     @Column(name = "problems_solved")
     private Integer problemsSolved = 0;
+
+    // Ranking keys kept up to date with every verdict (see ScoringService); penalty is in
+    // minutes and only used by ICPC contests
+    private Integer penalty = 0;
+    private LocalDateTime lastScoredAt;
+    private LocalDateTime lastSubmittedAt;
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.shodhacode.entity;
+
+public enum JudgeMode {
+    // One sandbox per test case
+    PER_TEST,
+    // One sandbox per submission; an in-sandbox runner applies the per-test limits
+    BATCH
+}
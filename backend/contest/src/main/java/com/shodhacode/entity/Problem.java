@@ -1,20 +1,26 @@
 package com.shodhacode.entity;
 
 import com.shodhacode.constants.ApplicationConstants;
+import com.shodhacode.service.CatalogCacheInvalidator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(CatalogCacheInvalidator.class)
 @Table(name = "problems")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EqualsAndHashCode(exclude = {"contest", "testCases"})
+@ToString(exclude = {"contest", "testCases"})
 public class Problem {
     // Primary Key
     @Id
@@ -25,7 +31,7 @@ public class Problem {
     private String title;
     
     // Contest relationship
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contest_id")
     @JsonBackReference
     private Contest contest;
@@ -51,8 +57,11 @@ public class Problem {
     
     private Integer memoryLimit = ApplicationConstants.DEFAULT_MEMORY_LIMIT;
 
+    @Enumerated(EnumType.STRING)
+    private JudgeMode judgeMode = JudgeMode.PER_TEST;
+
     // All test cases (both visible samples and hidden tests)
-    @OneToMany(mappedBy = "problem", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "problem", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<TestCase> testCases = new ArrayList<>();
 }
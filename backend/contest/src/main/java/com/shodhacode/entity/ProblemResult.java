@@ -0,0 +1,45 @@
+package com.shodhacode.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of one contest participant on one problem, folded in verdict by verdict (see
+ * ScoringRules) so participant totals never aggregate over submissions.
+ */
+@Entity
+@Table(name = "problem_results",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"participant_id", "problem_id"}))
+@Data
+@NoArgsConstructor
+public class ProblemResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "participant_id", nullable = false)
+    private Long participantId;
+
+    @Column(name = "problem_id", nullable = false)
+    private Long problemId;
+
+    private Integer bestScore = 0;
+
+    // Submission time of the first submission that reached bestScore
+    private LocalDateTime bestScoreAt;
+
+    // Submission time of the first fully accepted submission
+    private LocalDateTime acceptedAt;
+
+    // Rejected attempts submitted before acceptedAt (all of them while unsolved), and the latest one
+    private Integer rejectedAttempts = 0;
+    private LocalDateTime lastRejectedAt;
+
+    public ProblemResult(Long participantId, Long problemId) {
+        this.participantId = participantId;
+        this.problemId = problemId;
+    }
+}
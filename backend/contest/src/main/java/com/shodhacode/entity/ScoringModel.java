@@ -0,0 +1,9 @@
+package com.shodhacode.entity;
+
+public enum ScoringModel {
+    // Sum of the best score per problem, partial scores count; ties go to whoever reached it first
+    IOI,
+    // Problems fully solved, then penalty: minutes from the start to each first acceptance plus
+    // Contest#penaltyMinutes per rejected attempt before it; ties go to the earlier last acceptance
+    ICPC
+}
@@ -0,0 +1,30 @@
+package com.shodhacode.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Submitted source stored once per distinct content, keyed by its SHA-256. Submissions
+ * reference it through {@code sourceHash}; {@code refCount} counts them. Written through
+ * SourceStore, never through JPA.
+ */
+@Entity
+@Table(name = "source_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SourceBlob {
+    // Hex SHA-256 of the UTF-8 source
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    private Integer refCount;
+
+    // Sized for the worst case of incompressible UTF-8 (3 bytes per char) plus the format byte
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(length = 32768)
+    private String code;
+}
@@ -3,14 +3,32 @@
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions", indexes = {
+        // Keyset pagination of submission history (newest first)
+        @Index(name = "idx_submissions_user_problem_time", columnList = "user_id, problem_id, submitted_at"),
+        @Index(name = "idx_submissions_user_time", columnList = "user_id, submitted_at"),
+        // Oldest-first scan of pending work by judge workers
+        @Index(name = "idx_submissions_queue", columnList = "status, submitted_at"),
+        // Recently claimed work counted by the fair-share order
+        @Index(name = "idx_submissions_claimed", columnList = "claimed_at"),
+        // Identical sources, e.g. for judging caches
+        @Index(name = "idx_submissions_source_hash", columnList = "source_hash"),
+        // Expired test runs found by TestRunRetention
+        @Index(name = "idx_submissions_test_run_time", columnList = "is_test_run, submitted_at"),
+        // Verdicts written since a point in time, followed by frozen leaderboards
+        @Index(name = "idx_submissions_judged_at", columnList = "judged_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EqualsAndHashCode(exclude = {"user", "problem"})
+@ToString(exclude = {"user", "problem"})
 public class Submission {
     // Primary Key
     @Id
@@ -18,11 +36,11 @@ public class Submission {
     private String id;
 
     // Foreign Keys - Important relationships
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "problem_id")
     private Problem problem;
 
@@ -44,16 +62,30 @@ public class Submission {
     // Performance metrics
     private Long executionTime;
 
+    // When the verdict was written (see VerdictWriter)
+    private LocalDateTime judgedAt;
+
     // Test run flag (true = only run sample cases, false = full submission)
     private Boolean isTestRun = false;
+
+    // Judge lease when workers claim from the database queue (see DatabaseSubmissionQueue)
+    @Column(length = 128)
+    private String claimedBy;
+    private LocalDateTime claimedAt;
     
-    // Large text fields at the end
-    @Column(length = 10000)
+    @Column(length = 2000)
+    private String errorMessage;
+
+    // Content address of the source in source_blobs (see SourceStore)
+    @Column(length = 64)
+    private String sourceHash;
+
+    // Stored outside this table (source_blobs, submission_contents) so status rows stay
+    // small; filled in only while the submission is judged
+    @Transient
     private String code;
-    
-    @Column(length = 5000)
+
+    @Transient
     private String output;
-    
-    private String errorMessage;
 }
 
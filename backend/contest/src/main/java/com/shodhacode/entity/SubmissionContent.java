@@ -0,0 +1,27 @@
+package com.shodhacode.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Judge output of a submission, compressed and kept out of the submissions table. Status
+ * polls, queue scans and verdict writes only touch the small submission row; this one is
+ * read when the result is displayed. Source code is stored once per content (SourceBlob).
+ */
+@Entity
+@Table(name = "submission_contents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionContent {
+    // Same ID as the submission
+    @Id
+    private String submissionId;
+
+    // Sized for the worst case of incompressible UTF-8 (3 bytes per char) plus the format byte
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(length = 16384)
+    private String output;
+}
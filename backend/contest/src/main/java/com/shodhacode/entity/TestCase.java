@@ -1,17 +1,26 @@
 package com.shodhacode.entity;
 
 import com.shodhacode.constants.ApplicationConstants;
+import com.shodhacode.service.CatalogCacheInvalidator;
+import com.shodhacode.service.SourceStore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
+import java.nio.charset.StandardCharsets;
+
 @Entity
+@EntityListeners(CatalogCacheInvalidator.class)
 @Table(name = "test_cases")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EqualsAndHashCode(exclude = "problem")
+@ToString(exclude = "problem")
 public class TestCase {
     // Primary Key
     @Id
@@ -19,7 +28,7 @@ public class TestCase {
     private Long id;
     
     // Problem relationship
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "problem_id")
     @JsonBackReference
     private Problem problem;
@@ -32,10 +41,31 @@ public class TestCase {
     
     private Integer memoryLimit = ApplicationConstants.DEFAULT_MEMORY_LIMIT;
     
-    // Test data (large text fields at the end)
-    @Column(columnDefinition = "TEXT")
+    // UTF-8 sizes in bytes and SHA-256 (hex) of the expected output, recorded by the bulk
+    // import (ProblemImportService) as the files stream in, or on save. The judge caps output
+    // by the size and accepts an identical output by the hash without reading the expected one
+    private Long inputSize;
+    private Long expectedOutputSize;
+    @Column(length = 64)
+    private String expectedOutputHash;
+    
+    // Test data (large text fields at the end); LOBs so imported files of any size are
+    // streamed into storage instead of being inlined in the row
+    @Lob
     private String input;
     
-    @Column(columnDefinition = "TEXT")
+    @Lob
     private String expectedOutput;
+
+    @PrePersist
+    @PreUpdate
+    void recordSizes() {
+        if (input != null) {
+            inputSize = (long) input.getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (expectedOutput != null) {
+            expectedOutputSize = (long) expectedOutput.getBytes(StandardCharsets.UTF_8).length;
+            expectedOutputHash = SourceStore.hash(expectedOutput);
+        }
+    }
 }
\ No newline at end of file
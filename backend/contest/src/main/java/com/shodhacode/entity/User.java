@@ -3,11 +3,15 @@
 import jakarta.persistence.*;
 import lombok.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Users whose totals changed since a point in time, followed by GlobalRankingService
+        @Index(name = "idx_users_score_updated_at", columnList = "score_updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,6 +34,10 @@ public class User {
 
     private Integer score = 0;
     private Integer problemsSolved = 0;
+
+    // Last change of score or problemsSolved (see ScoringService)
+    @JsonIgnore
+    private LocalDateTime scoreUpdatedAt = LocalDateTime.now();
     
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @JsonIgnore
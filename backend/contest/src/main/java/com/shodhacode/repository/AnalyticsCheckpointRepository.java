@@ -0,0 +1,9 @@
+package com.shodhacode.repository;
+
+import com.shodhacode.entity.AnalyticsCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsCheckpointRepository extends JpaRepository<AnalyticsCheckpoint, Long> {
+}
@@ -1,8 +1,13 @@
 package com.shodhacode.repository;
 
 import com.shodhacode.entity.ContestParticipant;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,9 +16,40 @@ public interface ContestParticipantRepository extends JpaRepository<ContestParti
 
     Optional<ContestParticipant> findByUserIdAndContestId(Long userId, Long contestId);
 
+    // Row lock, so standing updates of one participant apply one at a time across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT cp FROM ContestParticipant cp WHERE cp.user.id = :userId AND cp.contest.id = :contestId")
+    Optional<ContestParticipant> findForUpdate(@Param("userId") Long userId, @Param("contestId") Long contestId);
+
+    @EntityGraph(attributePaths = "user")
     List<ContestParticipant> findByContestId(Long contestId);
 
     List<ContestParticipant> findByUserId(Long userId);
 
+    String RANKING_SELECT = "SELECT u.id, u.username, u.fullName, cp.score, cp.problemsSolved, cp.penalty, cp.lastSubmittedAt, ";
+
+    String RANKING_FROM = "FROM ContestParticipant cp JOIN cp.user u WHERE cp.contest.id = :contestId ORDER BY 8";
+
+    // Rows of [userId, username, fullName, score, problemsSolved, penalty, lastSubmittedAt, position]
+    // ranked by the keys ScoringService keeps on each participant (see ScoringRules#ranking),
+    // ties by user ID
+    @Query(RANKING_SELECT +
+           "ROW_NUMBER() OVER (ORDER BY cp.score DESC, cp.problemsSolved DESC, cp.lastScoredAt ASC NULLS LAST, u.id) " +
+           RANKING_FROM)
+    List<Object[]> findIoiRankingByContestId(@Param("contestId") Long contestId);
+
+    @Query(RANKING_SELECT +
+           "ROW_NUMBER() OVER (ORDER BY cp.problemsSolved DESC, cp.penalty, cp.lastScoredAt ASC NULLS LAST, u.id) " +
+           RANKING_FROM)
+    List<Object[]> findIcpcRankingByContestId(@Param("contestId") Long contestId);
+
     boolean existsByUserIdAndContestId(Long userId, Long contestId);
+
+    @Query("SELECT cp.user.id FROM ContestParticipant cp WHERE cp.contest.id = :contestId")
+    List<Long> findUserIdsByContestId(@Param("contestId") Long contestId);
+
+    // Rows of [contestId, participantCount]
+    @Query("SELECT cp.contest.id, COUNT(cp) FROM ContestParticipant cp " +
+           "GROUP BY cp.contest.id")
+    List<Object[]> countParticipantsPerContest();
 }
\ No newline at end of file
@@ -1,9 +1,26 @@
 package com.shodhacode.repository;
 
 import com.shodhacode.entity.Contest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ContestRepository extends JpaRepository<Contest, Long> {
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = "problems")
+    Optional<Contest> findWithProblemsById(Long id);
+
+    @EntityGraph(attributePaths = "problems")
+    @Query("SELECT c FROM Contest c")
+    List<Contest> findAllWithProblems();
+
+    List<Contest> findByStartTimeBetween(LocalDateTime from, LocalDateTime to);
+
+    // Frozen now or earlier; whether still frozen depends on the publish time
+    List<Contest> findByFreezeTimeLessThanEqual(LocalDateTime time);
+}
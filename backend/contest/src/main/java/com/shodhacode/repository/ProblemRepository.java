@@ -3,10 +3,22 @@
 
 import com.shodhacode.entity.Problem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
 public interface ProblemRepository extends JpaRepository<Problem, Long> {
     List<Problem> findByContestId(Long contestId);
-}
\ No newline at end of file
+
+    // At most one row of [problemId, contestId]; contestId is null for problems outside a contest
+    @Query("SELECT p.id, c.id FROM Problem p LEFT JOIN p.contest c WHERE p.id = :id")
+    List<Object[]> findContestIdById(@Param("id") Long id);
+
+    // Rows of [contestId, problemCount]
+    @Query("SELECT p.contest.id, COUNT(p) FROM Problem p " +
+           "WHERE p.contest IS NOT NULL " +
+           "GROUP BY p.contest.id")
+    List<Object[]> countProblemsPerContest();
+}
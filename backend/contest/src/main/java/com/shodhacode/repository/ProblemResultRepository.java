@@ -0,0 +1,16 @@
+package com.shodhacode.repository;
+
+import com.shodhacode.entity.ProblemResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProblemResultRepository extends JpaRepository<ProblemResult, Long> {
+
+    Optional<ProblemResult> findByParticipantIdAndProblemId(Long participantId, Long problemId);
+
+    List<ProblemResult> findByParticipantId(Long participantId);
+}
@@ -0,0 +1,15 @@
+package com.shodhacode.repository;
+
+import com.shodhacode.entity.SourceBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface SourceBlobRepository extends JpaRepository<SourceBlob, String> {
+
+    @Query("SELECT b.code FROM Submission s JOIN SourceBlob b ON b.hash = s.sourceHash WHERE s.id = :submissionId")
+    Optional<String> findCodeBySubmissionId(@Param("submissionId") String submissionId);
+}
@@ -0,0 +1,9 @@
+package com.shodhacode.repository;
+
+import com.shodhacode.entity.SubmissionContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SubmissionContentRepository extends JpaRepository<SubmissionContent, String> {
+}
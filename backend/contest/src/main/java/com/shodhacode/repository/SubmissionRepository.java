@@ -1,54 +1,143 @@
 package com.shodhacode.repository;
 
+import com.shodhacode.dto.SubmissionResult;
+import com.shodhacode.dto.SubmissionSource;
+import com.shodhacode.dto.SubmissionSummary;
 import com.shodhacode.entity.Submission;
 import com.shodhacode.entity.SubmissionStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, String> {
 
-    List<Submission> findByUserIdAndProblemId(Long userId, Long problemId);
-    
-    Optional<Submission> findFirstByUserIdAndProblemIdOrderBySubmittedAtDesc(Long userId, Long problemId);
-    
-    @Query("SELECT s FROM Submission s " +
-           "WHERE s.user.id = :userId " +
-           "AND s.problem.contest.id = :contestId " +
-           "ORDER BY s.submittedAt DESC")
-    List<Submission> findByUserIdAndContestId(@Param("userId") Long userId, 
-                                              @Param("contestId") Long contestId);
-
-    @Query("SELECT s.user.username as username, " +
-            "COUNT(DISTINCT CASE WHEN s.score > 0 THEN s.problem.id END) as problemsSolved, " +
-            "SUM(s.score) as totalScore " +
+    String SUMMARY_SELECT = "SELECT new com.shodhacode.dto.SubmissionSummary(" +
+            "s.id, s.problem.id, s.status, s.language, s.score, s.testCasesPassed, " +
+            "s.totalTestCases, s.executionTime, s.isTestRun, s.submittedAt) " +
+            "FROM Submission s ";
+
+    String RESULT_SELECT = "SELECT new com.shodhacode.dto.SubmissionResult(" +
+            "s.id, s.problem.id, s.status, s.language, s.score, s.testCasesPassed, " +
+            "s.totalTestCases, s.executionTime, s.isTestRun, s.submittedAt, c.output, s.errorMessage) " +
+            "FROM Submission s LEFT JOIN SubmissionContent c ON c.submissionId = s.id ";
+
+    // Judged real submissions of a contest, as folded into standings (see ScoringRules) and analytics
+    String VERDICT_SELECT = "SELECT s.id, s.user.id, s.problem.id, s.status, s.score, s.submittedAt, s.judgedAt, s.language " +
             "FROM Submission s " +
             "WHERE s.problem.contest.id = :contestId " +
-            "AND s.id IN (SELECT MAX(s2.id) FROM Submission s2 " +
-            "             WHERE s2.user.id = s.user.id " +
-            "             AND s2.problem.id = s.problem.id " +
-            "             GROUP BY s2.user.id, s2.problem.id) " +
-            "GROUP BY s.user.username " +
-            "ORDER BY totalScore DESC, problemsSolved DESC")
-    List<Object[]> findLeaderboard(@Param("contestId") Long contestId);
+            "AND s.isTestRun = false " +
+            "AND s.status NOT IN (com.shodhacode.entity.SubmissionStatus.PENDING, " +
+            "                     com.shodhacode.entity.SubmissionStatus.RUNNING) ";
+
+    String REJECTED_ATTEMPTS = "SELECT COUNT(s), MAX(s.submittedAt) FROM Submission s " +
+            "WHERE s.user.id = :userId " +
+            "AND s.problem.id = :problemId " +
+            "AND s.isTestRun = false " +
+            "AND s.status IN (com.shodhacode.entity.SubmissionStatus.PARTIALLY_ACCEPTED, " +
+            "                 com.shodhacode.entity.SubmissionStatus.WRONG_ANSWER, " +
+            "                 com.shodhacode.entity.SubmissionStatus.RUNTIME_ERROR, " +
+            "                 com.shodhacode.entity.SubmissionStatus.TIME_LIMIT_EXCEEDED) ";
+
+    // Keyset predicate: strictly older than the cursor row, ties broken by id
+    String BEFORE_CURSOR = "AND (s.submittedAt < :beforeTime " +
+            "OR (s.submittedAt = :beforeTime AND s.id < :beforeId)) ";
+
+    String NEWEST_FIRST = "ORDER BY s.submittedAt DESC, s.id DESC";
+
+    // Fetch plan for judging: everything the executor touches outside a session
+    @EntityGraph(attributePaths = {"user", "problem", "problem.contest"})
+    Optional<Submission> findWithUserAndProblemById(String id);
+
+    @Query(RESULT_SELECT + "WHERE s.id = :id")
+    Optional<SubmissionResult> findResultById(@Param("id") String id);
+
+    // One read for many results, e.g. every submission with a status subscriber
+    @Query(RESULT_SELECT + "WHERE s.id IN :ids")
+    List<SubmissionResult> findResultsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT new com.shodhacode.dto.SubmissionSource(s.id, s.language, b.code, s.sourceHash) " +
+           "FROM Submission s LEFT JOIN SourceBlob b ON b.hash = s.sourceHash WHERE s.id = :id")
+    Optional<SubmissionSource> findSourceById(@Param("id") String id);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE s.user.id = :userId AND s.problem.id = :problemId " +
+           NEWEST_FIRST)
+    List<SubmissionSummary> findHistoryByUserIdAndProblemId(@Param("userId") Long userId,
+                                                            @Param("problemId") Long problemId,
+                                                            Limit limit);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE s.user.id = :userId AND s.problem.id = :problemId " +
+           BEFORE_CURSOR +
+           NEWEST_FIRST)
+    List<SubmissionSummary> findHistoryByUserIdAndProblemIdBefore(@Param("userId") Long userId,
+                                                                  @Param("problemId") Long problemId,
+                                                                  @Param("beforeTime") LocalDateTime beforeTime,
+                                                                  @Param("beforeId") String beforeId,
+                                                                  Limit limit);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE s.user.id = :userId AND s.problem.contest.id = :contestId " +
+           NEWEST_FIRST)
+    List<SubmissionSummary> findHistoryByUserIdAndContestId(@Param("userId") Long userId,
+                                                            @Param("contestId") Long contestId,
+                                                            Limit limit);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE s.user.id = :userId AND s.problem.contest.id = :contestId " +
+           BEFORE_CURSOR +
+           NEWEST_FIRST)
+    List<SubmissionSummary> findHistoryByUserIdAndContestIdBefore(@Param("userId") Long userId,
+                                                                  @Param("contestId") Long contestId,
+                                                                  @Param("beforeTime") LocalDateTime beforeTime,
+                                                                  @Param("beforeId") String beforeId,
+                                                                  Limit limit);
+
+    List<Submission> findByUserIdAndProblemId(Long userId, Long problemId);
     
+    // Rows of [count, latest submittedAt] of rejected attempts submitted before a time
+    @Query(REJECTED_ATTEMPTS +
+           "AND s.submittedAt < :before")
+    List<Object[]> countRejectedAttemptsBefore(@Param("userId") Long userId,
+                                               @Param("problemId") Long problemId,
+                                               @Param("before") LocalDateTime before);
+
+    // Rows as above, of all rejected attempts
+    @Query(REJECTED_ATTEMPTS)
+    List<Object[]> countRejectedAttempts(@Param("userId") Long userId,
+                                         @Param("problemId") Long problemId);
+
+    // Rows of [id, userId, problemId, status, score, submittedAt, judgedAt, language] of judged real
+    // submissions made before a time, in submission order
+    @Query(VERDICT_SELECT +
+           "AND s.submittedAt < :before " +
+           "ORDER BY s.submittedAt, s.id")
+    List<Object[]> findVerdictsByContestIdSubmittedBefore(@Param("contestId") Long contestId,
+                                                          @Param("before") LocalDateTime before);
+
+    // Rows as above, of verdicts written since a time
+    @Query(VERDICT_SELECT +
+           "AND s.judgedAt >= :since")
+    List<Object[]> findVerdictsByContestIdJudgedSince(@Param("contestId") Long contestId,
+                                                      @Param("since") LocalDateTime since);
+
+    // Rows as above, of one user, in submission order
+    @Query(VERDICT_SELECT +
+           "AND s.user.id = :userId " +
+           "ORDER BY s.submittedAt, s.id")
+    List<Object[]> findVerdictsByContestIdAndUserId(@Param("contestId") Long contestId,
+                                                    @Param("userId") Long userId);
+
     @Query("SELECT COUNT(DISTINCT s.user.id) " +
             "FROM Submission s " +
             "WHERE s.problem.contest.id = :contestId")
     Long countUniqueUsersByContestId(@Param("contestId") Long contestId);
-
-    @Query("SELECT s.user, " +
-            "COUNT(DISTINCT CASE WHEN s.status = 'ACCEPTED' OR s.status = 'PARTIALLY_ACCEPTED' THEN s.problem.id END), " +
-            "COALESCE(SUM(DISTINCT CASE WHEN s.status IN ('ACCEPTED', 'PARTIALLY_ACCEPTED') THEN s.score ELSE 0 END), 0), " +
-            "MAX(s.submittedAt) " +
-            "FROM Submission s " +
-            "WHERE s.problem.id IN (SELECT p.id FROM Problem p WHERE p.contest.id = :contestId) " +
-            "GROUP BY s.user " +
-            "HAVING COUNT(s.id) > 0 " +
-            "ORDER BY SUM(DISTINCT CASE WHEN s.status IN ('ACCEPTED', 'PARTIALLY_ACCEPTED') THEN s.score ELSE 0 END) DESC")
-    List<Object[]> findContestSubmissionStats(@Param("contestId") Long contestId);
 }
\ No newline at end of file
@@ -2,6 +2,8 @@
 
 import com.shodhacode.entity.TestCase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -9,4 +11,18 @@
 public interface TestCaseRepository extends JpaRepository<TestCase, Long> {
     List<TestCase> findByProblemId(Long problemId);
     List<TestCase> findByProblemIdAndIsHidden(Long problemId, Boolean isHidden);
-}
\ No newline at end of file
+
+    long countByProblemId(Long problemId);
+
+    // Rows of [id, isHidden, timeLimit, memoryLimit, expectedOutputSize, expectedOutputHash],
+    // samples first; the test data itself is read one test at a time
+    @Query("SELECT t.id, t.isHidden, t.timeLimit, t.memoryLimit, t.expectedOutputSize, t.expectedOutputHash " +
+           "FROM TestCase t WHERE t.problem.id = :problemId ORDER BY t.isHidden, t.id")
+    List<Object[]> findLimitsByProblemId(@Param("problemId") Long problemId);
+
+    @Query("SELECT t.input FROM TestCase t WHERE t.id = :id")
+    String findInputById(@Param("id") Long id);
+
+    @Query("SELECT t.expectedOutput FROM TestCase t WHERE t.id = :id")
+    String findExpectedOutputById(@Param("id") Long id);
+}
@@ -2,10 +2,40 @@
 
 import com.shodhacode.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+    // Applies the change of one contest score in place; a problem belongs to one contest, so it
+    // counts towards problemsSolved exactly when its best score first becomes positive
+    @Modifying
+    @Query("UPDATE User u SET u.score = u.score + :scoreDelta, " +
+           "u.problemsSolved = u.problemsSolved + :solvedDelta, u.scoreUpdatedAt = :updatedAt " +
+           "WHERE u.id = :userId")
+    int addToTotals(@Param("userId") Long userId,
+                    @Param("scoreDelta") int scoreDelta,
+                    @Param("solvedDelta") int solvedDelta,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Rows of [id, username, fullName, score, problemsSolved, scoreUpdatedAt]
+    @Query("SELECT u.id, u.username, u.fullName, u.score, u.problemsSolved, u.scoreUpdatedAt FROM User u")
+    List<Object[]> findAllTotals();
+
+    // Rows as above, of users whose totals changed since a time
+    @Query("SELECT u.id, u.username, u.fullName, u.score, u.problemsSolved, u.scoreUpdatedAt FROM User u " +
+           "WHERE u.scoreUpdatedAt >= :since")
+    List<Object[]> findTotalsUpdatedSince(@Param("since") LocalDateTime since);
+
+    // Stamps rows written before the column existed, which no incremental read would find
+    @Modifying
+    @Query("UPDATE User u SET u.scoreUpdatedAt = :updatedAt WHERE u.scoreUpdatedAt IS NULL")
+    int stampMissingScoreUpdates(@Param("updatedAt") LocalDateTime updatedAt);
+}
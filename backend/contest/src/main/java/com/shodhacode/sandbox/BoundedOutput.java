@@ -0,0 +1,49 @@
+package com.shodhacode.sandbox;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps the first {@code limit} bytes written to it and counts, but discards, the rest, so a
+ * program flooding its output is drained to the end without growing the judge's heap.
+ */
+class BoundedOutput extends OutputStream {
+
+    private final ByteArrayOutputStream kept = new ByteArrayOutputStream();
+    private final long limit;
+    private boolean exceeded;
+
+    BoundedOutput(long limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if (kept.size() < limit) {
+            kept.write(b);
+        } else {
+            exceeded = true;
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        int room = (int) Math.min(len, limit - kept.size());
+        if (room > 0) {
+            kept.write(b, off, room);
+        }
+        if (room < len) {
+            exceeded = true;
+        }
+    }
+
+    synchronized boolean isExceeded() {
+        return exceeded;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return kept.toString(StandardCharsets.UTF_8);
+    }
+}
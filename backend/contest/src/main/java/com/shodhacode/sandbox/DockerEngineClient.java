@@ -0,0 +1,339 @@
+package com.shodhacode.sandbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Minimal HTTP/1.1 client for the Docker Engine API over its Unix socket.
+ * Keep-alive connections are pooled; attach connections are hijacked for the raw
+ * stdin/stdout/stderr stream and never return to the pool. A request that fails on a pooled
+ * connection is sent again on a fresh one only if it is idempotent or was never written, so
+ * a container is never created or started twice.
+ */
+@Slf4j
+public class DockerEngineClient implements Closeable {
+
+    private static final String API_VERSION = "/v1.41";
+    private static final int MAX_IDLE_CONNECTIONS = 16;
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE");
+
+    private final UnixDomainSocketAddress address;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>(MAX_IDLE_CONNECTIONS);
+
+    public DockerEngineClient(Path socket, ObjectMapper objectMapper) {
+        this.address = UnixDomainSocketAddress.of(socket);
+        this.objectMapper = objectMapper;
+    }
+
+    public Response get(String path) throws IOException {
+        return request("GET", path, null);
+    }
+
+    public Response post(String path, Object body) throws IOException {
+        return request("POST", path, body);
+    }
+
+    public Response delete(String path) throws IOException {
+        return request("DELETE", path, null);
+    }
+
+    public Response request(String method, String path, Object body) throws IOException {
+        byte[] payload = body == null ? null : objectMapper.writeValueAsBytes(body);
+        Connection pooled = idle.poll();
+        if (pooled != null) {
+            try {
+                return exchange(pooled, method, path, payload);
+            } catch (IOException e) {
+                if (!(e instanceof UnsentRequestException) && !IDEMPOTENT_METHODS.contains(method)) {
+                    // The daemon may have acted on it already
+                    throw e;
+                }
+                // The daemon closed the idle connection; retry once on a fresh one
+                log.debug("Pooled Docker connection failed, reconnecting: {}", e.getMessage());
+            }
+        }
+        return exchange(connect(), method, path, payload);
+    }
+
+    /**
+     * Attaches to a created (not yet started) container. The returned stream carries
+     * multiplexed stdout/stderr frames; stdin is written to the same connection.
+     */
+    public Attachment attach(String containerId, boolean withStdin) throws IOException {
+        Connection connection = connect();
+        String path = "/containers/" + containerId + "/attach?stream=1&stdout=1&stderr=1" + (withStdin ? "&stdin=1" : "");
+        writeRequest(connection, "POST", path, null, "Connection: Upgrade\r\nUpgrade: tcp\r\n");
+        int status = readHead(connection).status;
+        if (status != 101 && status != 200) {
+            connection.close();
+            throw new IOException("Attach to container " + containerId + " failed with HTTP " + status);
+        }
+        return new Attachment(connection);
+    }
+
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private Response exchange(Connection connection, String method, String path, byte[] payload) throws IOException {
+        boolean reusable = false;
+        try {
+            try {
+                writeRequest(connection, method, path, payload, "");
+            } catch (IOException e) {
+                throw new UnsentRequestException(e);
+            }
+            Head head = readHead(connection);
+            byte[] body = head.chunked ? readChunked(connection.input) : readFixed(connection.input, head.contentLength);
+            reusable = head.keepAlive;
+            return new Response(head.status, body, objectMapper);
+        } finally {
+            if (!reusable || !idle.offer(connection)) {
+                connection.close();
+            }
+        }
+    }
+
+    private Connection connect() throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(address);
+        return new Connection(channel);
+    }
+
+    private void writeRequest(Connection connection, String method, String path, byte[] payload,
+                              String extraHeaders) throws IOException {
+        StringBuilder head = new StringBuilder()
+                .append(method).append(' ').append(API_VERSION).append(path).append(" HTTP/1.1\r\n")
+                .append("Host: docker\r\n")
+                .append(extraHeaders);
+        if (payload != null) {
+            head.append("Content-Type: application/json\r\n");
+        }
+        head.append("Content-Length: ").append(payload == null ? 0 : payload.length).append("\r\n\r\n");
+        connection.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        if (payload != null) {
+            connection.write(payload);
+        }
+    }
+
+    private Head readHead(Connection connection) throws IOException {
+        String statusLine = readLine(connection.input);
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new IOException("Malformed response from Docker: " + statusLine);
+        }
+        Head head = new Head();
+        head.status = Integer.parseInt(parts[1]);
+        String line;
+        while (!(line = readLine(connection.input)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (name.equals("content-length")) {
+                head.contentLength = Long.parseLong(value);
+            } else if (name.equals("transfer-encoding")) {
+                head.chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+            } else if (name.equals("connection")) {
+                head.keepAlive = !value.equalsIgnoreCase("close");
+            }
+        }
+        return head;
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Docker closed the connection");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] readFixed(InputStream input, long length) throws IOException {
+        if (length <= 0) {
+            return new byte[0];
+        }
+        byte[] body = input.readNBytes((int) length);
+        if (body.length < length) {
+            throw new EOFException("Truncated response from Docker");
+        }
+        return body;
+    }
+
+    private static byte[] readChunked(InputStream input) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            String sizeLine = readLine(input);
+            int extension = sizeLine.indexOf(';');
+            int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            if (size == 0) {
+                // Trailers end with an empty line
+                while (!readLine(input).isEmpty()) {
+                    // ignore
+                }
+                return body.toByteArray();
+            }
+            body.write(readFixed(input, size));
+            readLine(input);
+        }
+    }
+
+    public static class Response {
+        private final int status;
+        private final byte[] body;
+        private final ObjectMapper objectMapper;
+
+        Response(int status, byte[] body, ObjectMapper objectMapper) {
+            this.status = status;
+            this.body = body;
+            this.objectMapper = objectMapper;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+
+        public JsonNode json() throws IOException {
+            return body.length == 0 ? objectMapper.nullNode() : objectMapper.readTree(body);
+        }
+
+        public String text() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Hijacked attach stream. Without a TTY, Docker prefixes each chunk of output with
+     * an 8-byte header: stream type (1 = stdout, 2 = stderr), three zero bytes, and the
+     * big-endian payload length.
+     */
+    public static class Attachment implements Closeable {
+        private final Connection connection;
+
+        Attachment(Connection connection) {
+            this.connection = connection;
+        }
+
+        public void writeStdinAndClose(byte[] input) throws IOException {
+            connection.write(input);
+            // Half-close: with StdinOnce the container sees EOF on stdin
+            connection.channel.shutdownOutput();
+        }
+
+        /** Reads frames until the container closes its output, copying each payload in chunks. */
+        public void readOutput(OutputStream stdout, OutputStream stderr) throws IOException {
+            byte[] header = new byte[8];
+            byte[] chunk = new byte[8192];
+            while (true) {
+                int read = connection.input.readNBytes(header, 0, header.length);
+                if (read < header.length) {
+                    return;
+                }
+                long remaining = ((header[4] & 0xffL) << 24) | ((header[5] & 0xff) << 16)
+                        | ((header[6] & 0xff) << 8) | (header[7] & 0xff);
+                OutputStream target = header[0] == 2 ? stderr : stdout;
+                while (remaining > 0) {
+                    int n = connection.input.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                    if (n < 0) {
+                        throw new EOFException("Truncated output from Docker");
+                    }
+                    target.write(chunk, 0, n);
+                    remaining -= n;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            connection.close();
+        }
+    }
+
+    static class Connection {
+        private final SocketChannel channel;
+        private final InputStream input;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            // Channels.newInputStream would hold the channel's blocking lock while reading,
+            // which blocks concurrent stdin writes on attach connections
+            this.input = new BufferedInputStream(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return channel.read(ByteBuffer.wrap(b, off, len));
+                }
+            });
+        }
+
+        void write(byte[] data) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close Docker connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static class Head {
+        private int status;
+        private long contentLength = -1;
+        private boolean chunked;
+        private boolean keepAlive = true;
+    }
+
+    /** The request could not be written, so the daemon never saw it. */
+    private static class UnsentRequestException extends IOException {
+        UnsentRequestException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
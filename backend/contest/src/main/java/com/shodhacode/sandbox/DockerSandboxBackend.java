@@ -0,0 +1,423 @@
+package com.shodhacode.sandbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.constants.ApplicationConstants;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One container of the executor image per sandboxed command. Talks to the Docker Engine
+ * API over its Unix socket when it is reachable, and falls back to forking the
+ * {@code docker} CLI otherwise.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DockerSandboxBackend extends ProcessSandbox {
+
+    private static final String JUDGE_HOME = "/opt/judge";
+    // Created in the executor image; containers themselves run as root
+    private static final String BATCH_USER = "runner";
+
+    @Value("${docker.execution.enabled:false}")
+    private boolean dockerEnabled;
+
+    @Value("${docker.image.name:" + ApplicationConstants.DEFAULT_DOCKER_IMAGE + "}")
+    private String dockerImageName = ApplicationConstants.DEFAULT_DOCKER_IMAGE;
+
+    @Value("${docker.debug.mode:false}")
+    private boolean dockerDebugMode;
+
+    @Value("${docker.api.enabled:true}")
+    private boolean apiEnabled;
+
+    @Value("${docker.api.socket:/var/run/docker.sock}")
+    private String apiSocket;
+
+    private final ObjectMapper objectMapper;
+
+    private DockerEngineClient engine;
+
+    private boolean warmStart;
+
+    @Override
+    public String getName() {
+        return "docker";
+    }
+
+    @Override
+    public boolean initialize() {
+        log.info("Docker execution enabled: {}", dockerEnabled);
+        log.info("Docker image name: {}", dockerImageName);
+        log.info("Docker debug mode: {}", dockerDebugMode);
+        if (!dockerEnabled) {
+            log.warn("Docker execution is DISABLED. Code execution will not work!");
+            return false;
+        }
+        if (apiEnabled && connectEngine()) {
+            return checkEngineAvailability();
+        }
+        return checkDockerAvailability();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Override
+    public boolean hasWarmStart() {
+        return warmStart;
+    }
+
+    @Override
+    public String getJudgeHome() {
+        return JUDGE_HOME;
+    }
+
+    @Override
+    public String getBatchUser() {
+        return BATCH_USER;
+    }
+
+    @Override
+    public SandboxResult run(SandboxRequest request) throws IOException, InterruptedException {
+        if (dockerDebugMode) {
+            log.info("Starting container {}", request.getName());
+        }
+        if (engine != null) {
+            return runWithEngine(request);
+        }
+        return execute(request, buildDockerCommand(request));
+    }
+
+    private SandboxResult runWithEngine(SandboxRequest request) throws IOException, InterruptedException {
+        boolean withStdin = request.getStdin() != null;
+        long startedAt = System.nanoTime();
+        String containerId = createContainer(request);
+        DockerEngineClient.Attachment attachment = null;
+        try {
+            // Attach before start so no output is lost, and register the wait right after it,
+            // so the exit code is ready as soon as the output stream ends
+            attachment = engine.attach(containerId, withStdin);
+            expect(engine.post("/containers/" + containerId + "/start", null), "start " + request.getName());
+            Future<DockerEngineClient.Response> exit = streamPumps.submit(() ->
+                    engine.post("/containers/" + containerId + "/wait", null));
+
+            DockerEngineClient.Attachment stream = attachment;
+            if (withStdin) {
+                byte[] input = request.getStdin().getBytes(StandardCharsets.UTF_8);
+                streamPumps.execute(() -> {
+                    try {
+                        stream.writeStdinAndClose(input);
+                    } catch (IOException e) {
+                        // The program exited without reading all of its input
+                        log.debug("Container {} closed stdin early: {}", request.getName(), e.getMessage());
+                    }
+                });
+            }
+            BoundedOutput stdout = new BoundedOutput(request.getOutputLimit());
+            BoundedOutput stderr = new BoundedOutput(request.getOutputLimit());
+            Future<?> output = streamPumps.submit(() -> {
+                stream.readOutput(stdout, stderr);
+                return null;
+            });
+
+            boolean timedOut = false;
+            try {
+                output.get(request.getTimeLimit() + KILL_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Container {} did not stop within {}ms, killing it", request.getName(), request.getTimeLimit());
+                timedOut = true;
+                engine.post("/containers/" + containerId + "/kill", null);
+                awaitOutputAfterKill(output);
+            } catch (ExecutionException e) {
+                log.debug("Failed to read output of container {}: {}", request.getName(), e.getCause().getMessage());
+            }
+
+            int exitCode = awaitExitCode(exit, request);
+            long wallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            if (timedOut) {
+                exitCode = TIMEOUT_EXIT_CODE;
+            }
+            JsonNode state = engine.get("/containers/" + containerId + "/json").json().path("State");
+            boolean oomKilled = state.path("OOMKilled").asBoolean(false);
+
+            return new SandboxResult(exitCode, stdout.toString(), stderr.toString(), wallTime,
+                    exitCode == TIMEOUT_EXIT_CODE, oomKilled, stdout.isExceeded() || stderr.isExceeded());
+        } finally {
+            if (attachment != null) {
+                attachment.close();
+            }
+            if (!dockerDebugMode) {
+                // Nobody waits on the removal; the next test case can start right away
+                streamPumps.execute(() -> removeContainer(containerId));
+            }
+        }
+    }
+
+    private String createContainer(SandboxRequest request) throws IOException {
+        boolean withStdin = request.getStdin() != null;
+        long memoryBytes = request.getMemoryLimit() * 1024L * 1024L;
+
+        Map<String, Object> hostConfig = new LinkedHashMap<>();
+        hostConfig.put("Binds", List.of(request.getWorkDir().toString() + ":/code"));
+        hostConfig.put("NanoCpus", 1_000_000_000L);
+        hostConfig.put("Memory", memoryBytes);
+        hostConfig.put("MemorySwap", memoryBytes);
+        hostConfig.put("Ulimits", List.of(
+                Map.of("Name", "nofile", "Soft", 256, "Hard", 256),
+                Map.of("Name", "nproc", "Soft", 512, "Hard", 512)));
+        hostConfig.put("NetworkMode", "none");
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("Image", dockerImageName);
+        config.put("Cmd", List.of("/bin/bash", "-c",
+                "timeout " + toSeconds(request.getTimeLimit()) + " " + request.getCommand()));
+        config.put("WorkingDir", "/code");
+        // Run as root to avoid permission issues (security is handled by container isolation)
+        config.put("User", "root");
+        config.put("AttachStdin", withStdin);
+        config.put("AttachStdout", true);
+        config.put("AttachStderr", true);
+        config.put("OpenStdin", withStdin);
+        config.put("StdinOnce", withStdin);
+        config.put("Tty", false);
+        config.put("NetworkDisabled", true);
+        config.put("HostConfig", hostConfig);
+
+        String name = URLEncoder.encode(request.getName(), StandardCharsets.UTF_8);
+        DockerEngineClient.Response created = engine.post("/containers/create?name=" + name, config);
+        expect(created, "create " + request.getName());
+        return created.json().path("Id").asText();
+    }
+
+    private int awaitExitCode(Future<DockerEngineClient.Response> exit, SandboxRequest request)
+            throws IOException, InterruptedException {
+        try {
+            DockerEngineClient.Response response = exit.get(KILL_GRACE_PERIOD * 5, TimeUnit.MILLISECONDS);
+            expect(response, "wait for " + request.getName());
+            return response.json().path("StatusCode").asInt(-1);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to wait for container " + request.getName(), e.getCause());
+        } catch (TimeoutException e) {
+            exit.cancel(true);
+            throw new IOException("Container " + request.getName() + " did not exit after being killed");
+        }
+    }
+
+    private static void awaitOutputAfterKill(Future<?> output) throws InterruptedException {
+        try {
+            output.get(KILL_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            output.cancel(true);
+        }
+    }
+
+    private void removeContainer(String containerId) {
+        try {
+            engine.delete("/containers/" + containerId + "?force=1");
+        } catch (IOException e) {
+            log.debug("Failed to remove container {}: {}", containerId, e.getMessage());
+        }
+    }
+
+    private static void expect(DockerEngineClient.Response response, String action) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("Docker failed to " + action + " (HTTP " + response.getStatus() + "): "
+                    + response.text().trim());
+        }
+    }
+
+    /** Kills the container of a CLI-launched run. */
+    @Override
+    protected void onTimeout(SandboxRequest request) {
+        // Killing the CLI does not stop the container
+        try {
+            ProcessBuilder killBuilder = new ProcessBuilder("docker", "kill", request.getName());
+            killBuilder.start().waitFor(2, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.debug("Failed to kill container {}: {}", request.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public String describeForDebugging(SandboxRequest request) {
+        if (!dockerDebugMode) {
+            return null;
+        }
+        log.info("Container {} preserved for debugging. Use 'docker logs {}' to see output",
+                request.getName(), request.getName());
+        return "Container '" + request.getName() + "' preserved for inspection";
+    }
+
+    private List<String> buildDockerCommand(SandboxRequest request) {
+        // Split the Docker command into parts to avoid shell interpretation issues
+        List<String> commandParts = new ArrayList<>();
+        commandParts.add("docker");
+        commandParts.add("run");
+        if (!dockerDebugMode) {
+            commandParts.add("--rm");
+        }
+        commandParts.add("--name");
+        commandParts.add(request.getName());
+        if (request.getStdin() != null) {
+            commandParts.add("-i");
+        }
+        commandParts.add("--cpus=1");
+        commandParts.add("--memory=" + request.getMemoryLimit() + "m");
+        commandParts.add("--memory-swap=" + request.getMemoryLimit() + "m");
+        // Increased ulimits to prevent "resource temporarily unavailable" errors
+        commandParts.add("--ulimit");
+        commandParts.add("nofile=256:256");
+        commandParts.add("--ulimit");
+        commandParts.add("nproc=512:512");
+        commandParts.add("--network");
+        commandParts.add("none");
+        // Run as root to avoid permission issues (security is handled by container isolation)
+        commandParts.add("--user");
+        commandParts.add("root");
+        commandParts.add("-v");
+        commandParts.add(request.getWorkDir().toString() + ":/code");
+        commandParts.add("-w");
+        commandParts.add("/code");
+        commandParts.add(dockerImageName);
+        commandParts.add("/bin/bash");
+        commandParts.add("-c");
+        commandParts.add("timeout " + toSeconds(request.getTimeLimit()) + " " + request.getCommand());
+        return commandParts;
+    }
+
+    private boolean connectEngine() {
+        Path socket = Paths.get(apiSocket);
+        if (!Files.exists(socket)) {
+            log.info("Docker socket {} not found, using the docker CLI", socket);
+            return false;
+        }
+        DockerEngineClient client = new DockerEngineClient(socket, objectMapper);
+        try {
+            DockerEngineClient.Response ping = client.get("/_ping");
+            if (!ping.isSuccessful()) {
+                throw new IOException("HTTP " + ping.getStatus());
+            }
+        } catch (IOException e) {
+            log.warn("Docker Engine API at {} is not usable ({}), using the docker CLI", socket, e.getMessage());
+            client.close();
+            return false;
+        }
+        engine = client;
+        log.info("✓ Docker Engine API reachable at {}", socket);
+        return true;
+    }
+
+    private boolean checkEngineAvailability() {
+        try {
+            String image = URLEncoder.encode(dockerImageName, StandardCharsets.UTF_8);
+            DockerEngineClient.Response inspect = engine.get("/images/" + image + "/json");
+            if (!inspect.isSuccessful()) {
+                log.error("✗ Docker executor image '{}' NOT FOUND! Please build it using:", dockerImageName);
+                log.error("  cd backend/docker/executor && docker build -t {} .", dockerImageName);
+                return false;
+            }
+            String imageId = inspect.json().path("Id").asText().replace("sha256:", "");
+            log.info("✓ Docker executor image '{}' found (ID: {})", dockerImageName, imageId.substring(0, Math.min(12, imageId.length())));
+            warmStart = checkWarmStartWithEngine();
+            return true;
+        } catch (IOException e) {
+            log.error("✗ Failed to check Docker availability: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean checkWarmStartWithEngine() {
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("warm-start-check");
+            SandboxRequest check = SandboxRequest.builder()
+                    .name("warm-start-check-" + System.nanoTime())
+                    .workDir(workDir)
+                    .command("test -f " + JUDGE_HOME + "/judge-runner.jar -a -x " + JUDGE_HOME + "/judge-time")
+                    .timeLimit(30000)
+                    .memoryLimit(64)
+                    .build();
+            return runWithEngine(check).getExitCode() == 0;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            if (workDir != null) {
+                workDir.toFile().delete();
+            }
+        }
+    }
+
+    private boolean checkDockerAvailability() {
+        try {
+            // Check if Docker is running
+            ProcessBuilder dockerCheckBuilder = new ProcessBuilder("docker", "version");
+            // Redirect error stream to output stream to capture all output
+            dockerCheckBuilder.redirectErrorStream(true);
+            Process dockerCheck = dockerCheckBuilder.start();
+            boolean dockerRunning = dockerCheck.waitFor(5, TimeUnit.SECONDS);
+
+            if (!dockerRunning || dockerCheck.exitValue() != 0) {
+                log.error("✗ Docker is NOT running or not installed!");
+                return false;
+            }
+            log.info("✓ Docker is available and running");
+
+            // Check if the required image exists
+            ProcessBuilder imageCheckBuilder = new ProcessBuilder("docker", "images", "-q", dockerImageName);
+            imageCheckBuilder.redirectErrorStream(true);
+            Process imageCheck = imageCheckBuilder.start();
+            imageCheck.waitFor(5, TimeUnit.SECONDS);
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(imageCheck.getInputStream()));
+            String imageId = reader.readLine();
+
+            if (imageId == null || imageId.trim().isEmpty()) {
+                log.error("✗ Docker executor image '{}' NOT FOUND! Please build it using:", dockerImageName);
+                log.error("  cd backend/docker/executor && docker build -t {} .", dockerImageName);
+                return false;
+            }
+            log.info("✓ Docker executor image '{}' found (ID: {})", dockerImageName, imageId.substring(0, Math.min(12, imageId.length())));
+            warmStart = checkWarmStartSupport();
+            return true;
+        } catch (Exception e) {
+            log.error("✗ Failed to check Docker availability: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean checkWarmStartSupport() {
+        try {
+            Process check = new ProcessBuilder("docker", "run", "--rm", dockerImageName,
+                    "test", "-f", JUDGE_HOME + "/judge-runner.jar", "-a", "-x", JUDGE_HOME + "/judge-time").start();
+            return check.waitFor(30, TimeUnit.SECONDS) && check.exitValue() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.shodhacode.sandbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs commands directly on the local Linux host inside fresh user, PID, mount, network,
+ * IPC and UTS namespaces, with rlimits and (when delegated) a cgroup v2 per run for memory,
+ * process count and CPU. No daemon round trip, so per-run overhead is a few milliseconds.
+ * Language runtimes and the judge launchers must be installed on the host.
+ *
+ * <p>The command sees only a private root: the system directories and the judge launchers
+ * bound read-only, its work directory at {@code /code} and a small {@code /tmp}. It runs
+ * without capabilities under a seccomp filter, and when the service runs as root, under a
+ * uid of its own per work directory slot, so concurrent submissions cannot touch each other.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NamespaceSandboxBackend extends ProcessSandbox {
+
+    // Unprivileged identity used when the service itself runs as root and the work directory
+    // is not a pool slot
+    private static final int NOBODY = 65534;
+    private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+    private static final String SECCOMP_LAUNCHER = "seccomp-exec";
+    // Read-only views of the host inside the sandbox root; symlinks (merged /usr) are copied
+    private static final List<String> SYSTEM_DIRS = List.of("/bin", "/sbin", "/lib", "/lib32", "/lib64", "/libx32",
+            "/usr", "/etc");
+
+    // Builds the private root in the new mount namespace and enters it. Arguments: new root,
+    // work directory, judge home, directories to show read-only, then the command to run in /code
+    private static final String ENTER_ROOT = String.join("\n",
+            "set -e",
+            "root=$1; work=$2; judge=$3; dirs=$4; shift 4",
+            "mount -t tmpfs -o size=1m,mode=0755 sandbox-root \"$root\"",
+            "bind_ro() {",
+            "  mkdir -p \"$root$1\"",
+            "  mount --bind \"$1\" \"$root$1\"",
+            "  mount -o remount,bind,ro,nosuid,nodev \"$root$1\"",
+            "}",
+            "for dir in $dirs; do",
+            "  if [ -L \"$dir\" ]; then mkdir -p \"$(dirname \"$root$dir\")\"; ln -s \"$(readlink \"$dir\")\" \"$root$dir\"",
+            "  elif [ -d \"$dir\" ]; then bind_ro \"$dir\"; fi",
+            "done",
+            "[ -d \"$root$judge\" ] || bind_ro \"$judge\"",
+            "mkdir \"$root/code\" \"$root/tmp\" \"$root/proc\" \"$root/dev\"",
+            "mount --bind \"$work\" \"$root/code\"",
+            "mount -t tmpfs -o size=16m,mode=1777,nosuid,nodev sandbox-tmp \"$root/tmp\"",
+            "mount -t proc -o nosuid,nodev,noexec proc \"$root/proc\"",
+            "for dev in null zero full random urandom; do",
+            "  touch \"$root/dev/$dev\"",
+            "  mount --bind \"/dev/$dev\" \"$root/dev/$dev\"",
+            "done",
+            "ln -s /proc/self/fd \"$root/dev/fd\"",
+            "mount -o remount,bind,ro,nosuid,nodev \"$root\"",
+            "exec chroot \"$root\" /bin/sh -c 'cd /code && exec \"$@\"' sandbox \"$@\"");
+
+    @Value("${execution.sandbox.namespace.judge-home:/opt/judge}")
+    private String judgeHome;
+
+    @Value("${execution.sandbox.namespace.cgroup-root:/sys/fs/cgroup/shodhacode}")
+    private String cgroupRoot;
+
+    // Empty directory the private root is mounted on (only inside each sandbox's namespace)
+    @Value("${execution.sandbox.namespace.mount-point:${java.io.tmpdir}/shodhacode-sandbox}")
+    private String mountPoint;
+
+    // Work directory slot n runs as uid-base + n when the service runs as root
+    @Value("${execution.sandbox.namespace.uid-base:200000}")
+    private int uidBase;
+
+    // Language runtimes installed outside the system directories, e.g. /opt/jdk
+    @Value("${execution.sandbox.namespace.runtime-dirs:}")
+    private List<String> runtimeDirs;
+
+    private final WorkDirPool workDirPool;
+
+    // cgroup of each run in progress by sandbox name, so a timeout can kill everything in it
+    private final Map<String, Path> runningCgroups = new ConcurrentHashMap<>();
+
+    private boolean runningAsRoot;
+    private boolean cgroupEnabled;
+
+    @Override
+    public String getName() {
+        return "namespace";
+    }
+
+    @Override
+    public boolean initialize() {
+        runningAsRoot = isRoot();
+        if (!Files.isExecutable(Paths.get(judgeHome, SECCOMP_LAUNCHER))) {
+            log.error("✗ No {} in {}; build the judge launchers (docker/executor/judge/build-judge.sh) on this host",
+                    SECCOMP_LAUNCHER, judgeHome);
+            return false;
+        }
+        try {
+            Files.createDirectories(Paths.get(mountPoint));
+            Files.setPosixFilePermissions(Paths.get(mountPoint), PosixFilePermissions.fromString("rwxr-xr-x"));
+        } catch (IOException e) {
+            log.error("✗ Cannot create sandbox mount point {}: {}", mountPoint, e.getMessage());
+            return false;
+        }
+        if (!checkNamespaces()) {
+            log.error("✗ Cannot create user/PID/network namespaces with a private root (unshare, mount, chroot); "
+                    + "check kernel.unprivileged_userns_clone");
+            return false;
+        }
+        log.info("✓ Namespace sandbox available{}", runningAsRoot
+                ? " (one uid per work directory from " + uidBase + ")"
+                : "; the service is not root, so every sandbox shares its uid");
+
+        cgroupEnabled = checkCgroup();
+        if (cgroupEnabled) {
+            log.info("✓ Per-run cgroups under {}", cgroupRoot);
+        } else {
+            log.warn("✗ No writable cgroup v2 with the memory controller at {}; memory and CPU limits are NOT enforced",
+                    cgroupRoot);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasWarmStart() {
+        return Files.isRegularFile(Paths.get(judgeHome, "judge-runner.jar"))
+                && Files.isExecutable(Paths.get(judgeHome, "judge-time"));
+    }
+
+    @Override
+    public String getJudgeHome() {
+        return judgeHome;
+    }
+
+    @Override
+    public SandboxResult run(SandboxRequest request) throws IOException, InterruptedException {
+        int uid = sandboxUid(request.getWorkDir());
+        if (runningAsRoot) {
+            // The sandbox user writes compiler output into the work directory; nobody else may enter it
+            Files.setAttribute(request.getWorkDir(), "unix:uid", uid);
+            Files.setAttribute(request.getWorkDir(), "unix:gid", uid);
+            Files.setPosixFilePermissions(request.getWorkDir(), PosixFilePermissions.fromString("rwx------"));
+        }
+        Path cgroup = cgroupEnabled ? createCgroup(request) : null;
+        if (cgroup != null) {
+            runningCgroups.put(request.getName(), cgroup);
+        }
+        try {
+            SandboxResult result = execute(request, buildCommand(request, cgroup, uid));
+            if (cgroup != null) {
+                result.setOomKilled(wasOomKilled(cgroup));
+            }
+            return result;
+        } finally {
+            if (cgroup != null) {
+                runningCgroups.remove(request.getName());
+                removeCgroup(cgroup);
+            }
+        }
+    }
+
+    /** Kills every process of the run at once, including any that left the PID namespace chain. */
+    @Override
+    protected void onTimeout(SandboxRequest request) {
+        Path cgroup = runningCgroups.get(request.getName());
+        if (cgroup == null) {
+            return;
+        }
+        try {
+            // cgroup.kill needs Linux 5.14; older kernels rely on unshare --kill-child
+            writeIfPresent(cgroup.resolve("cgroup.kill"), "1");
+        } catch (IOException e) {
+            log.debug("Failed to kill cgroup {}: {}", cgroup, e.getMessage());
+        }
+    }
+
+    private int sandboxUid(Path workDir) {
+        int slot = workDirPool.slotNumber(workDir);
+        return slot >= 0 ? uidBase + slot : NOBODY;
+    }
+
+    private List<String> buildCommand(SandboxRequest request, Path cgroup, int uid) {
+        List<String> command = new ArrayList<>();
+        if (cgroup != null) {
+            // Join the cgroup before anything else runs, so every descendant is accounted
+            command.add("/bin/sh");
+            command.add("-c");
+            command.add("echo $$ > \"$0/cgroup.procs\" && exec \"$@\"");
+            command.add(cgroup.toString());
+        }
+        command.addAll(enterSandbox(request.getWorkDir(), uid));
+        command.add("prlimit");
+        command.add("--nofile=256:256");
+        command.add("--nproc=512:512");
+        command.add("--core=0");
+        command.add("--fsize=" + MAX_FILE_SIZE);
+        // A program that ignores SIGTERM gets SIGKILL after the grace period
+        command.add("timeout");
+        command.add("-k");
+        command.add(toSeconds(KILL_GRACE_PERIOD));
+        command.add(toSeconds(request.getTimeLimit()));
+        command.add("/bin/bash");
+        command.add("-c");
+        command.add(request.getCommand());
+        return command;
+    }
+
+    /** Prefix that runs the rest of the command in the private root, in /code, without privileges. */
+    private List<String> enterSandbox(Path workDir, int uid) {
+        List<String> command = new ArrayList<>();
+        if (runningAsRoot) {
+            command.add("setpriv");
+            command.add("--reuid=" + uid);
+            command.add("--regid=" + uid);
+            command.add("--clear-groups");
+            command.add("--no-new-privs");
+        }
+        // The last process of the chain (timeout) becomes PID 1 of the new namespace, so when
+        // it exits every process left is killed; --kill-child ends it too when the judge kills unshare
+        command.addAll(List.of("unshare", "--user", "--map-root-user", "--net", "--pid", "--kill-child",
+                "--mount-proc", "--ipc", "--uts"));
+        List<String> visible = new ArrayList<>(SYSTEM_DIRS);
+        visible.addAll(runtimeDirs);
+        command.addAll(List.of("/bin/sh", "-c", ENTER_ROOT, "sandbox", mountPoint, workDir.toString(), judgeHome,
+                String.join(" ", visible)));
+        // Root of the user namespace only while building the root; the command gets no capabilities
+        command.addAll(List.of("setpriv", "--inh-caps=-all", "--bounding-set=-all", "--no-new-privs"));
+        command.add(judgeHome + "/" + SECCOMP_LAUNCHER);
+        return command;
+    }
+
+    private Path createCgroup(SandboxRequest request) throws IOException {
+        Path cgroup = Paths.get(cgroupRoot, request.getName() + "-" + System.nanoTime());
+        Files.createDirectory(cgroup);
+        long memoryBytes = request.getMemoryLimit() * 1024L * 1024L;
+        Files.writeString(cgroup.resolve("memory.max"), Long.toString(memoryBytes));
+        writeIfPresent(cgroup.resolve("memory.swap.max"), "0");
+        writeIfPresent(cgroup.resolve("pids.max"), "512");
+        // One CPU, like --cpus=1 for containers
+        writeIfPresent(cgroup.resolve("cpu.max"), "100000 100000");
+        return cgroup;
+    }
+
+    private static boolean wasOomKilled(Path cgroup) {
+        try {
+            return Files.readAllLines(cgroup.resolve("memory.events")).stream()
+                    .anyMatch(line -> line.startsWith("oom_kill ") && !line.endsWith(" 0"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void removeCgroup(Path cgroup) throws InterruptedException {
+        // The kernel may still be reaping the last processes
+        for (int attempt = 0; attempt < 10; attempt++) {
+            try {
+                Files.deleteIfExists(cgroup);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(10);
+            }
+        }
+        log.warn("Failed to remove cgroup {}", cgroup);
+    }
+
+    private boolean checkNamespaces() {
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("namespace-check");
+            if (runningAsRoot) {
+                Files.setAttribute(workDir, "unix:uid", NOBODY);
+                Files.setAttribute(workDir, "unix:gid", NOBODY);
+            }
+            List<String> command = enterSandbox(workDir, NOBODY);
+            command.addAll(List.of("prlimit", "--core=0", "true"));
+            Process check = new ProcessBuilder(command).redirectErrorStream(true).start();
+            boolean finished = check.waitFor(5, TimeUnit.SECONDS);
+            if (finished && check.exitValue() != 0) {
+                log.debug("Namespace check failed: {}", new String(check.getInputStream().readAllBytes()).trim());
+            }
+            return finished && check.exitValue() == 0;
+        } catch (Exception e) {
+            log.debug("Namespace check failed: {}", e.getMessage());
+            return false;
+        } finally {
+            if (workDir != null) {
+                workDir.toFile().delete();
+            }
+        }
+    }
+
+    private boolean checkCgroup() {
+        Path root = Paths.get(cgroupRoot);
+        try {
+            // The subtree must be delegated to the service user beforehand (e.g. systemd Delegate=yes)
+            if (!Files.isDirectory(root) || !Files.readString(root.resolve("cgroup.controllers")).contains("memory")) {
+                return false;
+            }
+            for (String controller : List.of("+memory", "+pids", "+cpu")) {
+                try {
+                    Files.writeString(root.resolve("cgroup.subtree_control"), controller);
+                } catch (IOException e) {
+                    log.debug("Cannot enable {} controller under {}: {}", controller, cgroupRoot, e.getMessage());
+                }
+            }
+            return Files.readString(root.resolve("cgroup.subtree_control")).contains("memory");
+        } catch (Exception e) {
+            log.debug("cgroup check failed for {}: {}", cgroupRoot, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeIfPresent(Path file, String value) throws IOException {
+        if (Files.exists(file)) {
+            Files.writeString(file, value);
+        }
+    }
+
+    private static boolean isRoot() {
+        try {
+            return ((Integer) Files.getAttribute(Paths.get("/proc/self"), "unix:uid")) == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.shodhacode.sandbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shared process handling for backends that launch the sandbox as a local command.
+ * stdin, stdout and stderr are pumped concurrently, so a program that writes a lot
+ * before reading its input cannot deadlock against the judge.
+ */
+@Slf4j
+public abstract class ProcessSandbox implements SandboxBackend {
+
+    /** Exit status of coreutils {@code timeout} when it had to stop the command. */
+    public static final int TIMEOUT_EXIT_CODE = 124;
+
+    // Exit status of a command killed by SIGKILL, which timeout -k reports instead of 124
+    private static final int KILLED_EXIT_CODE = 128 + 9;
+
+    // Time the sandbox gets to stop by itself before the judge kills it
+    protected static final long KILL_GRACE_PERIOD = 1000;
+
+    protected final ExecutorService streamPumps = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sandbox-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Called when the sandbox outlived its time limit, before the local process is killed. */
+    protected void onTimeout(SandboxRequest request) {
+    }
+
+    protected SandboxResult execute(SandboxRequest request, List<String> command)
+            throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(request.getWorkDir().toFile());
+        if (request.getStdin() == null) {
+            pb.redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")));
+        }
+
+        long startedAt = System.nanoTime();
+        Process process = pb.start();
+        BoundedOutput stdoutCapture = new BoundedOutput(request.getOutputLimit());
+        BoundedOutput stderrCapture = new BoundedOutput(request.getOutputLimit());
+        Future<?> stdout = streamPumps.submit(() -> readOutput(process.getInputStream(), stdoutCapture));
+        Future<?> stderr = streamPumps.submit(() -> readOutput(process.getErrorStream(), stderrCapture));
+        if (request.getStdin() != null) {
+            streamPumps.execute(() -> writeInput(process.getOutputStream(), request.getStdin()));
+        }
+
+        // The sandbox's own timeout gets its grace period to escalate to SIGKILL first
+        boolean finished = process.waitFor(request.getTimeLimit() + 2 * KILL_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        if (!finished) {
+            log.warn("Sandbox {} did not stop within {}ms, killing it", request.getName(), request.getTimeLimit());
+            onTimeout(request);
+            process.destroyForcibly();
+            process.waitFor();
+        }
+        long wallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        int exitCode = finished ? process.exitValue() : TIMEOUT_EXIT_CODE;
+        if (exitCode == KILLED_EXIT_CODE && wallTime >= request.getTimeLimit() + KILL_GRACE_PERIOD) {
+            exitCode = TIMEOUT_EXIT_CODE;
+        }
+
+        collect(stdout, process.getInputStream());
+        collect(stderr, process.getErrorStream());
+        return new SandboxResult(exitCode, stdoutCapture.toString(), stderrCapture.toString(), wallTime,
+                exitCode == TIMEOUT_EXIT_CODE, false, stdoutCapture.isExceeded() || stderrCapture.isExceeded());
+    }
+
+    protected static String toSeconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    // A process that escaped the kill may still hold the pipe open; keep what was read by then
+    private static void collect(Future<?> stream, InputStream source) throws InterruptedException {
+        try {
+            stream.get(KILL_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.debug("Failed to read sandbox output: {}", e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            log.warn("Sandbox output still open {}ms after the process ended, dropping the rest", KILL_GRACE_PERIOD);
+            stream.cancel(true);
+            try {
+                source.close();
+            } catch (IOException closeFailed) {
+                log.debug("Failed to close sandbox output: {}", closeFailed.getMessage());
+            }
+        }
+    }
+
+    private static void writeInput(OutputStream stream, String input) {
+        try (OutputStream in = stream) {
+            in.write(input.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The program exited without reading all of its input
+            log.debug("Sandbox closed stdin early: {}", e.getMessage());
+        }
+    }
+
+    // Drains the stream to the end whatever its size; the capture keeps what fits
+    private static Void readOutput(InputStream stream, BoundedOutput capture) throws IOException {
+        try (InputStream in = stream) {
+            in.transferTo(capture);
+        }
+        return null;
+    }
+}
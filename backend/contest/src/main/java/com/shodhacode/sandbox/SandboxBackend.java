@@ -0,0 +1,38 @@
+package com.shodhacode.sandbox;
+
+import java.io.IOException;
+
+/**
+ * Runs one untrusted command with resource limits. Selected with {@code execution.sandbox}
+ * ({@code docker} or {@code namespace}); {@code CodeExecutorService} only talks to this interface.
+ */
+public interface SandboxBackend {
+
+    /** Value of {@code execution.sandbox} that selects this backend. */
+    String getName();
+
+    /** Checks the host once at startup; an unavailable backend disables execution. */
+    boolean initialize();
+
+    /** Whether the warm-start launchers are installed where sandboxed commands can see them. */
+    boolean hasWarmStart();
+
+    /** Directory of the warm-start launchers as seen from inside the sandbox. */
+    String getJudgeHome();
+
+    /**
+     * Unprivileged user the batch runner runs each test as, while it keeps the sandbox's own
+     * root identity to itself; null if the sandbox has no such second identity, in which case
+     * batch mode problems get one sandbox per test.
+     */
+    default String getBatchUser() {
+        return null;
+    }
+
+    SandboxResult run(SandboxRequest request) throws IOException, InterruptedException;
+
+    /** Extra hint appended to runtime errors, e.g. a preserved container to inspect. */
+    default String describeForDebugging(SandboxRequest request) {
+        return null;
+    }
+}
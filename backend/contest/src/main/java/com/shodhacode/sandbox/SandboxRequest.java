@@ -0,0 +1,27 @@
+package com.shodhacode.sandbox;
+
+import com.shodhacode.constants.ApplicationConstants;
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+@Data
+@Builder
+public class SandboxRequest {
+    // Unique per run; used for container and cgroup names
+    private String name;
+    // Mounted or used as the working directory of the command
+    private Path workDir;
+    // Shell command, run with the work directory as cwd
+    private String command;
+    // Fed to stdin; null runs the command without input
+    private String stdin;
+    // Hard wall-clock limit enforced by the sandbox
+    private long timeLimit;
+    // In MB
+    private int memoryLimit;
+    // Bytes kept per output stream; more output is discarded and flagged
+    @Builder.Default
+    private long outputLimit = ApplicationConstants.MAX_RUN_OUTPUT;
+}
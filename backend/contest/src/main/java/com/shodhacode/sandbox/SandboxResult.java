@@ -0,0 +1,19 @@
+package com.shodhacode.sandbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SandboxResult {
+    private int exitCode;
+    private String stdout;
+    private String stderr;
+    // Wall time of the whole sandbox invocation, including its startup
+    private long wallTime;
+    private boolean timedOut;
+    // Killed for exceeding its memory limit, when the backend can tell
+    private boolean oomKilled;
+    // Wrote more than the request's output limit on stdout or stderr
+    private boolean outputLimitExceeded;
+}
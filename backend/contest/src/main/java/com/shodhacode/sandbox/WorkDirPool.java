@@ -0,0 +1,367 @@
+package com.shodhacode.sandbox;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.GroupPrincipal;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-created work directories on a RAM-backed filesystem, handed out per submission and
+ * emptied on release instead of being created and deleted every time. When the service may
+ * mount, every slot is its own tmpfs with a size quota, so a runaway program fills its slot
+ * rather than the host. Slots are private to the service (0700) while idle; a sandbox backend
+ * that runs commands under their own uid hands the slot over only for the run.
+ *
+ * <p>Without tmpfs mounts nothing bounds what a submission writes, so the pool then stays off
+ * {@code /dev/shm} (which would fill the host's memory) and refuses to start on a disk
+ * without room for every slot's quota.
+ */
+@Component
+@Slf4j
+public class WorkDirPool {
+
+    private static final String SLOT_PREFIX = "slot-";
+    // Workers on the same host (or sharing a volume) share the root; each process keeps its
+    // slots under its own node directory, locked for as long as the process lives
+    private static final String NODE_PREFIX = "node-";
+    private static final String NODE_LOCK = ".lock";
+    // Held while sweeping and creating node directories, so a starting node is never swept
+    private static final String SWEEP_LOCK = ".sweep.lock";
+    private static final String SHARED_MEMORY = "/dev/shm";
+    private static final Set<PosixFilePermission> PRIVATE = PosixFilePermissions.fromString("rwx------");
+
+    @Value("${execution.workdir.root:}")
+    private String root;
+
+    @Value("${execution.workdir.pool-size:${judge.workers:4}}")
+    private int poolSize;
+
+    @Value("${execution.workdir.quota-mb:64}")
+    private int quotaMb;
+
+    // Fallback when no RAM-backed root is usable, same as before the pool existed
+    @Value("${execution.temp.dir:}")
+    private String tempDir;
+
+    private final BlockingQueue<Path> free = new LinkedBlockingQueue<>();
+    private final Set<Path> mountedSlots = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private boolean mountQuota = true;
+    private UserPrincipal owner;
+    private GroupPrincipal group;
+    private FileChannel nodeLock;
+
+    @PostConstruct
+    public void init() {
+        Path base = resolveRoot();
+        Path rootDir = base.resolve(NODE_PREFIX + nodeId());
+        try {
+            Files.createDirectories(base);
+            try (FileChannel sweepLock = FileChannel.open(base.resolve(SWEEP_LOCK),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = sweepLock.lock()) {
+                sweep(base);
+                Files.createDirectories(rootDir);
+                nodeLock = FileChannel.open(rootDir.resolve(NODE_LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                nodeLock.lock();
+            }
+            PosixFileAttributes attributes = Files.readAttributes(rootDir, PosixFileAttributes.class);
+            owner = attributes.owner();
+            group = attributes.group();
+        } catch (IOException e) {
+            log.error("Failed to prepare work directory root {}: {}", rootDir, e.getMessage());
+        }
+        root = rootDir.toString();
+        for (int i = 0; i < poolSize; i++) {
+            try {
+                free.offer(createSlot());
+            } catch (IOException e) {
+                log.error("Failed to create work directory slot: {}", e.getMessage());
+            }
+        }
+        if (!mountQuota) {
+            requireSpace(rootDir);
+        }
+        log.info("Work directories: {} slots in {} ({})", free.size(), root,
+                mountQuota ? "tmpfs of " + quotaMb + "MB each" : "no per-slot quota");
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    /** Number of a pool slot, e.g. to give each slot its own sandbox uid; -1 for other directories. */
+    public int slotNumber(Path dir) {
+        Path parent = dir.getParent();
+        String name = dir.getFileName().toString();
+        if (parent == null || !parent.toString().equals(root) || !name.startsWith(SLOT_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(SLOT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Hands out an empty directory; grows the pool if more submissions run than expected. */
+    public Path acquire() throws IOException {
+        Path slot = free.poll();
+        return slot != null ? slot : createSlot();
+    }
+
+    /** Empties the directory and returns it to the pool, or retires it if that fails. */
+    public void release(Path slot) {
+        try {
+            reset(slot);
+            free.offer(slot);
+        } catch (IOException e) {
+            // Leave the debris in place; the slot is swept on the next start
+            log.warn("Retiring work directory {}: {}", slot, e.getMessage());
+            unmount(slot);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mountedSlots.forEach(this::unmount);
+        Path slot;
+        while ((slot = free.poll()) != null) {
+            try {
+                deleteRecursively(slot);
+            } catch (IOException e) {
+                log.debug("Failed to delete {}: {}", slot, e.getMessage());
+            }
+        }
+        try {
+            Files.deleteIfExists(Paths.get(root, NODE_LOCK));
+            if (nodeLock != null) {
+                nodeLock.close();
+            }
+            Files.deleteIfExists(Paths.get(root));
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", root, e.getMessage());
+        }
+    }
+
+    private Path resolveRoot() {
+        if (root != null && !root.isEmpty()) {
+            return Paths.get(root);
+        }
+        Path shm = Paths.get(SHARED_MEMORY);
+        if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+            Path candidate = shm.resolve("shodhacode");
+            if (canMount(candidate)) {
+                return candidate;
+            }
+            log.warn("Cannot mount tmpfs work directories; unbounded slots would fill {}, falling back to disk",
+                    SHARED_MEMORY);
+        } else {
+            log.warn("{} is not available; work directories fall back to disk", SHARED_MEMORY);
+        }
+        if (tempDir != null && !tempDir.isEmpty()) {
+            return Paths.get(tempDir);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "shodhacode");
+    }
+
+    /** Unique per process, so nodes in different containers (all pid 1) never share a directory. */
+    private static String nodeId() {
+        String host = System.getenv("HOSTNAME");
+        String random = UUID.randomUUID().toString().substring(0, 8);
+        if (host == null || host.isEmpty()) {
+            return random;
+        }
+        return host.replaceAll("[^A-Za-z0-9.-]", "_") + "-" + random;
+    }
+
+    private boolean canMount(Path base) {
+        Path probe = base.resolve(".mount-check-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(probe);
+            boolean mounted = runQuietly(List.of("mount", "-t", "tmpfs", "-o", "size=1m", "tmpfs", probe.toString()));
+            if (mounted) {
+                runQuietly(List.of("umount", "-l", probe.toString()));
+            }
+            Files.deleteIfExists(probe);
+            return mounted;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Without per-slot quotas, every slot must at least fit its quota on the disk at once. */
+    private void requireSpace(Path rootDir) {
+        long required = (long) Math.max(poolSize, 1) * quotaMb * 1024 * 1024;
+        long usable;
+        try {
+            usable = Files.getFileStore(rootDir).getUsableSpace();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot check free space of work directory root " + rootDir, e);
+        }
+        if (usable < required) {
+            throw new IllegalStateException(String.format(
+                    "Work directory root %s has %dMB free but %d slots of %dMB need %dMB; refusing to start",
+                    rootDir, usable >> 20, poolSize, quotaMb, required >> 20));
+        }
+    }
+
+    private Path createSlot() throws IOException {
+        Path slot = Paths.get(root, SLOT_PREFIX + nextSlot.getAndIncrement());
+        Files.createDirectories(slot);
+        if (mountQuota && !mount(slot)) {
+            // Not permitted to mount (not root / no CAP_SYS_ADMIN): keep plain directories
+            mountQuota = false;
+            log.warn("Cannot mount tmpfs work directories; the {}MB per-submission quota is not enforced", quotaMb);
+        }
+        Files.setPosixFilePermissions(slot, PRIVATE);
+        return slot;
+    }
+
+    private boolean mount(Path slot) {
+        // exec stays allowed: compiled solutions run from here
+        if (!runQuietly(List.of("mount", "-t", "tmpfs", "-o",
+                "size=" + quotaMb + "m,mode=0700,nosuid,nodev", "tmpfs", slot.toString()))) {
+            return false;
+        }
+        mountedSlots.add(slot);
+        return true;
+    }
+
+    private void unmount(Path slot) {
+        if (mountedSlots.remove(slot) && !runQuietly(List.of("umount", "-l", slot.toString()))) {
+            log.warn("Failed to unmount {}", slot);
+        }
+    }
+
+    private void reset(Path slot) throws IOException {
+        if (mountedSlots.contains(slot)) {
+            // A fresh tmpfs is empty at once, however many files the submission left behind;
+            // the lazy unmount also lets go of anything a straggling process still holds open
+            if (!runQuietly(List.of("umount", "-l", slot.toString()))) {
+                throw new IOException("cannot unmount " + slot);
+            }
+            mountedSlots.remove(slot);
+            if (!mount(slot)) {
+                throw new IOException("cannot remount " + slot);
+            }
+        } else {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(slot)) {
+                for (Path entry : entries) {
+                    deleteRecursively(entry);
+                }
+            }
+        }
+        // Take the slot back from the sandbox user it was handed to
+        PosixFileAttributeView view = Files.getFileAttributeView(slot, PosixFileAttributeView.class);
+        if (owner != null) {
+            view.setOwner(owner);
+            view.setGroup(group);
+        }
+        view.setPermissions(PRIVATE);
+    }
+
+    /** Removes slots left behind by processes that are gone, including stale mounts. */
+    private void sweep(Path base) throws IOException {
+        try (DirectoryStream<Path> nodes = Files.newDirectoryStream(base, NODE_PREFIX + "*")) {
+            for (Path node : nodes) {
+                if (!Files.isDirectory(node, LinkOption.NOFOLLOW_LINKS) || isAlive(node)) {
+                    continue;
+                }
+                try {
+                    try (DirectoryStream<Path> slots = Files.newDirectoryStream(node, SLOT_PREFIX + "*")) {
+                        for (Path slot : slots) {
+                            runQuietly(List.of("umount", "-l", slot.toString()));
+                        }
+                    }
+                    deleteRecursively(node);
+                } catch (IOException e) {
+                    log.warn("Failed to sweep stale work directories {}: {}", node, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** A node is alive while its process holds the lock; the kernel drops it when the process dies. */
+    private static boolean isAlive(Path node) {
+        Path lock = node.resolve(NODE_LOCK);
+        if (!Files.exists(lock)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(lock, StandardOpenOption.WRITE);
+             FileLock held = channel.tryLock()) {
+            return held == null;
+        } catch (OverlappingFileLockException e) {
+            return true;
+        } catch (IOException e) {
+            // Not ours to judge (e.g. another user's); leave it alone
+            return true;
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean runQuietly(List<String> command) {
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
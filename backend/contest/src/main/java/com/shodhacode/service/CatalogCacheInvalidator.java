@@ -0,0 +1,83 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ContestParticipant;
+import com.shodhacode.entity.Problem;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that drops cached catalog responses when catalog data changes, and
+ * keeps the submission admission cache in step with contests, problems and joins.
+ * Eviction runs after commit so a concurrent reader cannot re-cache the old rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+
+    private final CatalogCacheService catalogCacheService;
+    // Looked up lazily: the access cache needs repositories, which need this listener
+    private final ObjectProvider<ContestAccessCache> contestAccessCache;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        evictFor(entity);
+        if (entity instanceof ContestParticipant participant) {
+            Long contestId = participant.getContest().getId();
+            Long userId = participant.getUser().getId();
+            afterCommit(() -> contestAccessCache.getObject().participantJoined(contestId, userId));
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        // Participant score updates do not change any catalog response
+        if (!(entity instanceof ContestParticipant)) {
+            evictFor(entity);
+            evictAccessFor(entity);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        evictFor(entity);
+        if (entity instanceof ContestParticipant participant) {
+            Long contestId = participant.getContest().getId();
+            afterCommit(() -> contestAccessCache.getObject().evictContest(contestId));
+        } else {
+            evictAccessFor(entity);
+        }
+    }
+
+    private void evictFor(Object entity) {
+        afterCommit(entity instanceof ContestParticipant
+                ? () -> catalogCacheService.evict(CatalogCacheService.CONTEST_SUMMARIES)
+                : catalogCacheService::evictAll);
+    }
+
+    private void evictAccessFor(Object entity) {
+        // End times, throttle settings and problem-to-contest mapping
+        if (entity instanceof Contest || entity instanceof Problem) {
+            afterCommit(() -> contestAccessCache.getObject().evictAll());
+        }
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
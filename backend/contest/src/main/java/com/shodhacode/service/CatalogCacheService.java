@@ -0,0 +1,198 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the serialized JSON of the near-static catalog endpoints (contests, problems).
+ * Each entry holds the identity bytes, a precomputed gzip variant and a strong ETag,
+ * so a hit costs neither a DB round trip nor serialization nor compression.
+ * Concurrent misses on the same key are coalesced into a single load. Writes through this
+ * node evict right away; entries are also reloaded after {@code catalog.cache.ttl}, so edits
+ * made through another API node are seen within that time.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogCacheService {
+
+    public static final String ALL_CONTESTS = "contests";
+    public static final String CONTEST_SUMMARIES = "contests/summary";
+    public static final String ALL_PROBLEMS = "problems";
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a load that raced with a write is not cached: the global one
+    // by evictAll, a key's own by evict, so frequent single-key evictions (every join) do not
+    // keep all other keys from being cached
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, Long> keyGenerations = new ConcurrentHashMap<>();
+
+    @Value("${catalog.cache.ttl:30000}")
+    private long ttl;
+
+    public static String contest(Long contestId) {
+        return "contests/" + contestId;
+    }
+
+    public static String contestProblems(Long contestId) {
+        return "contests/" + contestId + "/problems";
+    }
+
+    public static String problem(Long problemId) {
+        return "problems/" + problemId;
+    }
+
+    /**
+     * Returns the cached entry for {@code key}, serializing the loader's result on a miss.
+     * While a load is in flight, other callers for the same key wait for its result
+     * instead of issuing their own queries. A null result (e.g. not found) is
+     * returned as null and not cached.
+     */
+    public Entry get(String key, Supplier<Object> loader) {
+        Entry cached = fresh(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Entry> load = new CompletableFuture<>();
+        CompletableFuture<Entry> leader = inFlight.putIfAbsent(key, load);
+        if (leader != null) {
+            return await(leader);
+        }
+
+        try {
+            Entry entry = fresh(key);
+            if (entry == null) {
+                entry = load(key, loader);
+            }
+            load.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    public boolean contains(String key) {
+        return fresh(key) != null;
+    }
+
+    public void evict(String key) {
+        keyGenerations.merge(key, 1L, Long::sum);
+        entries.remove(key);
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        log.debug("Catalog response cache cleared");
+    }
+
+    private Entry load(String key, Supplier<Object> loader) {
+        long startGeneration = generation.get();
+        Long startKeyGeneration = keyGenerations.get(key);
+        Object value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        Entry entry = serialize(value);
+        if (unchanged(key, startGeneration, startKeyGeneration)) {
+            entries.put(key, entry);
+            // Checked again: an eviction between the check and the put removed nothing
+            if (unchanged(key, startGeneration, startKeyGeneration)) {
+                log.debug("Cached catalog response {} ({} bytes, {} gzipped)", key, entry.getBody().length, entry.getGzipBody().length);
+            } else {
+                entries.remove(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private Entry fresh(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && System.currentTimeMillis() - entry.createdAt <= ttl ? entry : null;
+    }
+
+    private boolean unchanged(String key, long startGeneration, Long startKeyGeneration) {
+        return generation.get() == startGeneration && Objects.equals(keyGenerations.get(key), startKeyGeneration);
+    }
+
+    private static Entry await(CompletableFuture<Entry> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Serializes a response the same way as cached entries, for callers that keep their own. */
+    public Entry serialize(Object value) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            return new Entry(body, gzip(body), etag(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+        // Compressed once per entry, so spend the CPU on the best ratio
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            { def.setLevel(Deflater.BEST_COMPRESSION); }
+        }) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String etag;
+        @Getter(AccessLevel.NONE)
+        private final long createdAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,142 @@
+package com.shodhacode.service;
+
+import com.shodhacode.config.NodeRole;
+import com.shodhacode.dto.ContestSummary;
+import com.shodhacode.dto.ContestWithProblems;
+import com.shodhacode.dto.ProblemDetail;
+import com.shodhacode.dto.ProblemSummary;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.Problem;
+import com.shodhacode.repository.ContestParticipantRepository;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.repository.TestCaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the contest/problem catalog. Every method returns a cached serialized
+ * response (see {@link CatalogCacheService}); the loaders below run only on a miss.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogService {
+
+    private final ContestRepository contestRepository;
+    private final ContestParticipantRepository contestParticipantRepository;
+    private final ProblemRepository problemRepository;
+    private final TestCaseRepository testCaseRepository;
+    private final CatalogCacheService catalogCacheService;
+
+    // How long before Contest.startTime its responses are loaded into the cache
+    @Value("${catalog.prewarm.lead-time:300000}")
+    private long prewarmLeadTime;
+
+    @Value("${app.role:all}")
+    private NodeRole role;
+
+    public CatalogCacheService.Entry allContests() {
+        return catalogCacheService.get(CatalogCacheService.ALL_CONTESTS, () ->
+                contestRepository.findAllWithProblems().stream()
+                        .map(ContestWithProblems::from)
+                        .collect(Collectors.toList()));
+    }
+
+    public CatalogCacheService.Entry contest(Long contestId) {
+        return catalogCacheService.get(CatalogCacheService.contest(contestId), () ->
+                contestRepository.findWithProblemsById(contestId)
+                        .map(ContestWithProblems::from)
+                        .orElse(null));
+    }
+
+    public CatalogCacheService.Entry contestProblems(Long contestId) {
+        return catalogCacheService.get(CatalogCacheService.contestProblems(contestId), () -> {
+            if (!contestRepository.existsById(contestId)) {
+                return null;
+            }
+            return problemRepository.findByContestId(contestId).stream()
+                    .map(ProblemSummary::from)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    public CatalogCacheService.Entry contestSummaries() {
+        return catalogCacheService.get(CatalogCacheService.CONTEST_SUMMARIES, () -> {
+            // Three flat queries regardless of contest count: contests, problem counts, participant counts
+            List<Contest> contests = contestRepository.findAll();
+            Map<Long, Long> problemCounts = toCountMap(problemRepository.countProblemsPerContest());
+            Map<Long, Long> participantCounts = toCountMap(contestParticipantRepository.countParticipantsPerContest());
+            return contests.stream()
+                    .map(contest -> ContestSummary.from(contest,
+                            problemCounts.getOrDefault(contest.getId(), 0L).intValue(),
+                            participantCounts.getOrDefault(contest.getId(), 0L)))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    public CatalogCacheService.Entry allProblems() {
+        return catalogCacheService.get(CatalogCacheService.ALL_PROBLEMS, () ->
+                problemRepository.findAll().stream()
+                        .map(ProblemSummary::from)
+                        .collect(Collectors.toList()));
+    }
+
+    public CatalogCacheService.Entry problem(Long problemId) {
+        return catalogCacheService.get(CatalogCacheService.problem(problemId), () ->
+                problemRepository.findById(problemId)
+                        .map(problem -> ProblemDetail.from(problem,
+                                testCaseRepository.findByProblemIdAndIsHidden(problem.getId(), false)))
+                        .orElse(null));
+    }
+
+    /**
+     * Loads every response a contestant opens at contest start (contest page, problem list,
+     * each statement) shortly before {@code startTime}, so the opening burst is served
+     * entirely from memory.
+     */
+    @Scheduled(fixedDelayString = "${catalog.prewarm.interval:30000}")
+    public void prewarmUpcomingContests() {
+        if (!role.servesApi()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Contest> upcoming = contestRepository.findByStartTimeBetween(
+                now, now.plus(Duration.ofMillis(prewarmLeadTime)));
+        if (upcoming.isEmpty()) {
+            return;
+        }
+
+        allContests();
+        contestSummaries();
+        for (Contest contest : upcoming) {
+            if (catalogCacheService.contains(CatalogCacheService.contest(contest.getId()))) {
+                continue;
+            }
+            log.info("Pre-warming catalog cache for contest {} starting at {}", contest.getId(), contest.getStartTime());
+            contest(contest.getId());
+            contestProblems(contest.getId());
+            for (Problem problem : problemRepository.findByContestId(contest.getId())) {
+                problem(problem.getId());
+            }
+        }
+    }
+
+    private Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+}
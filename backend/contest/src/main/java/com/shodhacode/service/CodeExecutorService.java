@@ -1,11 +1,14 @@
 package com.shodhacode.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shodhacode.constants.ApplicationConstants;
+import com.shodhacode.dto.JudgeVerdict;
 import com.shodhacode.entity.*;
-import com.shodhacode.repository.SubmissionRepository;
-import com.shodhacode.repository.ProblemRepository;
-import com.shodhacode.repository.ContestParticipantRepository;
-import com.shodhacode.repository.UserRepository;
+import com.shodhacode.repository.TestCaseRepository;
+import com.shodhacode.sandbox.SandboxBackend;
+import com.shodhacode.sandbox.SandboxRequest;
+import com.shodhacode.sandbox.SandboxResult;
+import com.shodhacode.sandbox.WorkDirPool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,114 +16,92 @@
 import jakarta.annotation.PostConstruct;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.util.concurrent.TimeUnit;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.stream.Collectors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CodeExecutorService {
 
-    private final SubmissionRepository submissionRepository;
-    private final ProblemRepository problemRepository;
-    private final ContestParticipantRepository contestParticipantRepository;
-    private final UserRepository userRepository;
+    // Reported by judge-time from outside the user's process (see docker/executor/judge), tagged
+    // with a nonce the judge hands it in NONCE_FILE and user code never sees
+    private static final Pattern TIME_REPORT = Pattern.compile("\\n?__JUDGE_TIME_MS__=([^:\\s]*):(\\d+)\\n?");
+    private static final String NONCE_FILE = ".judge-nonce";
+    // One record per test from the batch runner (see docker/executor/judge/batch.py)
+    private static final String BATCH_RECORD = "__JUDGE_TEST__ ";
+    private static final String BATCH_DIR = "tests";
+
+    private final TestCaseRepository testCaseRepository;
+    private final SubmissionStatusTracker statusTracker;
+    private final VerdictWriter verdictWriter;
+    private final List<SandboxBackend> sandboxBackends;
+    private final WorkDirPool workDirPool;
+    private final ObjectMapper objectMapper;
     
-    @Value("${docker.execution.enabled:false}")
-    private boolean dockerEnabled;
+    @Value("${execution.sandbox.backend:docker}")
+    private String sandboxName;
     
-    @Value("${docker.image.name:" + ApplicationConstants.DEFAULT_DOCKER_IMAGE + "}")
-    private String dockerImageName = ApplicationConstants.DEFAULT_DOCKER_IMAGE;
-    
-    @Value("${execution.temp.dir:}")
-    private String tempDir;
+    @Value("${execution.warm-start.enabled:true}")
+    private boolean warmStart;
 
-    @Value("${docker.debug.mode:false}")
-    private boolean dockerDebugMode;
+    private SandboxBackend sandbox;
+    private boolean executionEnabled;
+    private boolean batchAvailable;
     
     @PostConstruct
     public void init() {
-        // Use system temp directory if not configured
-        if (tempDir == null || tempDir.isEmpty()) {
-            tempDir = System.getProperty("java.io.tmpdir") + "shodhacode";
-        }
-        
-        // Ensure directory exists
-        try {
-            Files.createDirectories(Paths.get(tempDir));
-        } catch (IOException e) {
-            log.error("Failed to create temp directory: {}", e.getMessage());
-        }
-        
         log.info("=================================================");
         log.info("CodeExecutorService initialization:");
-        log.info("Docker execution enabled: {}", dockerEnabled);
-        log.info("Docker image name: {}", dockerImageName);
-        log.info("Temp directory: {}", tempDir);
-        log.info("Docker debug mode: {}", dockerDebugMode);
+        log.info("Sandbox backend: {}", sandboxName);
+        log.info("Work directory root: {}", workDirPool.getRoot());
         
-        if (dockerEnabled) {
-            checkDockerAvailability();
+        sandbox = sandboxBackends.stream()
+                .filter(backend -> backend.getName().equalsIgnoreCase(sandboxName))
+                .findFirst()
+                .orElse(null);
+        if (sandbox == null) {
+            log.error("✗ Unknown sandbox backend '{}'. Code execution will not work!", sandboxName);
         } else {
-            log.warn("Docker execution is DISABLED. Code execution will not work!");
+            executionEnabled = sandbox.initialize();
         }
-        log.info("=================================================");
-    }
-    
-    private void checkDockerAvailability() {
-        try {
-            // Check if Docker is running
-            ProcessBuilder dockerCheckBuilder = new ProcessBuilder("docker", "version");
-            // Redirect error stream to output stream to capture all output
-            dockerCheckBuilder.redirectErrorStream(true);
-            Process dockerCheck = dockerCheckBuilder.start();
-            boolean dockerRunning = dockerCheck.waitFor(5, TimeUnit.SECONDS);
-            
-            if (dockerRunning && dockerCheck.exitValue() == 0) {
-                log.info("✓ Docker is available and running");
-                
-                // Check if the required image exists
-                ProcessBuilder imageCheckBuilder = new ProcessBuilder("docker", "images", "-q", dockerImageName);
-                imageCheckBuilder.redirectErrorStream(true);
-                Process imageCheck = imageCheckBuilder.start();
-                imageCheck.waitFor(5, TimeUnit.SECONDS);
-                
-                BufferedReader reader = new BufferedReader(new InputStreamReader(imageCheck.getInputStream()));
-                String imageId = reader.readLine();
-                
-                if (imageId != null && !imageId.trim().isEmpty()) {
-                    log.info("✓ Docker executor image '{}' found (ID: {})", dockerImageName, imageId.substring(0, Math.min(12, imageId.length())));
-                } else {
-                    log.error("✗ Docker executor image '{}' NOT FOUND! Please build it using:", dockerImageName);
-                    log.error("  cd backend/docker/executor && docker build -t {} .", dockerImageName);
-                    dockerEnabled = false;
-                }
+        
+        if (executionEnabled) {
+            // The batch runner ships with the warm-start launchers and runs tests as a second user
+            batchAvailable = sandbox.hasWarmStart() && sandbox.getBatchUser() != null;
+            if (!batchAvailable) {
+                log.info("Batch judge mode unavailable with the {} sandbox; every test gets its own sandbox",
+                        sandbox.getName());
+            }
+            if (!warmStart) {
+                log.info("Warm-start launchers disabled; runtime startup counts towards time limits");
+            } else if (sandbox.hasWarmStart()) {
+                log.info("✓ Warm-start launchers found in {}", sandbox.getJudgeHome());
             } else {
-                log.error("✗ Docker is NOT running or not installed!");
-                dockerEnabled = false;
+                warmStart = false;
+                log.warn("✗ No warm-start launchers in {}; rebuild the executor image to exclude runtime startup from time limits",
+                        sandbox.getJudgeHome());
             }
-        } catch (Exception e) {
-            log.error("✗ Failed to check Docker availability: {}", e.getMessage());
-            dockerEnabled = false;
         }
+        log.info("=================================================");
     }
 
     public void executeCode(Submission submission) {
         log.info("Starting code execution for submission {} with language {}",
                  submission.getId(), submission.getLanguage());
+        // RUNNING and per-test progress live in memory only; the row is written once with the verdict
         submission.setStatus(SubmissionStatus.RUNNING);
-        submissionRepository.save(submission);
+        statusTracker.markRunning(submission.getId(), 0);
 
         try {
             Problem problem = submission.getProblem();
@@ -128,33 +109,43 @@ public void executeCode(Submission submission) {
                 throw new RuntimeException("Problem not found for submission");
             }
 
-            if (dockerEnabled) {
-                executeWithDocker(submission, problem);
+            if (executionEnabled) {
+                executeInSandbox(submission, problem);
             } else {
-                // Docker not enabled - return system error
+                // No usable sandbox - return system error
                 submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
                 submission.setErrorMessage("Code execution environment not available. Please contact administrator.");
                 submission.setScore(0);
                 submission.setTestCasesPassed(0);
-                submission.setTotalTestCases(problem.getTestCases().size());
-                submissionRepository.save(submission);
-                log.error("Docker execution is disabled. Cannot execute submission {}", submission.getId());
+                submission.setTotalTestCases((int) testCaseRepository.countByProblemId(problem.getId()));
+                finish(submission);
+                log.error("Sandboxed execution is unavailable. Cannot execute submission {}", submission.getId());
             }
             
         } catch (Exception e) {
             log.error("Error executing submission {}: {}", submission.getId(), e.getMessage(), e);
             submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
             submission.setErrorMessage("Execution failed: " + e.getMessage());
-            submissionRepository.save(submission);
+            finish(submission);
         }
     }
     
-    private void executeWithDocker(Submission submission, Problem problem) throws Exception {
+    /** Ends a submission that cannot be judged because of a system fault, not the code. */
+    public void failInternally(Submission submission, String message) {
+        submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
+        submission.setErrorMessage(message);
+        submission.setScore(0);
+        submission.setTestCasesPassed(0);
+        submission.setTotalTestCases(0);
+        finish(submission);
+        log.error("System error on submission {}: {}", submission.getId(), message);
+    }
+
+    private void executeInSandbox(Submission submission, Problem problem) throws Exception {
         String executionId = UUID.randomUUID().toString();
-        Path workDir = Paths.get(tempDir, executionId);
-        Files.createDirectories(workDir);
+        Path workDir = workDirPool.acquire();
 
-        log.info("===== Starting Docker execution =====");
+        log.info("===== Starting {} execution =====", sandbox.getName());
         log.info("Submission ID: {}", submission.getId());
         log.info("Problem: {} (ID: {})", problem.getTitle(), problem.getId());
         log.info("Language: {}", submission.getLanguage());
@@ -168,37 +159,61 @@ private void executeWithDocker(Submission submission, Problem problem) throws Ex
 
             log.info("Created file {} for submission {}", fileName, submission.getId());
             
-            List<TestCase> testCases = problem.getTestCases();
-            if (testCases == null || testCases.isEmpty()) {
+            // Limits only; each test's data is read when it runs
+            List<TestSpec> testCases = testCaseRepository.findLimitsByProblemId(problem.getId()).stream()
+                    .map(TestSpec::new)
+                    .toList();
+            if (testCases.isEmpty()) {
                 log.error("No test cases found for problem {}", problem.getId());
                 submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
                 submission.setErrorMessage("No test cases available for this problem");
                 submission.setScore(0);
                 submission.setTestCasesPassed(0);
                 submission.setTotalTestCases(0);
-                submissionRepository.save(submission);
+                finish(submission);
                 return;
             }
 
             // Filter test cases based on submission type
-            List<TestCase> sortedTestCases = new ArrayList<>();
+            List<TestSpec> sortedTestCases = new ArrayList<>();
             if (submission.getIsTestRun()) {
                 // For test runs, only use sample (non-hidden) test cases
                 testCases.stream()
-                    .filter(tc -> !tc.getIsHidden())
+                    .filter(tc -> !tc.hidden)
                     .forEach(sortedTestCases::add);
                 log.info("Test run mode: Running {} sample test cases", sortedTestCases.size());
             } else {
                 // For full submissions, use all test cases (samples first, then hidden)
-                testCases.stream()
-                    .filter(tc -> !tc.getIsHidden())
-                    .forEach(sortedTestCases::add);
-                testCases.stream()
-                    .filter(tc -> tc.getIsHidden())
-                    .forEach(sortedTestCases::add);
+                sortedTestCases.addAll(testCases);
                 log.info("Full submission: Running {} total test cases", sortedTestCases.size());
             }
             
+            // Compile once per submission; compile time is never charged to a test case
+            String compileError = compile(submission, workDir, fileName);
+            if (compileError != null) {
+                log.info("Compilation failed for submission {}", submission.getId());
+                submission.setStatus(SubmissionStatus.COMPILATION_ERROR);
+                submission.setErrorMessage(compileError);
+                submission.setScore(0);
+                submission.setTestCasesPassed(0);
+                submission.setTotalTestCases(sortedTestCases.size());
+                finish(submission);
+                return;
+            }
+
+            // Get the run command for this language (batch.py keeps the time itself)
+            String runCommand = getRunCommand(submission.getLanguage());
+            String timedRunCommand = warmStart ? sandbox.getJudgeHome() + "/judge-time " + NONCE_FILE + " " + runCommand
+                    : runCommand;
+            long startupAllowance = getStartupAllowance(submission.getLanguage());
+
+            // In batch mode every test runs in one sandbox; tests without a result from it
+            // (e.g. the runner itself was killed) are run on their own below
+            boolean batch = problem.getJudgeMode() == JudgeMode.BATCH && batchAvailable;
+            List<SandboxResult> batchResults = batch
+                    ? runBatch(submission, workDir, sortedTestCases, runCommand, startupAllowance)
+                    : Collections.nCopies(sortedTestCases.size(), null);
+
             int testCasesPassed = 0;
             int totalTestCases = sortedTestCases.size();
             int pointsPerTestCase = problem.getPoints() / totalTestCases;
@@ -206,112 +221,91 @@ private void executeWithDocker(Submission submission, Problem problem) throws Ex
             StringBuilder output = new StringBuilder();
             long totalExecutionTime = 0;
             
+            statusTracker.progress(submission.getId(), 0, 0, totalTestCases);
             for (int i = 0; i < sortedTestCases.size(); i++) {
-                TestCase testCase = sortedTestCases.get(i);
-                String testCaseLabel = testCase.getIsHidden() ? "Hidden test case " : "Sample test case ";
+                if (i > 0) {
+                    statusTracker.progress(submission.getId(), i, testCasesPassed, totalTestCases);
+                }
+                TestSpec testCase = sortedTestCases.get(i);
+                String testCaseLabel = testCase.hidden ? "Hidden test case " : "Sample test case ";
                 log.info("Running {} {} for submission {}", testCaseLabel, i + 1, submission.getId());
                 
-                // Get the run command for this language
-                String runCommand = getRunCommand(submission.getLanguage(), fileName);
-                
-                // Generate unique container name for debugging
-                String containerName = "executor-" + submission.getId().substring(0, 8) + "-tc" + (i + 1);
-
-                // Split the Docker command into parts to avoid shell interpretation issues
-                List<String> commandParts = new ArrayList<>();
-                commandParts.add("docker");
-                commandParts.add("run");
-                if (!dockerDebugMode) {
-                    commandParts.add("--rm");
+                // The sandbox gets the startup allowance on top of the limit; the runtime's own
+                // report of user time decides the verdict
+                SandboxRequest request = SandboxRequest.builder()
+                        .name("executor-" + submission.getId().substring(0, 8) + "-tc" + (i + 1))
+                        .workDir(workDir)
+                        .command(timedRunCommand)
+                        .timeLimit(testCase.timeLimit + startupAllowance)
+                        .memoryLimit(testCase.memoryLimit)
+                        .outputLimit(outputLimit(testCase))
+                        .build();
+                SandboxResult run = batchResults.get(i);
+                Long reportedTime = null;
+                if (run == null) {
+                    request.setStdin(testCaseRepository.findInputById(testCase.id));
+                    String nonce = UUID.randomUUID().toString();
+                    Path nonceFile = workDir.resolve(NONCE_FILE);
+                    Files.writeString(nonceFile, nonce);
+                    try {
+                        run = sandbox.run(request);
+                    } finally {
+                        Files.deleteIfExists(nonceFile);
+                        request.setStdin(null);
+                    }
+                    // Prefer the user time judge-time measured (excludes runtime startup)
+                    reportedTime = extractReportedTime(run.getStderr(), nonce);
+                } else {
+                    // Debug hints should point at the sandbox that actually ran the test; batch.py
+                    // already reports user time as the wall time
+                    request.setName(batchSandboxName(submission));
                 }
-                commandParts.add("--name");
-                commandParts.add(containerName);
-                commandParts.add("-i");
-                commandParts.add("--cpus=1");
-                commandParts.add("--memory=" + testCase.getMemoryLimit() + "m");
-                commandParts.add("--memory-swap=" + testCase.getMemoryLimit() + "m");
-                // Increased ulimits to prevent "resource temporarily unavailable" errors
-                commandParts.add("--ulimit");
-                commandParts.add("nofile=256:256");
-                commandParts.add("--ulimit");
-                commandParts.add("nproc=512:512");
-                commandParts.add("--network");
-                commandParts.add("none");
-                // Run as root to avoid permission issues (security is handled by container isolation)
-                commandParts.add("--user");
-                commandParts.add("root");
-                commandParts.add("-v");
-                commandParts.add(workDir.toString() + ":/code");
-                commandParts.add("-w");
-                commandParts.add("/code");
-                commandParts.add(dockerImageName);
-                commandParts.add("/bin/bash");
-                commandParts.add("-c");
-                commandParts.add("timeout " + (testCase.getTimeLimit() / 1000) + " " + runCommand);
                 
-                ProcessBuilder pb = new ProcessBuilder(commandParts);
-                pb.directory(workDir.toFile());
-
-                if (dockerDebugMode) {
-                    log.info("Starting container {} for test case {}", containerName, i + 1);
+                String result = run.getStdout();
+                String error = TIME_REPORT.matcher(run.getStderr()).replaceAll("");
+                long executionTime = reportedTime != null ? reportedTime : run.getWallTime();
+                totalExecutionTime += executionTime;
+
+                if (run.isTimedOut() || executionTime > testCase.timeLimit) {
+                    log.warn("Test case {} exceeded the time limit for submission {} ({}ms > {}ms)",
+                            i + 1, submission.getId(), executionTime, testCase.timeLimit);
+                    output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_TIME_LIMIT_EXCEEDED).append("\n");
+                    continue;
                 }
-
-                Process process = pb.start();
                 
-                try (BufferedWriter writer = new BufferedWriter(
-                        new OutputStreamWriter(process.getOutputStream()))) {
-                    writer.write(testCase.getInput());
-                    writer.flush();
+                if (run.isOutputLimitExceeded()) {
+                    log.warn("Test case {} exceeded the output limit for submission {}", i + 1, submission.getId());
+                    output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_OUTPUT_LIMIT_EXCEEDED).append("\n");
+                    continue;
                 }
-                
-                boolean finished = process.waitFor(testCase.getTimeLimit() + 1000, TimeUnit.MILLISECONDS);
 
-                if (!finished) {
-                    log.warn("Test case {} timed out for submission {} (time limit: {}ms)",
-                            i + 1, submission.getId(), testCase.getTimeLimit());
-                    process.destroyForcibly();
-                    // Also kill the Docker container if it's still running
-                    try {
-                        ProcessBuilder killBuilder = new ProcessBuilder("docker", "kill", containerName);
-                        killBuilder.start().waitFor(2, TimeUnit.SECONDS);
-                    } catch (Exception e) {
-                        log.debug("Failed to kill container {}: {}", containerName, e.getMessage());
-                    }
-                    output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_TIME_LIMIT_EXCEEDED).append("\n");
+                if (run.isOomKilled()) {
+                    log.warn("Test case {} exceeded the memory limit for submission {} ({}MB)",
+                            i + 1, submission.getId(), testCase.memoryLimit);
+                    output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_MEMORY_LIMIT_EXCEEDED).append("\n");
                     continue;
                 }
-                
-                String result = readOutput(process.getInputStream());
-                String error = readOutput(process.getErrorStream());
-                
-                if (process.exitValue() != 0) {
-                    if (error.contains("compilation")) {
-                        submission.setStatus(SubmissionStatus.COMPILATION_ERROR);
-                        submission.setErrorMessage(error);
-                        submission.setScore(0);
-                        submission.setTestCasesPassed(0);
-                        submission.setTotalTestCases(totalTestCases);
-                        submissionRepository.save(submission);
-                        return;
-                    } else {
-                        log.error("Runtime error for test case {}: Exit code={}, Error output: {}",
-                                 i + 1, process.exitValue(), error);
-                        output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_RUNTIME_ERROR).append("\n");
-                        output.append("  Error: ").append(error.isEmpty() ? "Unknown error (exit code: " + process.exitValue() + ")" : error).append("\n");
-
-                        if (dockerDebugMode) {
-                            log.info("Container {} preserved for debugging. Use 'docker logs {}' to see output",
-                                    containerName, containerName);
-                            output.append("  Debug: Container '").append(containerName).append("' preserved for inspection\n");
-                        }
-                        continue;
+
+                if (run.getExitCode() != 0) {
+                    log.error("Runtime error for test case {}: Exit code={}, Error output: {}",
+                             i + 1, run.getExitCode(), error);
+                    output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_RUNTIME_ERROR).append("\n");
+                    output.append("  Error: ").append(error.isEmpty() ? "Unknown error (exit code: " + run.getExitCode() + ")" : error).append("\n");
+
+                    String debugHint = sandbox.describeForDebugging(request);
+                    if (debugHint != null) {
+                        output.append("  Debug: ").append(debugHint).append("\n");
                     }
+                    continue;
                 }
                 
-                String expectedOutput = testCase.getExpectedOutput().trim();
+                // An identical output passes on its hash; only others are compared trimmed
+                boolean identical = testCase.expectedOutputHash != null
+                        && testCase.expectedOutputHash.equals(SourceStore.hash(result));
+                String expectedOutput = identical ? null : testCaseRepository.findExpectedOutputById(testCase.id).trim();
                 String actualOutput = result.trim();
                 
-                if (expectedOutput.equals(actualOutput)) {
+                if (identical || expectedOutput.equals(actualOutput)) {
                     testCasesPassed++;
                     totalScore += pointsPerTestCase;
                     output.append(testCaseLabel).append(i + 1).append(": ").append(ApplicationConstants.RESULT_PASSED).append("\n");
@@ -321,12 +315,11 @@ private void executeWithDocker(Submission submission, Problem problem) throws Ex
                     log.debug("Test case {} FAILED for submission {}", i + 1, submission.getId());
                     log.debug("  Expected: {}", expectedOutput.substring(0, Math.min(100, expectedOutput.length())));
                     log.debug("  Got: {}", actualOutput.substring(0, Math.min(100, actualOutput.length())));
-                    if (!testCase.getIsHidden()) {
+                    if (!testCase.hidden) {
                         output.append("  Expected: ").append(expectedOutput).append("\n");
                         output.append("  Got: ").append(actualOutput).append("\n");
                     }
                 }
-                totalExecutionTime += measureExecutionTime(process);
             }
             
             // Handle remaining points due to integer division
@@ -373,124 +366,16 @@ private void executeWithDocker(Submission submission, Problem problem) throws Ex
             log.info("Total execution time: {}ms", totalExecutionTime);
 
         } finally {
-            cleanupWorkDir(workDir);
-            log.debug("Cleaned up working directory: {}", workDir);
+            workDirPool.release(workDir);
+            log.debug("Released working directory: {}", workDir);
         }
         
-        submissionRepository.save(submission);
-
-        // Update contest participant score if this is a full submission (not a test run)
-        if (!submission.getIsTestRun()) {
-            updateContestParticipantScore(submission);
-        }
+        finish(submission);
     }
 
-    private void updateUserGlobalScore(User user) {
-        try {
-            log.debug("Updating global score for user {} (ID: {})", user.getUsername(), user.getId());
-            // Get all contest participations for this user
-            List<ContestParticipant> participations = contestParticipantRepository.findByUserId(user.getId());
-
-            // Calculate total score and unique problems solved across all contests
-            int totalGlobalScore = 0;
-            Set<Long> uniqueProblemsSolved = new HashSet<>();
-
-            for (ContestParticipant participation : participations) {
-                totalGlobalScore += (participation.getScore() != null ? participation.getScore() : 0);
-
-                // Get problems solved in this contest
-                Contest contest = participation.getContest();
-                if (contest != null) {
-                    List<Submission> acceptedSubmissions = submissionRepository
-                        .findByUserIdAndContestId(user.getId(), contest.getId())
-                        .stream()
-                        .filter(s -> !s.getIsTestRun() &&
-                                    (s.getStatus() == SubmissionStatus.ACCEPTED ||
-                                     s.getStatus() == SubmissionStatus.PARTIALLY_ACCEPTED) &&
-                                    s.getScore() != null && s.getScore() > 0)
-                        .collect(Collectors.toList());
-
-                    for (Submission s : acceptedSubmissions) {
-                        uniqueProblemsSolved.add(s.getProblem().getId());
-                    }
-                }
-            }
-
-            // Update user's global score
-            user.setScore(totalGlobalScore);
-            user.setProblemsSolved(uniqueProblemsSolved.size());
-            userRepository.save(user);
-
-            log.info("Updated user global score: User {} - Total Score: {}, Unique Problems Solved: {}",
-                user.getUsername(), totalGlobalScore, uniqueProblemsSolved.size());
-
-        } catch (Exception e) {
-            log.error("Failed to update user global score: {}", e.getMessage());
-        }
+    private void finish(Submission submission) {
+        verdictWriter.submit(JudgeVerdict.from(submission));
     }
-
-    private void updateContestParticipantScore(Submission submission) {
-        // Only update scores for accepted or partially accepted submissions
-        if (submission.getStatus() != SubmissionStatus.ACCEPTED &&
-            submission.getStatus() != SubmissionStatus.PARTIALLY_ACCEPTED) {
-            return;
-        }
-
-        try {
-            // Get the contest from the problem
-            Contest contest = submission.getProblem().getContest();
-            if (contest == null) {
-                log.debug("No contest associated with problem {}", submission.getProblem().getId());
-                return;
-            }
-
-            // Find the contest participant
-            contestParticipantRepository.findByUserIdAndContestId(
-                submission.getUser().getId(),
-                contest.getId()
-            ).ifPresent(participant -> {
-                // Get all accepted/partially accepted submissions for this user in this contest (excluding test runs)
-                List<Submission> userContestSubmissions = submissionRepository
-                    .findByUserIdAndContestId(submission.getUser().getId(), contest.getId())
-                    .stream()
-                    .filter(s -> !s.getIsTestRun() &&
-                                (s.getStatus() == SubmissionStatus.ACCEPTED ||
-                                 s.getStatus() == SubmissionStatus.PARTIALLY_ACCEPTED))
-                    .collect(Collectors.toList());
-
-                // Calculate total score (best score per problem)
-                Map<Long, Integer> bestScorePerProblem = new HashMap<>();
-                for (Submission s : userContestSubmissions) {
-                    Long problemId = s.getProblem().getId();
-                    int currentScore = s.getScore() != null ? s.getScore() : 0;
-                    bestScorePerProblem.merge(problemId, currentScore, Math::max);
-                }
-
-                int totalScore = bestScorePerProblem.values().stream()
-                    .mapToInt(Integer::intValue)
-                    .sum();
-                int problemsSolved = (int) bestScorePerProblem.entrySet().stream()
-                    .filter(entry -> entry.getValue() > 0)
-                    .count();
-
-                // Update participant scores
-                participant.setScore(totalScore);
-                participant.setProblemsSolved(problemsSolved);
-                contestParticipantRepository.save(participant);
-
-                log.info("Updated contest participant score: User {} in Contest {} - Score: {}, Problems: {}",
-                    submission.getUser().getUsername(), contest.getTitle(), totalScore, problemsSolved);
-
-                // Update user's global score (sum of all contest scores)
-                updateUserGlobalScore(submission.getUser());
-            });
-
-        } catch (Exception e) {
-            log.error("Failed to update contest participant score: {}", e.getMessage());
-            // Don't fail the submission if score update fails
-        }
-    }
-    
     
     private String getFileName(ProgrammingLanguage language) {
         switch (language) {
@@ -502,49 +387,195 @@ private String getFileName(ProgrammingLanguage language) {
         }
     }
     
-    private String getRunCommand(ProgrammingLanguage language, String fileName) {
+    private String getCompileCommand(ProgrammingLanguage language, String fileName) {
         switch (language) {
-            case JAVA:
-                return "bash -c 'javac " + fileName + " && exec java Solution'";
-            case PYTHON3:
-                return "python3 " + fileName;
-            case CPP:
-                return "sh -c 'g++ -o solution " + fileName + " && ./solution'";
-            case JAVASCRIPT:
-                return "node " + fileName;
+            case JAVA: return "javac " + fileName;
+            case PYTHON3: return "python3 -m py_compile " + fileName;
+            case CPP: return "g++ -o solution " + fileName;
+            case JAVASCRIPT: return "node --check " + fileName;
             default:
                 throw new UnsupportedOperationException("Language not supported: " + language);
         }
     }
     
-    private String readOutput(InputStream stream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+    private String getRunCommand(ProgrammingLanguage language) {
+        if (warmStart) {
+            // Launchers baked into the executor image mark when user code starts
+            String judgeHome = sandbox.getJudgeHome();
+            switch (language) {
+                case JAVA:
+                    return "java -Xshare:auto -XX:SharedArchiveFile=" + judgeHome + "/java-base.jsa -XX:-UsePerfData"
+                            + " -cp " + judgeHome + "/judge-runner.jar:. JudgeRunner Solution";
+                case PYTHON3: return "python3 " + judgeHome + "/run.py solution.py";
+                case CPP: return "./solution";
+                case JAVASCRIPT: return "node -r " + judgeHome + "/timer.js solution.js";
+                default:
+                    throw new UnsupportedOperationException("Language not supported: " + language);
             }
         }
-        return output.toString();
+        switch (language) {
+            case JAVA: return "java Solution";
+            case PYTHON3: return "python3 solution.py";
+            case CPP: return "./solution";
+            case JAVASCRIPT: return "node solution.js";
+            default:
+                throw new UnsupportedOperationException("Language not supported: " + language);
+        }
     }
-    
-    private long measureExecutionTime(Process process) {
-        return 100L;
+
+    // Extra sandbox time for runtime startup, which is not charged to the time limit
+    private long getStartupAllowance(ProgrammingLanguage language) {
+        switch (language) {
+            case JAVA: return 1000L;
+            case PYTHON3:
+            case JAVASCRIPT: return 500L;
+            default: return 0L;
+        }
     }
-    
-    private void cleanupWorkDir(Path workDir) {
+
+    private String compile(Submission submission, Path workDir, String fileName) throws Exception {
+        SandboxRequest request = SandboxRequest.builder()
+                .name("compile-" + submission.getId().substring(0, 8))
+                .workDir(workDir)
+                .command(getCompileCommand(submission.getLanguage(), fileName))
+                .timeLimit(ApplicationConstants.COMPILE_TIME_LIMIT)
+                .memoryLimit(ApplicationConstants.COMPILE_MEMORY_LIMIT)
+                .build();
+        SandboxResult result = sandbox.run(request);
+        if (result.isTimedOut()) {
+            return "Compilation timed out";
+        }
+        if (result.getExitCode() != 0) {
+            String compilerOutput = result.getStdout() + result.getStderr();
+            return compilerOutput.isEmpty() ? "Compilation failed (exit code: " + result.getExitCode() + ")" : compilerOutput;
+        }
+        return null;
+    }
+
+    private List<SandboxResult> runBatch(Submission submission, Path workDir, List<TestSpec> testCases,
+                                         String runCommand, long startupAllowance) throws Exception {
+        Path testsDir = workDir.resolve(BATCH_DIR);
+        Files.createDirectories(testsDir);
+        List<Map<String, Object>> limits = new ArrayList<>();
+        long timeLimit = ApplicationConstants.BATCH_RUNNER_TIME;
+        int memoryLimit = 0;
+        // Records carry both streams of every test, base64-encoded
+        long outputLimit = ApplicationConstants.MAX_RUN_OUTPUT;
+        for (int i = 0; i < testCases.size(); i++) {
+            TestSpec testCase = testCases.get(i);
+            Files.writeString(testsDir.resolve((i + 1) + ".in"), testCaseRepository.findInputById(testCase.id));
+            limits.add(Map.of("timeLimit", testCase.timeLimit + startupAllowance,
+                    "outputLimit", outputLimit(testCase)));
+            timeLimit += testCase.timeLimit + startupAllowance;
+            memoryLimit = Math.max(memoryLimit, testCase.memoryLimit);
+            outputLimit += 2 * (outputLimit(testCase) / 3 + 1) * 4;
+        }
+        Files.write(testsDir.resolve("manifest.json"), objectMapper.writeValueAsBytes(
+                Map.of("command", runCommand, "user", sandbox.getBatchUser(), "tests", limits)));
+
+        SandboxRequest request = SandboxRequest.builder()
+                .name(batchSandboxName(submission))
+                .workDir(workDir)
+                .command("python3 " + sandbox.getJudgeHome() + "/batch.py " + BATCH_DIR)
+                .timeLimit(timeLimit)
+                .memoryLimit(memoryLimit + ApplicationConstants.BATCH_RUNNER_MEMORY)
+                .outputLimit(outputLimit)
+                .build();
+        log.info("Running {} test cases in one sandbox for submission {}", testCases.size(), submission.getId());
+        SandboxResult batch = sandbox.run(request);
+
+        List<SandboxResult> results = new ArrayList<>(Collections.nCopies(testCases.size(), null));
+        for (String line : batch.getStdout().split("\n")) {
+            if (!line.startsWith(BATCH_RECORD)) {
+                continue;
+            }
+            SandboxResult result = parseBatchRecord(line.substring(BATCH_RECORD.length()).trim(), results, testCases);
+            if (result == null) {
+                log.warn("Ignoring malformed batch record for submission {}", submission.getId());
+            }
+        }
+        long missing = results.stream().filter(Objects::isNull).count();
+        if (missing > 0) {
+            log.warn("Batch sandbox for submission {} returned no result for {} test cases (exit code {}): {}",
+                    submission.getId(), missing, batch.getExitCode(), batch.getStderr());
+        }
+        return results;
+    }
+
+    // <i> <exit code> <timed out> <user ms> <peak RSS KB> <output limit exceeded> <stdout b64>
+    // <stderr b64>; the first record of a test counts
+    private static SandboxResult parseBatchRecord(String record, List<SandboxResult> results, List<TestSpec> testCases) {
+        String[] fields = record.split(" ");
+        if (fields.length != 8) {
+            return null;
+        }
         try {
-            Files.walk(workDir)
-                .sorted((a, b) -> -a.compareTo(b))
-                .forEach(path -> {
-                    try {
-                        Files.delete(path);
-                    } catch (IOException e) {
-                        log.warn("Failed to delete {}: {}", path, e.getMessage());
-                    }
-                });
-        } catch (IOException e) {
-            log.error("Failed to cleanup work directory: {}", e.getMessage());
+            int index = Integer.parseInt(fields[0]) - 1;
+            if (index < 0 || index >= testCases.size() || results.get(index) != null) {
+                return null;
+            }
+            long peakMemoryKb = Long.parseLong(fields[4]);
+            SandboxResult result = new SandboxResult(
+                    Integer.parseInt(fields[1]),
+                    decodeBatchOutput(fields[6]),
+                    decodeBatchOutput(fields[7]),
+                    Long.parseLong(fields[3]),
+                    fields[2].equals("1"),
+                    peakMemoryKb > testCases.get(index).memoryLimit * 1024L,
+                    fields[5].equals("1"));
+            results.set(index, result);
+            return result;
+        } catch (IllegalArgumentException e) {
+            // Not a number, or not base64
+            return null;
+        }
+    }
+
+    // Enough for any correct answer: twice the expected output on top of the default
+    private long outputLimit(TestSpec testCase) {
+        if (testCase.expectedOutputSize == null) {
+            // Stored before sizes were recorded
+            testCase.expectedOutputSize = (long) testCaseRepository.findExpectedOutputById(testCase.id)
+                    .getBytes(StandardCharsets.UTF_8).length;
+        }
+        return ApplicationConstants.MAX_RUN_OUTPUT + 2L * testCase.expectedOutputSize;
+    }
+
+    private static String batchSandboxName(Submission submission) {
+        return "batch-" + submission.getId().substring(0, 8);
+    }
+
+    private static String decodeBatchOutput(String field) {
+        return field.equals("-") ? "" : new String(Base64.getDecoder().decode(field), StandardCharsets.UTF_8);
+    }
+
+    // Only judge-time knows the nonce; reports printed by user code are ignored
+    private static Long extractReportedTime(String error, String nonce) {
+        Matcher matcher = TIME_REPORT.matcher(error);
+        while (matcher.find()) {
+            if (matcher.group(1).equals(nonce)) {
+                return Long.parseLong(matcher.group(2));
+            }
+        }
+        return null;
+    }
+
+    /** Limits of one test case, without its data. */
+    private static final class TestSpec {
+        private final Long id;
+        private final boolean hidden;
+        private final int timeLimit;
+        private final int memoryLimit;
+        private final String expectedOutputHash;
+        private Long expectedOutputSize;
+
+        TestSpec(Object[] row) {
+            id = (Long) row[0];
+            hidden = Boolean.TRUE.equals(row[1]);
+            timeLimit = row[2] != null ? (Integer) row[2] : ApplicationConstants.DEFAULT_TIME_LIMIT;
+            memoryLimit = row[3] != null ? (Integer) row[3] : ApplicationConstants.DEFAULT_MEMORY_LIMIT;
+            expectedOutputSize = (Long) row[4];
+            expectedOutputHash = (String) row[5];
         }
     }
-}
\ No newline at end of file
+}
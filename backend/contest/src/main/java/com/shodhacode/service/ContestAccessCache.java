@@ -0,0 +1,189 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.Contest;
+import com.shodhacode.repository.ContestParticipantRepository;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemRepository;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What submission admission needs to know, kept in memory: which contest a problem belongs
+ * to, and per contest its end time, throttle settings and participants (a bitmap of user
+ * IDs). Joins are added as they commit; contest and problem changes drop the cached rows
+ * (see CatalogCacheInvalidator). A user missing from the bitmap is checked against the
+ * database before being rejected, so joins made through another API node are picked up;
+ * other changes made there are seen once the cached rows expire ({@code judge.access-cache.ttl}).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ContestAccessCache {
+
+    // Contest key of problems that belong to no contest
+    private static final Long NO_CONTEST = 0L;
+
+    private final ContestRepository contestRepository;
+    private final ProblemRepository problemRepository;
+    private final ContestParticipantRepository contestParticipantRepository;
+
+    private final Map<Long, ProblemContest> problemContests = new ConcurrentHashMap<>();
+    private final Map<Long, ContestAccess> contests = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a load that raced with a write is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${judge.access-cache.ttl:30000}")
+    private long ttl;
+
+    /**
+     * Access data of the problem's contest ({@link ContestAccess#isContest()} is false for
+     * problems outside any contest), or empty if the problem does not exist.
+     */
+    public Optional<ContestAccess> forProblem(Long problemId) {
+        long now = System.currentTimeMillis();
+        ProblemContest problem = problemContests.get(problemId);
+        if (problem == null || now - problem.loadedAt > ttl) {
+            long loadedAt = generation.get();
+            List<Object[]> rows = problemRepository.findContestIdById(problemId);
+            if (rows.isEmpty()) {
+                problemContests.remove(problemId);
+                return Optional.empty();
+            }
+            problem = new ProblemContest(rows.get(0)[1] != null ? (Long) rows.get(0)[1] : NO_CONTEST, now);
+            problemContests.put(problemId, problem);
+            if (generation.get() != loadedAt) {
+                // Evicted while loading; serve the result but do not keep it
+                problemContests.remove(problemId, problem);
+            }
+        }
+        Long contestId = problem.contestId;
+        if (NO_CONTEST.equals(contestId)) {
+            return Optional.of(ContestAccess.NONE);
+        }
+        ContestAccess cached = contests.get(contestId);
+        if (cached != null && now - cached.loadedAt > ttl) {
+            contests.remove(contestId, cached);
+        }
+        long loadedAt = generation.get();
+        ContestAccess contest = contests.computeIfAbsent(contestId, this::load);
+        if (contest != null && generation.get() != loadedAt) {
+            // Evicted while loading; serve the result but do not keep it
+            contests.remove(contestId, contest);
+        }
+        // A contest deleted after its problem was cached
+        return contest != null ? Optional.of(contest) : Optional.empty();
+    }
+
+    public boolean isParticipant(ContestAccess contest, Long userId) {
+        if (contest.contains(userId)) {
+            return true;
+        }
+        if (!contestParticipantRepository.existsByUserIdAndContestId(userId, contest.getId())) {
+            return false;
+        }
+        contest.add(userId);
+        return true;
+    }
+
+    public void participantJoined(Long contestId, Long userId) {
+        ContestAccess contest = contests.get(contestId);
+        if (contest != null) {
+            contest.add(userId);
+        }
+    }
+
+    public void evictContest(Long contestId) {
+        generation.incrementAndGet();
+        contests.remove(contestId);
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        problemContests.clear();
+        contests.clear();
+    }
+
+    private ContestAccess load(Long contestId) {
+        Contest contest = contestRepository.findById(contestId).orElse(null);
+        if (contest == null) {
+            return null;
+        }
+        BitSet participants = new BitSet();
+        for (Long userId : contestParticipantRepository.findUserIdsByContestId(contestId)) {
+            if (userId != null && userId >= 0 && userId <= Integer.MAX_VALUE) {
+                participants.set(userId.intValue());
+            }
+        }
+        log.debug("Cached access data for contest {} ({} participants)", contestId, participants.cardinality());
+        return new ContestAccess(contest, participants);
+    }
+
+    @Getter
+    public static class ContestAccess {
+
+        static final ContestAccess NONE = new ContestAccess(null, new BitSet());
+
+        private final Long id;
+        private final String title;
+        private final LocalDateTime endTime;
+        private final Integer submissionsPerMinute;
+        private final Integer submissionBurst;
+        private final Integer judgeWeight;
+        // User IDs beyond int range are never cached and always go to the database
+        @Getter(AccessLevel.NONE)
+        private final BitSet participants;
+        @Getter(AccessLevel.NONE)
+        private final long loadedAt = System.currentTimeMillis();
+
+        ContestAccess(Contest contest, BitSet participants) {
+            this.id = contest != null ? contest.getId() : null;
+            this.title = contest != null ? contest.getTitle() : null;
+            this.endTime = contest != null ? contest.getEndTime() : null;
+            this.submissionsPerMinute = contest != null ? contest.getSubmissionsPerMinute() : null;
+            this.submissionBurst = contest != null ? contest.getSubmissionBurst() : null;
+            this.judgeWeight = contest != null ? contest.getJudgeWeight() : null;
+            this.participants = participants;
+        }
+
+        /** False for problems outside any contest. */
+        public boolean isContest() {
+            return id != null;
+        }
+
+        public boolean hasEnded(LocalDateTime now) {
+            return endTime != null && now.isAfter(endTime);
+        }
+
+        synchronized boolean contains(Long userId) {
+            return userId != null && userId >= 0 && userId <= Integer.MAX_VALUE && participants.get(userId.intValue());
+        }
+
+        synchronized void add(Long userId) {
+            if (userId != null && userId >= 0 && userId <= Integer.MAX_VALUE) {
+                participants.set(userId.intValue());
+            }
+        }
+    }
+
+    private static class ProblemContest {
+        private final Long contestId;
+        private final long loadedAt;
+
+        ProblemContest(Long contestId, long loadedAt) {
+            this.contestId = contestId;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
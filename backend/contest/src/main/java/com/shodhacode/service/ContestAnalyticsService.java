@@ -0,0 +1,271 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.dto.ContestAnalytics;
+import com.shodhacode.dto.ProblemAnalytics;
+import com.shodhacode.entity.AnalyticsCheckpoint;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.Problem;
+import com.shodhacode.entity.User;
+import com.shodhacode.repository.AnalyticsCheckpointRepository;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import com.shodhacode.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Live per-problem statistics of contests: attempts, acceptance rate, first solver, verdicts
+ * and languages. The counters of a contest being viewed are kept in memory
+ * ({@link ContestStatistics}) and follow the verdicts written since the previous refresh, by
+ * any judge node; the response is serialized once per change and shared, so dashboards can
+ * poll every second without touching the database.
+ *
+ * <p>The counters are checkpointed every {@code analytics.checkpoint-interval}, so after a
+ * restart only the verdicts written since the checkpoint are read instead of the contest's
+ * whole submission history.
+ *
+ * <p>While a contest's scoreboard is frozen, the statistics served only count submissions
+ * made before the freeze (like the public leaderboard), from a second set of counters
+ * built at the freeze; the full counters keep being maintained and are served again once
+ * the scoreboard is published.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ContestAnalyticsService {
+
+    // Verdicts are stamped by the judging node and commit in batches, so each poll re-reads a
+    // window before the newest one seen (ContestStatistics counts each verdict once)
+    private static final Duration VERDICT_OVERLAP = Duration.ofSeconds(30);
+
+    private final ContestRepository contestRepository;
+    private final ProblemRepository problemRepository;
+    private final UserRepository userRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AnalyticsCheckpointRepository checkpointRepository;
+    private final CatalogCacheService catalogCacheService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Tracker> trackers = new ConcurrentHashMap<>();
+
+    @Value("${analytics.idle-timeout:300000}")
+    private long idleTimeout;
+
+    /** The contest's statistics as JSON, or null if the contest does not exist. */
+    public CatalogCacheService.Entry analytics(Long contestId) {
+        Tracker tracker = trackers.get(contestId);
+        if (tracker == null) {
+            if (!contestRepository.existsById(contestId)) {
+                return null;
+            }
+            tracker = trackers.computeIfAbsent(contestId, Tracker::new);
+        }
+        tracker.lastAccess = System.currentTimeMillis();
+        return tracker.current();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.refresh-interval:1000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        trackers.forEach((contestId, tracker) -> {
+            try {
+                if (now - tracker.lastAccess > idleTimeout) {
+                    tracker.checkpoint();
+                    trackers.remove(contestId, tracker);
+                    log.debug("Dropped idle analytics of contest {}", contestId);
+                } else {
+                    tracker.follow();
+                }
+            } catch (Exception e) {
+                log.error("Failed to refresh analytics of contest {}: {}", contestId, e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.checkpoint-interval:30000}")
+    public void checkpoint() {
+        trackers.forEach((contestId, tracker) -> {
+            try {
+                tracker.checkpoint();
+            } catch (Exception e) {
+                log.error("Failed to checkpoint analytics of contest {}: {}", contestId, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private class Tracker {
+        private final Long contestId;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private volatile CatalogCacheService.Entry served;
+
+        // Guarded by this
+        private ContestStatistics statistics;
+        // Only submissions before the freeze time, while the scoreboard is frozen
+        private ContestStatistics publicStatistics;
+        private LocalDateTime publicFreezeTime;
+        private LocalDateTime verdictsSeen;
+        private boolean changed;
+        private boolean checkpointed = true;
+
+        Tracker(Long contestId) {
+            this.contestId = contestId;
+        }
+
+        CatalogCacheService.Entry current() {
+            CatalogCacheService.Entry entry = served;
+            if (entry == null) {
+                synchronized (this) {
+                    if (served == null) {
+                        load();
+                        follow();
+                    }
+                    entry = served;
+                }
+            }
+            return entry;
+        }
+
+        /** Starts from the checkpoint, or from all verdicts written so far if there is none. */
+        private void load() {
+            AnalyticsCheckpoint saved = checkpointRepository.findById(contestId).orElse(null);
+            if (saved != null) {
+                try {
+                    statistics = objectMapper.readValue(saved.getState(), ContestStatistics.class);
+                    verdictsSeen = saved.getVerdictsSeen();
+                    log.info("Restored analytics of contest {} from checkpoint of {}", contestId, saved.getSavedAt());
+                    return;
+                } catch (JsonProcessingException e) {
+                    log.warn("Ignoring unreadable analytics checkpoint of contest {}: {}", contestId, e.getMessage());
+                }
+            }
+            statistics = new ContestStatistics();
+            verdictsSeen = LocalDateTime.now();
+            for (Object[] row : submissionRepository.findVerdictsByContestIdSubmittedBefore(contestId, verdictsSeen)) {
+                statistics.apply(row);
+            }
+            checkpointed = false;
+            log.info("Built analytics of contest {} from its submissions", contestId);
+        }
+
+        synchronized void follow() {
+            if (statistics == null) {
+                return;
+            }
+            Contest contest = contestRepository.findById(contestId).orElse(null);
+            boolean frozen = contest != null && LeaderboardService.isFrozen(contest, LocalDateTime.now());
+            if (frozen && (publicStatistics == null || !contest.getFreezeTime().equals(publicFreezeTime))) {
+                freeze(contest.getFreezeTime());
+            } else if (!frozen && publicStatistics != null) {
+                publicStatistics = null;
+                publicFreezeTime = null;
+                changed = true;
+                log.info("Analytics of contest {} published", contestId);
+            }
+
+            for (Object[] row : submissionRepository.findVerdictsByContestIdJudgedSince(contestId, verdictsSeen.minus(VERDICT_OVERLAP))) {
+                if (statistics.apply(row)) {
+                    checkpointed = false;
+                    changed |= publicStatistics == null;
+                }
+                if (publicStatistics != null && ((LocalDateTime) row[5]).isBefore(publicFreezeTime)) {
+                    changed |= publicStatistics.apply(row);
+                }
+                LocalDateTime judgedAt = (LocalDateTime) row[6];
+                if (judgedAt.isAfter(verdictsSeen)) {
+                    verdictsSeen = judgedAt;
+                }
+            }
+            statistics.forget(verdictsSeen.minus(VERDICT_OVERLAP));
+            if (publicStatistics != null) {
+                publicStatistics.forget(verdictsSeen.minus(VERDICT_OVERLAP));
+            }
+            if (changed || served == null) {
+                served = catalogCacheService.serialize(snapshot());
+                changed = false;
+            }
+        }
+
+        /** Counts the verdicts of submissions made before the freeze, judged so far. */
+        private void freeze(LocalDateTime freezeTime) {
+            publicStatistics = new ContestStatistics();
+            publicFreezeTime = freezeTime;
+            for (Object[] row : submissionRepository.findVerdictsByContestIdSubmittedBefore(contestId, freezeTime)) {
+                publicStatistics.apply(row);
+            }
+            publicStatistics.forget(verdictsSeen.minus(VERDICT_OVERLAP));
+            changed = true;
+            log.info("Analytics of contest {} frozen at {}", contestId, freezeTime);
+        }
+
+        synchronized void checkpoint() {
+            if (statistics == null || checkpointed) {
+                return;
+            }
+            try {
+                checkpointRepository.save(new AnalyticsCheckpoint(contestId, verdictsSeen,
+                        objectMapper.writeValueAsString(statistics), LocalDateTime.now()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize analytics", e);
+            }
+            checkpointed = true;
+            log.debug("Checkpointed analytics of contest {}", contestId);
+        }
+
+        private ContestAnalytics snapshot() {
+            ContestStatistics shown = publicStatistics != null ? publicStatistics : statistics;
+            Map<Long, ContestStatistics.ProblemTally> tallies = shown.getProblems();
+            Set<Long> firstSolverIds = new HashSet<>();
+            tallies.values().forEach(tally -> {
+                if (tally.getFirstSolverId() != null) {
+                    firstSolverIds.add(tally.getFirstSolverId());
+                }
+            });
+            Map<Long, String> usernames = userRepository.findAllById(firstSolverIds).stream()
+                    .collect(Collectors.toMap(User::getId, User::getUsername));
+
+            List<ProblemAnalytics> problems = new ArrayList<>();
+            for (Problem problem : problemRepository.findByContestId(contestId)) {
+                ContestStatistics.ProblemTally tally = tallies.getOrDefault(problem.getId(), new ContestStatistics.ProblemTally());
+                ProblemAnalytics analytics = new ProblemAnalytics();
+                analytics.setProblemId(problem.getId());
+                analytics.setTitle(problem.getTitle());
+                analytics.setAttempts(tally.getAttempts());
+                analytics.setAccepted(tally.getAccepted());
+                analytics.setAcceptanceRate(tally.getAttempts() > 0 ? 100.0 * tally.getAccepted() / tally.getAttempts() : 0);
+                analytics.setUsersAttempted(tally.getAttemptedBy().size());
+                analytics.setUsersSolved(tally.getSolvedBy().size());
+                analytics.setFirstSolverId(tally.getFirstSolverId());
+                analytics.setFirstSolverUsername(usernames.get(tally.getFirstSolverId()));
+                analytics.setFirstSolvedAt(tally.getFirstSolvedAt());
+                analytics.setVerdicts(tally.getVerdicts());
+                analytics.setLanguages(tally.getLanguages());
+                problems.add(analytics);
+            }
+            problems.sort(Comparator.comparing(ProblemAnalytics::getProblemId));
+            return new ContestAnalytics(contestId, verdictsSeen, publicStatistics != null, problems);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.ProgrammingLanguage;
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Running per-problem counters of a contest, folded in verdict by verdict. Verdicts come as
+ * rows of SubmissionRepository#VERDICT_SELECT; callers re-read overlapping windows, so the
+ * IDs of recently judged verdicts are kept to count each one once. Serialized as is for
+ * checkpoints, dedupe state included.
+ */
+@Data
+@NoArgsConstructor
+final class ContestStatistics {
+
+    private Map<Long, ProblemTally> problems = new HashMap<>();
+    private Map<String, LocalDateTime> recentlyJudged = new HashMap<>();
+
+    /** Returns false for a verdict that was already counted. */
+    boolean apply(Object[] verdict) {
+        LocalDateTime judgedAt = (LocalDateTime) verdict[6];
+        if (judgedAt != null && recentlyJudged.putIfAbsent((String) verdict[0], judgedAt) != null) {
+            return false;
+        }
+        Long userId = (Long) verdict[1];
+        SubmissionStatus status = (SubmissionStatus) verdict[3];
+        LocalDateTime submittedAt = (LocalDateTime) verdict[5];
+        ProblemTally tally = problems.computeIfAbsent((Long) verdict[2], id -> new ProblemTally());
+        tally.attempts++;
+        tally.verdicts.merge(status, 1, Integer::sum);
+        if (verdict[7] != null) {
+            tally.languages.merge((ProgrammingLanguage) verdict[7], 1, Integer::sum);
+        }
+        tally.attemptedBy.add(userId);
+        if (status == SubmissionStatus.ACCEPTED) {
+            tally.accepted++;
+            tally.solvedBy.add(userId);
+            if (tally.firstSolvedAt == null || submittedAt.isBefore(tally.firstSolvedAt)) {
+                tally.firstSolverId = userId;
+                tally.firstSolvedAt = submittedAt;
+            }
+        }
+        return true;
+    }
+
+    /** Drops the IDs of verdicts judged before {@code horizon}, which will not be read again. */
+    void forget(LocalDateTime horizon) {
+        recentlyJudged.values().removeIf(judgedAt -> judgedAt.isBefore(horizon));
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class ProblemTally {
+        private int attempts;
+        private int accepted;
+        private Map<SubmissionStatus, Integer> verdicts = new EnumMap<>(SubmissionStatus.class);
+        private Map<ProgrammingLanguage, Integer> languages = new EnumMap<>(ProgrammingLanguage.class);
+        private Set<Long> attemptedBy = new HashSet<>();
+        private Set<Long> solvedBy = new HashSet<>();
+        private Long firstSolverId;
+        private LocalDateTime firstSolvedAt;
+    }
+}
@@ -0,0 +1,161 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Judge queue shared by every worker node through the submissions table.
+ * Pending rows are picked in fair-share order across users and contests and claimed with
+ * {@code FOR UPDATE SKIP LOCKED}, so concurrent workers never block on or double-claim the
+ * same row. A claim is a lease: workers renew it while judging, and rows whose lease expired
+ * (crashed worker) become claimable again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DatabaseSubmissionQueue {
+
+    private static final String QUEUED = "'" + SubmissionStatus.PENDING + "', '" + SubmissionStatus.RUNNING + "'";
+
+    /*
+     * Fair-share order, recomputed from the table on every claim so it holds across workers.
+     * Submissions claimed within the fairness window (in flight or recently judged) count as
+     * service already received. Within a contest users take turns: a user's n-th submission
+     * ranks behind everyone's (n-1)-th. Across contests the n-th slot of a contest of weight w
+     * comes at virtual time n / w.
+     */
+    private static final String SELECT_FAIR_CANDIDATES =
+            "SELECT id FROM (" +
+            "  SELECT id, submitted_at, claimable," +
+            "    ROW_NUMBER() OVER (PARTITION BY contest_id ORDER BY user_rank, claimable, served_at) * 1.0 / weight AS virtual_time" +
+            "  FROM (" +
+            "    SELECT id, submitted_at, served_at, claimable, contest_id, weight," +
+            "      ROW_NUMBER() OVER (PARTITION BY contest_id, user_id ORDER BY claimable, served_at) AS user_rank" +
+            "    FROM (" +
+            "      SELECT s.id, s.user_id, s.submitted_at, COALESCE(s.claimed_at, s.submitted_at) AS served_at," +
+            "        COALESCE(p.contest_id, 0) AS contest_id, GREATEST(COALESCE(c.judge_weight, 1), 1) AS weight," +
+            "        CASE WHEN s.status IN (" + QUEUED + ") AND (s.claimed_at IS NULL OR s.claimed_at < ?)" +
+            "          THEN 1 ELSE 0 END AS claimable" +
+            "      FROM submissions s JOIN problems p ON p.id = s.problem_id" +
+            "      LEFT JOIN contests c ON c.id = p.contest_id" +
+            "      WHERE s.status IN (" + QUEUED + ") OR s.claimed_at >= ?" +
+            "    ) recent" +
+            "  ) by_user" +
+            ") ranked " +
+            "WHERE claimable = 1 ORDER BY virtual_time, submitted_at FETCH FIRST ? ROWS ONLY";
+
+    private static final String LOCK_CLAIMABLE =
+            "SELECT id FROM submissions WHERE id = ? AND status IN (" + QUEUED + ") " +
+            "AND (claimed_at IS NULL OR claimed_at < ?) FOR UPDATE SKIP LOCKED";
+
+    // Extra candidates in case other workers hold locks on the first ones
+    private static final int CANDIDATES_PER_SLOT = 4;
+
+    private static final String CLAIM =
+            "UPDATE submissions SET status = '" + SubmissionStatus.RUNNING + "', claimed_by = ?, claimed_at = ? WHERE id = ?";
+
+    private static final String RENEW =
+            "UPDATE submissions SET claimed_at = ? WHERE id = ? AND claimed_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${judge.queue.lease:120000}")
+    private long leaseMillis;
+
+    @Value("${judge.queue.fairness-window:60000}")
+    private long fairnessWindowMillis;
+
+    @Value("${judge.worker-id:}")
+    private String workerId;
+
+    public String getWorkerId() {
+        if (workerId == null || workerId.isEmpty()) {
+            workerId = defaultWorkerId();
+        }
+        return workerId;
+    }
+
+    /**
+     * Claims up to {@code max} claimable submissions for this worker, in fair-share order.
+     */
+    public List<String> claim(int max) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp leaseCutoff = Timestamp.valueOf(now.minusNanos(leaseMillis * 1_000_000));
+        List<String> claimed = transactionTemplate.execute(status -> {
+            List<String> candidates = jdbcTemplate.queryForList(SELECT_FAIR_CANDIDATES, String.class,
+                    leaseCutoff, Timestamp.valueOf(now.minusNanos(fairnessWindowMillis * 1_000_000)),
+                    max * CANDIDATES_PER_SLOT);
+            List<String> ids = new ArrayList<>();
+            for (String candidate : candidates) {
+                if (ids.size() == max) {
+                    break;
+                }
+                // Skips rows another worker is claiming right now
+                ids.addAll(jdbcTemplate.queryForList(LOCK_CLAIMABLE, String.class, candidate, leaseCutoff));
+            }
+            if (ids.isEmpty()) {
+                return ids;
+            }
+            List<Object[]> args = new ArrayList<>();
+            for (String id : ids) {
+                args.add(new Object[]{getWorkerId(), Timestamp.valueOf(now), id});
+            }
+            jdbcTemplate.batchUpdate(CLAIM, args);
+            return ids;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return List.of();
+        }
+        inFlight.addAll(claimed);
+        log.debug("Worker {} claimed {} submissions", getWorkerId(), claimed.size());
+        return claimed;
+    }
+
+    public void done(String submissionId) {
+        inFlight.remove(submissionId);
+    }
+
+    @Scheduled(fixedDelayString = "${judge.queue.lease-renewal:30000}")
+    public void renewLeases() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (String id : inFlight) {
+            args.add(new Object[]{now, id, getWorkerId()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(RENEW, args);
+        } catch (Exception e) {
+            log.error("Failed to renew {} submission leases: {}", args.size(), e.getMessage());
+        }
+    }
+
+    private static String defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,101 @@
+package com.shodhacode.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deficit round-robin over contests, round-robin over users within a contest.
+ * Every submission costs one unit and a contest earns its weight in units per round, so
+ * a contest of weight 2 gets twice the judge slots of a contest of weight 1 while both
+ * have work. A user's waiting time depends on their own backlog and the number of other
+ * active users, not on how much anyone else has queued.
+ */
+public class FairShareQueue {
+
+    private static final long NO_CONTEST = 0L;
+
+    private final Map<Long, ContestLane> contests = new HashMap<>();
+    // Contests with pending submissions, in round order; the head is being served
+    private final Deque<ContestLane> activeContests = new ArrayDeque<>();
+    private int size;
+
+    public synchronized void offer(String submissionId, Long userId, Long contestId, int weight) {
+        Long contestKey = contestId != null ? contestId : NO_CONTEST;
+        ContestLane contest = contests.get(contestKey);
+        if (contest == null) {
+            contest = new ContestLane(contestKey);
+            contests.put(contestKey, contest);
+            activeContests.addLast(contest);
+        }
+        // The latest configured weight wins, so changes apply without a restart
+        contest.weight = Math.max(1, weight);
+        contest.offer(userId, submissionId);
+        size++;
+    }
+
+    public synchronized String poll() {
+        ContestLane contest = activeContests.peekFirst();
+        if (contest == null) {
+            return null;
+        }
+        if (contest.deficit < 1) {
+            // Start of this contest's turn
+            contest.deficit += contest.weight;
+        }
+        String submissionId = contest.poll();
+        contest.deficit--;
+        size--;
+        if (contest.isEmpty()) {
+            // An idle contest does not bank credit
+            activeContests.pollFirst();
+            contests.remove(contest.id);
+        } else if (contest.deficit < 1) {
+            activeContests.addLast(activeContests.pollFirst());
+        }
+        return submissionId;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static class ContestLane {
+        private final Long id;
+        private final Map<Long, Deque<String>> users = new HashMap<>();
+        private final Deque<Long> activeUsers = new ArrayDeque<>();
+        private int weight = 1;
+        private int deficit;
+
+        ContestLane(Long id) {
+            this.id = id;
+        }
+
+        void offer(Long userId, String submissionId) {
+            Deque<String> pending = users.get(userId);
+            if (pending == null) {
+                pending = new ArrayDeque<>();
+                users.put(userId, pending);
+                activeUsers.addLast(userId);
+            }
+            pending.addLast(submissionId);
+        }
+
+        String poll() {
+            Long userId = activeUsers.pollFirst();
+            Deque<String> pending = users.get(userId);
+            String submissionId = pending.pollFirst();
+            if (pending.isEmpty()) {
+                users.remove(userId);
+            } else {
+                activeUsers.addLast(userId);
+            }
+            return submissionId;
+        }
+
+        boolean isEmpty() {
+            return activeUsers.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ProblemResult;
+import com.shodhacode.entity.SubmissionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Standings of a contest while its scoreboard is frozen. Verdicts of submissions made before
+ * the freeze are folded into per-problem results as they are written (see ScoringRules);
+ * verdicts of later submissions are held back until {@link #resolve()} replays them.
+ *
+ * <p>Verdicts come as rows of [id, userId, problemId, status, score, submittedAt, judgedAt, ...]
+ * (SubmissionRepository#VERDICT_SELECT). Callers re-read overlapping windows, so the IDs of
+ * recently judged verdicts are kept to apply each one once.
+ */
+final class FrozenStandings {
+
+    private final Contest contest;
+    private final LocalDateTime freezeTime;
+    private final BiConsumer<ProblemResult, Long> recount;
+    private final Map<Long, Map<Long, ProblemResult>> visible = new HashMap<>();
+    private final Map<Long, LocalDateTime> lastSubmissions = new HashMap<>();
+    private final List<Object[]> held = new ArrayList<>();
+    private final Map<String, LocalDateTime> recentlyJudged = new HashMap<>();
+
+    FrozenStandings(Contest contest, BiConsumer<ProblemResult, Long> recount) {
+        this.contest = contest;
+        this.freezeTime = contest.getFreezeTime();
+        this.recount = recount;
+    }
+
+    LocalDateTime getFreezeTime() {
+        return freezeTime;
+    }
+
+    void apply(Object[] verdict) {
+        LocalDateTime judgedAt = (LocalDateTime) verdict[6];
+        if (judgedAt != null && recentlyJudged.putIfAbsent((String) verdict[0], judgedAt) != null) {
+            return;
+        }
+        if (((LocalDateTime) verdict[5]).isBefore(freezeTime)) {
+            show(verdict);
+        } else {
+            held.add(verdict);
+        }
+    }
+
+    /** Drops the IDs of verdicts judged before {@code horizon}, which will not be read again. */
+    void forget(LocalDateTime horizon) {
+        recentlyJudged.values().removeIf(judgedAt -> judgedAt.isBefore(horizon));
+    }
+
+    /** Replays the held verdicts in submission order; returns how many there were. */
+    int resolve() {
+        held.sort(Comparator.comparing(verdict -> (LocalDateTime) verdict[5]));
+        held.forEach(this::show);
+        int replayed = held.size();
+        held.clear();
+        return replayed;
+    }
+
+    ScoringRules.Totals totals(Long userId) {
+        return ScoringRules.totals(contest, visible.getOrDefault(userId, Map.of()).values());
+    }
+
+    LocalDateTime lastSubmission(Long userId) {
+        return lastSubmissions.get(userId);
+    }
+
+    /**
+     * What the held verdicts add to each user's standing once revealed, as {score, problems
+     * with a positive score}, for views outside the scoreboard that must not show it early.
+     */
+    Map<Long, int[]> heldBack() {
+        Map<Long, List<Object[]>> byUser = new HashMap<>();
+        for (Object[] verdict : held) {
+            byUser.computeIfAbsent((Long) verdict[1], id -> new ArrayList<>()).add(verdict);
+        }
+        Map<Long, int[]> heldBack = new HashMap<>();
+        byUser.forEach((userId, verdicts) -> {
+            Map<Long, ProblemResult> shown = visible.getOrDefault(userId, Map.of());
+            Map<Long, ProblemResult> revealed = new HashMap<>();
+            shown.forEach((problemId, result) -> revealed.put(problemId, copy(result)));
+            verdicts.sort(Comparator.comparing(verdict -> (LocalDateTime) verdict[5]));
+            for (Object[] verdict : verdicts) {
+                Long problemId = (Long) verdict[2];
+                ProblemResult result = revealed.computeIfAbsent(problemId, id -> new ProblemResult(null, problemId));
+                if (!ScoringRules.record(result, (SubmissionStatus) verdict[3], (Integer) verdict[4], (LocalDateTime) verdict[5])) {
+                    recount.accept(result, userId);
+                }
+            }
+            int score = ScoringRules.totals(contest, revealed.values()).getScore()
+                    - ScoringRules.totals(contest, shown.values()).getScore();
+            int solved = scored(revealed) - scored(shown);
+            if (score != 0 || solved != 0) {
+                heldBack.put(userId, new int[]{score, solved});
+            }
+        });
+        return heldBack;
+    }
+
+    private static int scored(Map<Long, ProblemResult> results) {
+        return (int) results.values().stream().filter(result -> result.getBestScore() > 0).count();
+    }
+
+    private static ProblemResult copy(ProblemResult result) {
+        ProblemResult copy = new ProblemResult(null, result.getProblemId());
+        copy.setBestScore(result.getBestScore());
+        copy.setBestScoreAt(result.getBestScoreAt());
+        copy.setAcceptedAt(result.getAcceptedAt());
+        copy.setRejectedAttempts(result.getRejectedAttempts());
+        copy.setLastRejectedAt(result.getLastRejectedAt());
+        return copy;
+    }
+
+    private void show(Object[] verdict) {
+        Long userId = (Long) verdict[1];
+        Long problemId = (Long) verdict[2];
+        LocalDateTime submittedAt = (LocalDateTime) verdict[5];
+        ProblemResult result = visible.computeIfAbsent(userId, id -> new HashMap<>())
+                .computeIfAbsent(problemId, id -> new ProblemResult(null, problemId));
+        if (!ScoringRules.record(result, (SubmissionStatus) verdict[3], (Integer) verdict[4], submittedAt)) {
+            recount.accept(result, userId);
+        }
+        lastSubmissions.merge(userId, submittedAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+}
@@ -0,0 +1,227 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.GlobalRankEntry;
+import com.shodhacode.dto.UserRank;
+import com.shodhacode.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory index of all users' global totals. A Fenwick tree over scores counts the users
+ * per score, so a rank (1 + users with a higher score) or percentile is two prefix sums;
+ * an ordered set serves the top N. Users are loaded once, then only the ones whose totals
+ * changed (users.score_updated_at, written with every change by ScoringService) are
+ * re-read, which also picks up changes made on other nodes.
+ *
+ * <p>The stored totals include verdicts that frozen scoreboards hold back; what those add
+ * (LeaderboardService#heldBack) is taken off until the scoreboard is published, so the
+ * ranking cannot be used to see through a freeze.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GlobalRankingService {
+
+    private static final Comparator<Standing> ORDER = Comparator
+            .comparingInt((Standing standing) -> standing.score).reversed()
+            .thenComparing(Comparator.comparingInt((Standing standing) -> standing.problemsSolved).reversed())
+            .thenComparing(standing -> standing.userId);
+
+    // Totals are stamped by the node that changed them and commit independently, so each poll
+    // re-reads a window before the newest change seen; re-applying one is harmless
+    private static final Duration UPDATE_OVERLAP = Duration.ofSeconds(30);
+
+    private final UserRepository userRepository;
+    private final LeaderboardService leaderboardService;
+    private final TransactionTemplate transactionTemplate;
+
+    // All guarded by this
+    // Totals as stored; standings are what is shown, less what frozen scoreboards hold back
+    private final Map<Long, Standing> stored = new HashMap<>();
+    private Map<Long, int[]> heldBack = new HashMap<>();
+    private final Map<Long, Standing> standings = new HashMap<>();
+    private final TreeSet<Standing> order = new TreeSet<>(ORDER);
+    private ScoreCounts scoreCounts = new ScoreCounts(1024);
+    private LocalDateTime updatesSeen;
+
+    public synchronized List<GlobalRankEntry> top(int limit) {
+        ensureLoaded();
+        List<GlobalRankEntry> entries = new ArrayList<>(Math.min(limit, order.size()));
+        Iterator<Standing> iterator = order.iterator();
+        while (entries.size() < limit && iterator.hasNext()) {
+            Standing standing = iterator.next();
+            entries.add(new GlobalRankEntry(rank(standing.score), standing.userId, standing.username,
+                    standing.fullName, standing.score, standing.problemsSolved));
+        }
+        return entries;
+    }
+
+    public synchronized Optional<UserRank> rankOf(Long userId) {
+        ensureLoaded();
+        Standing standing = standings.get(userId);
+        if (standing == null) {
+            return Optional.empty();
+        }
+        int total = standings.size();
+        double percentile = 100.0 * scoreCounts.atMost(standing.score - 1) / total;
+        return Optional.of(new UserRank(userId, rank(standing.score), standing.score, standing.problemsSolved,
+                total, percentile));
+    }
+
+    @Scheduled(fixedDelayString = "${ranking.refresh-interval:5000}")
+    public synchronized void refresh() {
+        if (updatesSeen == null) {
+            // Not loaded until first asked for
+            return;
+        }
+        try {
+            apply(userRepository.findTotalsUpdatedSince(updatesSeen.minus(UPDATE_OVERLAP)));
+            holdBack(leaderboardService.heldBack());
+        } catch (Exception e) {
+            log.error("Failed to refresh the global ranking: {}", e.getMessage());
+        }
+    }
+
+    /** Stamps users whose totals predate score_updated_at, so their next change is seen. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillUpdateTimes() {
+        try {
+            Integer stamped = transactionTemplate.execute(status ->
+                    userRepository.stampMissingScoreUpdates(LocalDateTime.now()));
+            if (stamped != null && stamped > 0) {
+                log.info("Stamped the score update time of {} users", stamped);
+            }
+        } catch (Exception e) {
+            log.warn("Could not stamp score update times: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (updatesSeen == null) {
+            // Taken before the read: anything committed after it is re-read by the next refresh
+            updatesSeen = LocalDateTime.now();
+            apply(userRepository.findAllTotals());
+            holdBack(leaderboardService.heldBack());
+            log.info("Loaded global ranking of {} users", standings.size());
+        }
+    }
+
+    private int rank(int score) {
+        return standings.size() - scoreCounts.atMost(score) + 1;
+    }
+
+    private void apply(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Standing standing = new Standing((Long) row[0], (String) row[1], (String) row[2],
+                    row[3] != null ? Math.max(0, (Integer) row[3]) : 0, row[4] != null ? (Integer) row[4] : 0);
+            stored.put(standing.userId, standing);
+            index(standing);
+
+            LocalDateTime updatedAt = (LocalDateTime) row[5];
+            if (updatedAt != null && updatedAt.isAfter(updatesSeen)) {
+                updatesSeen = updatedAt;
+            }
+        }
+    }
+
+    /** Re-indexes the users whose held-back totals changed. */
+    private void holdBack(Map<Long, int[]> current) {
+        Set<Long> changed = new HashSet<>(heldBack.keySet());
+        changed.addAll(current.keySet());
+        Map<Long, int[]> previous = heldBack;
+        heldBack = current;
+        for (Long userId : changed) {
+            Standing standing = stored.get(userId);
+            if (standing != null && !Arrays.equals(previous.get(userId), current.get(userId))) {
+                index(standing);
+            }
+        }
+    }
+
+    private void index(Standing storedStanding) {
+        Standing standing = storedStanding;
+        int[] held = heldBack.get(standing.userId);
+        if (held != null) {
+            standing = new Standing(standing.userId, standing.username, standing.fullName,
+                    Math.max(0, standing.score - held[0]), Math.max(0, standing.problemsSolved - held[1]));
+        }
+        Standing previous = standings.put(standing.userId, standing);
+        if (previous != null) {
+            order.remove(previous);
+            scoreCounts.add(previous.score, -1);
+        }
+        order.add(standing);
+        if (standing.score >= scoreCounts.capacity()) {
+            scoreCounts = scoreCounts.grow(standing.score);
+        }
+        scoreCounts.add(standing.score, 1);
+    }
+
+    @AllArgsConstructor
+    private static final class Standing {
+        private final Long userId;
+        private final String username;
+        private final String fullName;
+        private final int score;
+        private final int problemsSolved;
+    }
+
+    /** Fenwick tree of user counts indexed by score. */
+    private static final class ScoreCounts {
+        private final int[] tree;
+
+        ScoreCounts(int capacity) {
+            tree = new int[capacity + 1];
+        }
+
+        int capacity() {
+            return tree.length - 1;
+        }
+
+        void add(int score, int delta) {
+            for (int i = score + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /** Users with a score of at most {@code score}. */
+        int atMost(int score) {
+            int count = 0;
+            for (int i = Math.min(score + 1, capacity()); i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            return count;
+        }
+
+        ScoreCounts grow(int score) {
+            ScoreCounts grown = new ScoreCounts(Math.max(capacity() * 2, Integer.highestOneBit(score) << 1));
+            for (int value = 0; value < capacity(); value++) {
+                int count = atMost(value) - atMost(value - 1);
+                if (count != 0) {
+                    grown.add(value, count);
+                }
+            }
+            return grown;
+        }
+    }
+}
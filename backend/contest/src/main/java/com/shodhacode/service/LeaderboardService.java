@@ -0,0 +1,425 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.LeaderboardChanges;
+import com.shodhacode.dto.LeaderboardEntry;
+import com.shodhacode.dto.LeaderboardPage;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ContestParticipant;
+import com.shodhacode.entity.ScoringModel;
+import com.shodhacode.repository.ContestParticipantRepository;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves contest leaderboards from versioned snapshots. Each snapshot is built once per
+ * refresh for all clients, and its serialized forms (the full list, each page, the changes
+ * from each recent version) are computed on first request and then shared, so polling costs
+ * neither queries nor serialization. A new version is only published when the ranking
+ * actually changed; the last {@code leaderboard.history} versions are kept to answer
+ * "changes since" requests. A version is derived from the snapshot's content, so every API
+ * node holding the same ranking hands out the same version and different rankings never
+ * share one, whichever node a client's requests reach.
+ *
+ * <p>While a contest's scoreboard is frozen the public ranking comes from
+ * {@link FrozenStandings}, kept up to date from the verdicts written since the previous
+ * refresh; the live ranking keeps being maintained in contest_participants by
+ * ScoringService. At publication the held-back verdicts are replayed in one batch and the
+ * result is published as a single new version, so clients get the reveal as one change set.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    // Verdicts are stamped by the judging node and commit in batches, so each poll re-reads a
+    // window before the newest one seen (FrozenStandings applies each verdict once)
+    private static final Duration VERDICT_OVERLAP = Duration.ofSeconds(30);
+
+    private final ContestRepository contestRepository;
+    private final ContestParticipantRepository contestParticipantRepository;
+    private final SubmissionRepository submissionRepository;
+    private final ScoringService scoringService;
+    private final CatalogCacheService catalogCacheService;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+
+    @Value("${leaderboard.page-size:100}")
+    private int pageSize;
+
+    @Value("${leaderboard.history:30}")
+    private int historySize;
+
+    @Value("${leaderboard.idle-timeout:300000}")
+    private long idleTimeout;
+
+    /** The whole ranking as a JSON array, or null if the contest does not exist. */
+    public CatalogCacheService.Entry leaderboard(Long contestId) {
+        Snapshot snapshot = snapshot(contestId);
+        return snapshot == null ? null : snapshot.full();
+    }
+
+    /** One 0-based page of the current snapshot; pages past the end are empty. */
+    public CatalogCacheService.Entry page(Long contestId, int page) {
+        Snapshot snapshot = snapshot(contestId);
+        return snapshot == null ? null : snapshot.page(page);
+    }
+
+    /**
+     * Entries that differ between version {@code since} and the current snapshot. Versions
+     * that are unknown or have dropped out of the history get a response with {@code full}
+     * set, telling the client to reload the pages.
+     */
+    public CatalogCacheService.Entry changes(Long contestId, long since) {
+        Board board = board(contestId);
+        return board == null ? null : board.changes(since);
+    }
+
+    /**
+     * Per user, the {score, problems with a positive score} that currently frozen scoreboards
+     * hold back, so other views of the totals do not reveal them early.
+     */
+    public Map<Long, int[]> heldBack() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, int[]> heldBack = new HashMap<>();
+        for (Contest contest : contestRepository.findByFreezeTimeLessThanEqual(now)) {
+            if (!isFrozen(contest, now)) {
+                continue;
+            }
+            Board board = board(contest.getId());
+            if (board != null) {
+                board.current();
+                board.heldBack(heldBack);
+            }
+        }
+        return heldBack;
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.refresh-interval:2000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        boards.forEach((contestId, board) -> {
+            if (now - board.lastAccess > idleTimeout) {
+                boards.remove(contestId, board);
+                log.debug("Dropped idle leaderboard of contest {}", contestId);
+                return;
+            }
+            try {
+                board.rebuild();
+            } catch (Exception e) {
+                log.error("Failed to refresh leaderboard of contest {}: {}", contestId, e.getMessage());
+            }
+        });
+    }
+
+    private Snapshot snapshot(Long contestId) {
+        Board board = board(contestId);
+        return board == null ? null : board.current();
+    }
+
+    private Board board(Long contestId) {
+        Board board = boards.get(contestId);
+        if (board == null) {
+            if (!contestRepository.existsById(contestId)) {
+                return null;
+            }
+            board = boards.computeIfAbsent(contestId, Board::new);
+        }
+        board.lastAccess = System.currentTimeMillis();
+        return board;
+    }
+
+    /**
+     * Ranks the participants by the keys ScoringService keeps on them, in one query that the
+     * database sorts; a frozen scoreboard is ranked here by its public standings instead.
+     */
+    private List<LeaderboardEntry> rank(Contest contest, FrozenStandings frozen) {
+        ScoringModel model = ScoringRules.model(contest);
+        if (frozen != null) {
+            return rankFrozen(contest, model, frozen);
+        }
+        List<Object[]> rows = model == ScoringModel.ICPC
+                ? contestParticipantRepository.findIcpcRankingByContestId(contest.getId())
+                : contestParticipantRepository.findIoiRankingByContestId(contest.getId());
+        List<LeaderboardEntry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(entry(entries.size() + 1, (Long) row[0], (String) row[1], (String) row[2],
+                    new ScoringRules.Totals(intValue(row[3]), intValue(row[4]), intValue(row[5]), null),
+                    (LocalDateTime) row[6], model));
+        }
+        return entries;
+    }
+
+    private List<LeaderboardEntry> rankFrozen(Contest contest, ScoringModel model, FrozenStandings frozen) {
+        List<ContestParticipant> participants = contestParticipantRepository.findByContestId(contest.getId());
+        Map<Long, ScoringRules.Totals> totals = new HashMap<>();
+        for (ContestParticipant participant : participants) {
+            Long userId = participant.getUser().getId();
+            totals.put(userId, frozen.totals(userId));
+        }
+        participants.sort(Comparator
+                .comparing((ContestParticipant participant) -> totals.get(participant.getUser().getId()),
+                        ScoringRules.ranking(model))
+                // Stable order for ties, so unchanged rows do not show up as changes
+                .thenComparing(participant -> participant.getUser().getId()));
+
+        List<LeaderboardEntry> entries = new ArrayList<>(participants.size());
+        for (ContestParticipant participant : participants) {
+            Long userId = participant.getUser().getId();
+            entries.add(entry(entries.size() + 1, userId, participant.getUser().getUsername(),
+                    participant.getUser().getFullName(), totals.get(userId), frozen.lastSubmission(userId), model));
+        }
+        return entries;
+    }
+
+    private static LeaderboardEntry entry(int rank, Long userId, String username, String fullName,
+                                          ScoringRules.Totals totals, LocalDateTime lastSubmission, ScoringModel model) {
+        LeaderboardEntry entry = new LeaderboardEntry();
+        entry.setRank(rank);
+        entry.setUserId(userId);
+        entry.setUsername(username);
+        entry.setFullName(fullName);
+        entry.setScore(totals.getScore());
+        entry.setProblemsSolved(totals.getProblemsSolved());
+        if (model == ScoringModel.ICPC) {
+            entry.setPenalty(totals.getPenalty());
+        }
+        if (lastSubmission != null) {
+            entry.setLastSubmission(lastSubmission.toString());
+        }
+        return entry;
+    }
+
+    private static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    static boolean isFrozen(Contest contest, LocalDateTime now) {
+        if (contest == null || contest.getFreezeTime() == null || now.isBefore(contest.getFreezeTime())) {
+            return false;
+        }
+        LocalDateTime publishTime = contest.getPublishTime() != null ? contest.getPublishTime() : contest.getEndTime();
+        return publishTime == null || now.isBefore(publishTime);
+    }
+
+    private class Board {
+        private final Long contestId;
+        // Newest last; the current snapshot is the last element
+        private final Deque<Snapshot> history = new ArrayDeque<>();
+        private volatile Snapshot current;
+        private volatile long lastAccess = System.currentTimeMillis();
+        // Set while the scoreboard is frozen, with the judging time of the newest verdict applied
+        private FrozenStandings frozen;
+        private LocalDateTime verdictsSeen;
+
+        Board(Long contestId) {
+            this.contestId = contestId;
+        }
+
+        Snapshot current() {
+            Snapshot snapshot = current;
+            if (snapshot != null) {
+                return snapshot;
+            }
+            synchronized (this) {
+                if (current == null) {
+                    rebuild();
+                }
+                return current;
+            }
+        }
+
+        synchronized void rebuild() {
+            Contest contest = contestRepository.findById(contestId).orElse(null);
+            List<LeaderboardEntry> entries;
+            if (contest == null) {
+                // Deleted while being viewed; dropped once idle
+                entries = new ArrayList<>();
+                frozen = null;
+            } else if (isFrozen(contest, LocalDateTime.now())) {
+                if (frozen == null || !frozen.getFreezeTime().equals(contest.getFreezeTime())) {
+                    freeze(contest);
+                } else {
+                    followVerdicts();
+                }
+                entries = rank(contest, frozen);
+            } else if (frozen != null) {
+                followVerdicts();
+                int revealed = frozen.resolve();
+                entries = rank(contest, frozen);
+                log.info("Published frozen leaderboard of contest {}: {} held-back verdicts replayed", contestId, revealed);
+                frozen = null;
+            } else {
+                entries = rank(contest, null);
+            }
+
+            Snapshot previous = current;
+            boolean frozenView = frozen != null;
+            if (previous != null && previous.frozen == frozenView && previous.entries.equals(entries)) {
+                return;
+            }
+            CatalogCacheService.Entry full = catalogCacheService.serialize(entries);
+            long version = version(frozenView, full.getBody());
+            Snapshot snapshot = new Snapshot(contestId, version, frozenView, entries, full);
+            history.addLast(snapshot);
+            while (history.size() > historySize) {
+                history.removeFirst();
+            }
+            current = snapshot;
+            if (previous != null) {
+                log.debug("Leaderboard of contest {} moved to version {}", contestId, version);
+            }
+        }
+
+        /**
+         * Builds the public standings at the freeze from the judged submissions made before it,
+         * then applies the verdicts written since the freeze time.
+         */
+        private void freeze(Contest contest) {
+            frozen = new FrozenStandings(contest, scoringService::recountRejectedAttempts);
+            for (Object[] row : submissionRepository.findVerdictsByContestIdSubmittedBefore(contestId, contest.getFreezeTime())) {
+                frozen.apply(row);
+            }
+            verdictsSeen = contest.getFreezeTime();
+            followVerdicts();
+            log.info("Leaderboard of contest {} frozen at {}", contestId, contest.getFreezeTime());
+        }
+
+        private void followVerdicts() {
+            LocalDateTime since = verdictsSeen.minus(VERDICT_OVERLAP);
+            if (since.isBefore(frozen.getFreezeTime())) {
+                since = frozen.getFreezeTime();
+            }
+            for (Object[] row : submissionRepository.findVerdictsByContestIdJudgedSince(contestId, since)) {
+                frozen.apply(row);
+                LocalDateTime judgedAt = (LocalDateTime) row[6];
+                if (judgedAt.isAfter(verdictsSeen)) {
+                    verdictsSeen = judgedAt;
+                }
+            }
+            frozen.forget(verdictsSeen.minus(VERDICT_OVERLAP));
+        }
+
+        synchronized void heldBack(Map<Long, int[]> into) {
+            if (frozen == null) {
+                return;
+            }
+            frozen.heldBack().forEach((userId, held) -> into.merge(userId, held,
+                    (a, b) -> new int[]{a[0] + b[0], a[1] + b[1]}));
+        }
+
+        CatalogCacheService.Entry changes(long since) {
+            Snapshot latest = current();
+            if (since == latest.version) {
+                return latest.changesFrom(latest);
+            }
+            Snapshot base = null;
+            synchronized (this) {
+                for (Snapshot snapshot : history) {
+                    if (snapshot.version == since) {
+                        base = snapshot;
+                        break;
+                    }
+                }
+            }
+            if (base == null) {
+                return catalogCacheService.serialize(new LeaderboardChanges(contestId, since, latest.version, true,
+                        latest.frozen, latest.entries.size(), Collections.emptyList(), Collections.emptyList()));
+            }
+            return latest.changesFrom(base);
+        }
+    }
+
+    /** The first 53 bits of the SHA-256 of the ranking, so the version is exact in JavaScript. */
+    static long version(boolean frozen, byte[] entries) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((byte) (frozen ? 1 : 0));
+        return ByteBuffer.wrap(digest.digest(entries)).getLong() >>> 11;
+    }
+
+    private class Snapshot {
+        private final Long contestId;
+        private final long version;
+        private final boolean frozen;
+        private final List<LeaderboardEntry> entries;
+        private final Map<Long, LeaderboardEntry> byUser = new HashMap<>();
+        private final Map<Integer, CatalogCacheService.Entry> pages = new ConcurrentHashMap<>();
+        private final Map<Long, CatalogCacheService.Entry> changes = new ConcurrentHashMap<>();
+        private final CatalogCacheService.Entry full;
+
+        Snapshot(Long contestId, long version, boolean frozen, List<LeaderboardEntry> entries,
+                 CatalogCacheService.Entry full) {
+            this.contestId = contestId;
+            this.version = version;
+            this.frozen = frozen;
+            this.entries = Collections.unmodifiableList(entries);
+            this.full = full;
+            for (LeaderboardEntry entry : entries) {
+                byUser.put(entry.getUserId(), entry);
+            }
+        }
+
+        CatalogCacheService.Entry full() {
+            return full;
+        }
+
+        CatalogCacheService.Entry page(int page) {
+            int totalPages = (entries.size() + pageSize - 1) / pageSize;
+            if (page >= totalPages) {
+                // Not memoized, so arbitrary page numbers cannot grow the snapshot
+                return catalogCacheService.serialize(new LeaderboardPage(contestId, version, frozen, page, pageSize,
+                        totalPages, entries.size(), Collections.emptyList()));
+            }
+            return pages.computeIfAbsent(page, p -> {
+                int from = p * pageSize;
+                int to = Math.min(from + pageSize, entries.size());
+                return catalogCacheService.serialize(new LeaderboardPage(contestId, version, frozen, p, pageSize,
+                        totalPages, entries.size(), entries.subList(from, to)));
+            });
+        }
+
+        CatalogCacheService.Entry changesFrom(Snapshot base) {
+            return changes.computeIfAbsent(base.version, v -> {
+                List<LeaderboardEntry> changed = new ArrayList<>();
+                for (LeaderboardEntry entry : entries) {
+                    // Entries compare by value, rank included, so a user pushed down a place is sent too
+                    if (!entry.equals(base.byUser.get(entry.getUserId()))) {
+                        changed.add(entry);
+                    }
+                }
+                List<Long> removed = new ArrayList<>();
+                for (LeaderboardEntry entry : base.entries) {
+                    if (!byUser.containsKey(entry.getUserId())) {
+                        removed.add(entry.getUserId());
+                    }
+                }
+                return catalogCacheService.serialize(new LeaderboardChanges(contestId, base.version, version, false,
+                        frozen, entries.size(), changed, removed));
+            });
+        }
+    }
+}
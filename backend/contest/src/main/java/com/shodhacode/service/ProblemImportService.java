@@ -0,0 +1,374 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.dto.ProblemImportResult;
+import com.shodhacode.dto.ProblemSummary;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.Problem;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports problems with their test data from a zip package, streamed from the request.
+ * Each problem is a directory (at any depth) holding {@code problem.json} with the problem
+ * fields, and pairs of {@code <name>.in} / {@code <name>.out} files under {@code samples/}
+ * (visible) and {@code tests/} (hidden), run in name order (numbers by value, so {@code 2}
+ * comes before {@code 10}). Test files must be UTF-8.
+ *
+ * <p>Test files are spooled to disk as they are read, their size and hash computed on the
+ * way, and inserted in JDBC batches that stream them into the test data columns, so a
+ * package of any size is never held in memory. The whole package is imported in one
+ * transaction: a bad package leaves nothing behind.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProblemImportService {
+
+    private static final String METADATA_FILE = "problem.json";
+    private static final int MAX_METADATA_SIZE = 64 * 1024;
+    private static final int INSERT_BATCH_SIZE = 50;
+
+    private static final String INSERT_TEST_CASE =
+            "INSERT INTO test_cases (problem_id, is_hidden, time_limit, memory_limit, input, expected_output, " +
+            "input_size, expected_output_size, expected_output_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ContestRepository contestRepository;
+    private final ProblemRepository problemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Reads the package to the end and imports its problems, into the contest if one is
+     * given. Throws IllegalArgumentException for a package that is not well-formed.
+     */
+    public ProblemImportResult importPackage(InputStream in, Long contestId) throws IOException {
+        Contest contest = null;
+        if (contestId != null) {
+            contest = contestRepository.findById(contestId)
+                    .orElseThrow(() -> new IllegalArgumentException("Contest not found: " + contestId));
+        }
+
+        Path spool = Files.createTempDirectory("problem-import");
+        try {
+            Map<String, PackagedProblem> problems = read(in, spool);
+            if (problems.isEmpty()) {
+                throw new IllegalArgumentException("Package contains no " + METADATA_FILE);
+            }
+            problems.values().forEach(PackagedProblem::validate);
+
+            Contest target = contest;
+            ProblemImportResult result = transactionTemplate.execute(status -> store(problems, target));
+            log.info("Imported {} problems with {} test cases ({} bytes) into contest {}",
+                    result.getProblems().size(), result.getTestCases(), result.getBytes(), contestId);
+            return result;
+        } finally {
+            delete(spool);
+        }
+    }
+
+    private Map<String, PackagedProblem> read(InputStream in, Path spool) throws IOException {
+        Map<String, PackagedProblem> problems = new TreeMap<>();
+        ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+            String[] parts = entry.getName().replace('\\', '/').split("/");
+            String file = parts[parts.length - 1];
+            if (file.equals(METADATA_FILE)) {
+                String directory = directory(parts, parts.length - 1);
+                problems.computeIfAbsent(directory, PackagedProblem::new).metadata = readMetadata(zip, entry);
+                continue;
+            }
+            String folder = parts.length >= 2 ? parts[parts.length - 2] : "";
+            boolean hidden = folder.equals("tests");
+            boolean input = file.endsWith(".in");
+            if (!(hidden || folder.equals("samples")) || !(input || file.endsWith(".out"))) {
+                log.debug("Skipping package entry {}", entry.getName());
+                continue;
+            }
+            String name = file.substring(0, file.lastIndexOf('.'));
+            PackagedTest test = problems.computeIfAbsent(directory(parts, parts.length - 2), PackagedProblem::new)
+                    .tests.computeIfAbsent(new TestKey(hidden, name), key -> new PackagedTest(hidden, name));
+            SpooledFile spooled = spool(zip, entry, spool);
+            if (input) {
+                test.input = spooled;
+            } else {
+                test.expectedOutput = spooled;
+            }
+        }
+        return problems;
+    }
+
+    private static String directory(String[] parts, int length) {
+        return String.join("/", List.of(parts).subList(0, Math.max(length, 0)));
+    }
+
+    private Problem readMetadata(ZipInputStream zip, ZipEntry entry) throws IOException {
+        byte[] json = zip.readNBytes(MAX_METADATA_SIZE + 1);
+        if (json.length > MAX_METADATA_SIZE) {
+            throw new IllegalArgumentException(entry.getName() + " exceeds " + MAX_METADATA_SIZE + " bytes");
+        }
+        Problem problem;
+        try {
+            problem = objectMapper.readValue(json, Problem.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid " + entry.getName() + ": " + e.getOriginalMessage());
+        }
+        // Only the problem's own fields are taken from the package
+        problem.setId(null);
+        problem.setContest(null);
+        problem.setTestCases(new ArrayList<>());
+        return problem;
+    }
+
+    /** Copies the current entry to a file, hashing it on the way, and checks it is UTF-8. */
+    private static SpooledFile spool(InputStream in, ZipEntry entry, Path directory) throws IOException {
+        Path path = Files.createTempFile(directory, "test", ".dat");
+        MessageDigest digest = sha256();
+        long size;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(path), digest)) {
+            size = in.transferTo(out);
+        }
+        // The reader used to insert the file reports malformed input instead of replacing it
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            while (reader.read(buffer) >= 0) {
+                // Decoding is the check
+            }
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException(entry.getName() + " is not valid UTF-8");
+        }
+        return new SpooledFile(path, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /** Compares names by their runs of digits as numbers and by the rest as text. */
+    static int compareNames(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char x = a.charAt(i);
+            char y = b.charAt(j);
+            if (Character.isDigit(x) && Character.isDigit(y)) {
+                int endA = digitsEnd(a, i);
+                int endB = digitsEnd(b, j);
+                String digitsA = stripZeros(a.substring(i, endA));
+                String digitsB = stripZeros(b.substring(j, endB));
+                int order = digitsA.length() != digitsB.length()
+                        ? Integer.compare(digitsA.length(), digitsB.length())
+                        : digitsA.compareTo(digitsB);
+                if (order != 0) {
+                    return order;
+                }
+                i = endA;
+                j = endB;
+            } else {
+                if (x != y) {
+                    return Character.compare(x, y);
+                }
+                i++;
+                j++;
+            }
+        }
+        int order = Integer.compare(a.length() - i, b.length() - j);
+        // Names equal but for leading zeros still need an order
+        return order != 0 ? order : a.compareTo(b);
+    }
+
+    private static int digitsEnd(String name, int from) {
+        while (from < name.length() && Character.isDigit(name.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static String stripZeros(String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+
+    private ProblemImportResult store(Map<String, PackagedProblem> problems, Contest contest) {
+        List<ProblemSummary> imported = new ArrayList<>();
+        int testCases = 0;
+        long bytes = 0;
+        for (PackagedProblem packaged : problems.values()) {
+            Problem problem = packaged.metadata;
+            problem.setContest(contest);
+            problemRepository.save(problem);
+            imported.add(ProblemSummary.from(problem));
+
+            List<PackagedTest> tests = new ArrayList<>(packaged.tests.values());
+            for (int from = 0; from < tests.size(); from += INSERT_BATCH_SIZE) {
+                insert(problem, tests.subList(from, Math.min(from + INSERT_BATCH_SIZE, tests.size())));
+            }
+            for (PackagedTest test : tests) {
+                bytes += test.input.size + test.expectedOutput.size;
+            }
+            testCases += tests.size();
+        }
+        return new ProblemImportResult(imported, testCases, bytes);
+    }
+
+    private void insert(Problem problem, List<PackagedTest> batch) {
+        // Open for one batch at a time; the driver reads them while executing it
+        List<Reader> readers = new ArrayList<>();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_TEST_CASE, batch, batch.size(), (ps, test) -> {
+                Reader input = open(test.input, readers);
+                Reader expectedOutput = open(test.expectedOutput, readers);
+                ps.setLong(1, problem.getId());
+                ps.setBoolean(2, test.hidden);
+                ps.setObject(3, problem.getTimeLimit(), Types.INTEGER);
+                ps.setObject(4, problem.getMemoryLimit(), Types.INTEGER);
+                ps.setCharacterStream(5, input);
+                ps.setCharacterStream(6, expectedOutput);
+                ps.setLong(7, test.input.size);
+                ps.setLong(8, test.expectedOutput.size);
+                ps.setString(9, test.expectedOutput.sha256);
+            });
+        } finally {
+            for (Reader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close spooled test file: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Reader open(SpooledFile file, List<Reader> readers) {
+        try {
+            Reader reader = Files.newBufferedReader(file.path, StandardCharsets.UTF_8);
+            readers.add(reader);
+            return reader;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path spool) {
+        try (Stream<Path> paths = Files.walk(spool)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to delete import spool {}: {}", spool, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PackagedProblem {
+        private final String directory;
+        private Problem metadata;
+        // Samples first, then hidden tests, each by name
+        private final Map<TestKey, PackagedTest> tests = new TreeMap<>();
+
+        PackagedProblem(String directory) {
+            this.directory = directory;
+        }
+
+        void validate() {
+            String label = directory.isEmpty() ? "package root" : directory;
+            if (metadata == null) {
+                throw new IllegalArgumentException("Missing " + METADATA_FILE + " in " + label);
+            }
+            if (metadata.getTitle() == null || metadata.getTitle().isBlank()) {
+                throw new IllegalArgumentException("Missing title in " + label);
+            }
+            if (tests.isEmpty()) {
+                throw new IllegalArgumentException("No test cases in " + label);
+            }
+            for (PackagedTest test : tests.values()) {
+                if (test.input == null || test.expectedOutput == null) {
+                    throw new IllegalArgumentException("Test " + test.name + " in " + label + " needs both .in and .out");
+                }
+            }
+        }
+    }
+
+    private static class TestKey implements Comparable<TestKey> {
+        private final boolean hidden;
+        private final String name;
+
+        TestKey(boolean hidden, String name) {
+            this.hidden = hidden;
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(TestKey other) {
+            return hidden != other.hidden ? Boolean.compare(hidden, other.hidden) : compareNames(name, other.name);
+        }
+    }
+
+    private static class PackagedTest {
+        private final boolean hidden;
+        private final String name;
+        private SpooledFile input;
+        private SpooledFile expectedOutput;
+
+        PackagedTest(boolean hidden, String name) {
+            this.hidden = hidden;
+            this.name = name;
+        }
+    }
+
+    private static class SpooledFile {
+        private final Path path;
+        private final long size;
+        private final String sha256;
+
+        SpooledFile(Path path, long size, String sha256) {
+            this.path = path;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+    }
+}
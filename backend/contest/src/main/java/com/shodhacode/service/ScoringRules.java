@@ -0,0 +1,129 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ContestParticipant;
+import com.shodhacode.entity.ProblemResult;
+import com.shodhacode.entity.ScoringModel;
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * How judged submissions turn into standings under each {@link ScoringModel}: folding a
+ * verdict into a participant's {@link ProblemResult}, summing the results into the ranking
+ * keys, and ordering by them. Used for the stored standings (ScoringService) and for the
+ * public view of a frozen scoreboard (FrozenStandings).
+ */
+final class ScoringRules {
+
+    static final int DEFAULT_PENALTY_MINUTES = 20;
+
+    private ScoringRules() {
+    }
+
+    static ScoringModel model(Contest contest) {
+        return contest != null && contest.getScoringModel() != null ? contest.getScoringModel() : ScoringModel.IOI;
+    }
+
+    // Attempts that cost an ICPC penalty once the problem is solved; compilation errors do not
+    static boolean isRejected(SubmissionStatus status) {
+        return status == SubmissionStatus.PARTIALLY_ACCEPTED
+                || status == SubmissionStatus.WRONG_ANSWER
+                || status == SubmissionStatus.RUNTIME_ERROR
+                || status == SubmissionStatus.TIME_LIMIT_EXCEEDED;
+    }
+
+    /**
+     * Folds one judged submission into the result; verdicts may arrive in any order. Returns
+     * false when an acceptance arrived that is earlier than rejections already counted, in
+     * which case the caller recounts the rejected attempts before {@code acceptedAt}.
+     */
+    static boolean record(ProblemResult result, SubmissionStatus status, Integer score, LocalDateTime submittedAt) {
+        int value = score != null ? score : 0;
+        if (value > 0 && (value > result.getBestScore()
+                || (value == result.getBestScore() && (result.getBestScoreAt() == null || submittedAt.isBefore(result.getBestScoreAt()))))) {
+            result.setBestScore(value);
+            result.setBestScoreAt(submittedAt);
+        }
+
+        LocalDateTime acceptedAt = result.getAcceptedAt();
+        if (status == SubmissionStatus.ACCEPTED) {
+            if (acceptedAt == null || submittedAt.isBefore(acceptedAt)) {
+                result.setAcceptedAt(submittedAt);
+                return result.getLastRejectedAt() == null || result.getLastRejectedAt().isBefore(submittedAt);
+            }
+        } else if (isRejected(status) && (acceptedAt == null || submittedAt.isBefore(acceptedAt))) {
+            result.setRejectedAttempts(result.getRejectedAttempts() + 1);
+            if (result.getLastRejectedAt() == null || submittedAt.isAfter(result.getLastRejectedAt())) {
+                result.setLastRejectedAt(submittedAt);
+            }
+        }
+        return true;
+    }
+
+    static Totals totals(Contest contest, Collection<ProblemResult> results) {
+        boolean icpc = model(contest) == ScoringModel.ICPC;
+        int penaltyMinutes = contest.getPenaltyMinutes() != null ? contest.getPenaltyMinutes() : DEFAULT_PENALTY_MINUTES;
+        Totals totals = new Totals(0, 0, 0, null);
+        for (ProblemResult result : results) {
+            LocalDateTime scoredAt;
+            if (icpc) {
+                if (result.getAcceptedAt() == null) {
+                    continue;
+                }
+                scoredAt = result.getAcceptedAt();
+                totals.penalty += minutesSinceStart(contest, scoredAt) + penaltyMinutes * result.getRejectedAttempts();
+            } else {
+                if (result.getBestScore() <= 0) {
+                    continue;
+                }
+                scoredAt = result.getBestScoreAt();
+            }
+            totals.score += result.getBestScore();
+            totals.problemsSolved++;
+            if (scoredAt != null && (totals.lastScoredAt == null || scoredAt.isAfter(totals.lastScoredAt))) {
+                totals.lastScoredAt = scoredAt;
+            }
+        }
+        return totals;
+    }
+
+    /** Best first; ties that remain are broken by the caller (user ID). */
+    static Comparator<Totals> ranking(ScoringModel model) {
+        Comparator<Totals> primary = model == ScoringModel.ICPC
+                ? Comparator.comparingInt(Totals::getProblemsSolved).reversed()
+                        .thenComparingInt(Totals::getPenalty)
+                : Comparator.comparingInt(Totals::getScore).reversed()
+                        .thenComparing(Comparator.comparingInt(Totals::getProblemsSolved).reversed());
+        return primary.thenComparing(Totals::getLastScoredAt, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static long minutesSinceStart(Contest contest, LocalDateTime time) {
+        if (contest.getStartTime() == null || time.isBefore(contest.getStartTime())) {
+            return 0;
+        }
+        return Duration.between(contest.getStartTime(), time).toMinutes();
+    }
+
+    /** A participant's ranking keys, as stored on ContestParticipant. */
+    @Data
+    @AllArgsConstructor
+    static class Totals {
+        private int score;
+        private int problemsSolved;
+        private int penalty;
+        private LocalDateTime lastScoredAt;
+
+        void applyTo(ContestParticipant participant) {
+            participant.setScore(score);
+            participant.setProblemsSolved(problemsSolved);
+            participant.setPenalty(penalty);
+            participant.setLastScoredAt(lastScoredAt);
+        }
+    }
+}
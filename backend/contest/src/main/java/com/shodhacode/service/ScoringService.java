@@ -0,0 +1,185 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeVerdict;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ContestParticipant;
+import com.shodhacode.entity.ProblemResult;
+import com.shodhacode.entity.SubmissionStatus;
+import com.shodhacode.repository.ContestParticipantRepository;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemResultRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import com.shodhacode.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains contest standings once a verdict is durable. Each verdict is folded into the
+ * participant's result on that problem (see ScoringRules), and the participant's ranking
+ * keys are summed from those results, so no submissions are aggregated; the user's global
+ * totals move by the difference. Verdicts of one participant are applied under a lock on
+ * the participant row, also across judge nodes. Rejected attempts are counted from the
+ * submissions, so a verdict delivered twice (a retried write, a re-judged submission)
+ * counts once.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ScoringService {
+
+    private final SubmissionRepository submissionRepository;
+    private final ContestRepository contestRepository;
+    private final ContestParticipantRepository contestParticipantRepository;
+    private final ProblemResultRepository problemResultRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Decided before any verdict can be scored; see backfillResults
+    private volatile boolean backfillNeeded;
+
+    public void applyVerdict(JudgeVerdict verdict) {
+        if (!verdict.isContestAttempt()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> record(verdict));
+        } catch (Exception e) {
+            log.error("Failed to update contest participant score: {}", e.getMessage());
+            // Don't fail the submission if score update fails
+        }
+    }
+
+    /**
+     * Sets the rejected attempts before the acceptance (all of them while unsolved) from the
+     * submissions themselves, for results whose verdicts arrived out of order or more than
+     * once (see ScoringRules#record).
+     */
+    public void recountRejectedAttempts(ProblemResult result, Long userId) {
+        List<Object[]> rows = result.getAcceptedAt() != null
+                ? submissionRepository.countRejectedAttemptsBefore(userId, result.getProblemId(), result.getAcceptedAt())
+                : submissionRepository.countRejectedAttempts(userId, result.getProblemId());
+        Object[] row = rows.get(0);
+        result.setRejectedAttempts(((Number) row[0]).intValue());
+        result.setLastRejectedAt((LocalDateTime) row[1]);
+    }
+
+    private void record(JudgeVerdict verdict) {
+        ContestParticipant participant = contestParticipantRepository
+                .findForUpdate(verdict.getUserId(), verdict.getContestId()).orElse(null);
+        if (participant == null) {
+            return;
+        }
+        ProblemResult result = problemResultRepository
+                .findByParticipantIdAndProblemId(participant.getId(), verdict.getProblemId())
+                .orElseGet(() -> new ProblemResult(participant.getId(), verdict.getProblemId()));
+        int previousBest = result.getBestScore();
+        boolean inOrder = ScoringRules.record(result, verdict.getStatus(), verdict.getScore(), verdict.getSubmittedAt());
+        // The verdict is committed, so the count includes it exactly once
+        if (!inOrder || ScoringRules.isRejected(verdict.getStatus())) {
+            recountRejectedAttempts(result, verdict.getUserId());
+        }
+        problemResultRepository.save(result);
+
+        if (participant.getLastSubmittedAt() == null || verdict.getSubmittedAt().isAfter(participant.getLastSubmittedAt())) {
+            participant.setLastSubmittedAt(verdict.getSubmittedAt());
+        }
+        int previousScore = participant.getScore() != null ? participant.getScore() : 0;
+        ScoringRules.Totals totals = ScoringRules.totals(participant.getContest(),
+                problemResultRepository.findByParticipantId(participant.getId()));
+        totals.applyTo(participant);
+        contestParticipantRepository.save(participant);
+
+        log.info("Updated contest participant standing: User {} in Contest {} - Score: {}, Problems: {}, Penalty: {}",
+                verdict.getUserId(), verdict.getContestId(), totals.getScore(), totals.getProblemsSolved(), totals.getPenalty());
+
+        // Global totals move by the difference, in the same transaction
+        int scoreDelta = totals.getScore() - previousScore;
+        int solvedDelta = previousBest == 0 && result.getBestScore() > 0 ? 1 : 0;
+        if (scoreDelta != 0 || solvedDelta != 0) {
+            userRepository.addToTotals(verdict.getUserId(), scoreDelta, solvedDelta, LocalDateTime.now());
+        }
+    }
+
+    /** Runs before the judge workers start, so no live verdict can have written a result yet. */
+    @PostConstruct
+    public void checkResults() {
+        backfillNeeded = problemResultRepository.count() == 0;
+    }
+
+    /**
+     * Builds the per-problem results of databases that predate them by replaying each
+     * participant's judged submissions in order. Only runs if no results existed at startup.
+     * Each participant is rebuilt under the same row lock as live scoring, from everything
+     * committed by then, so a verdict scored before or after is neither lost nor counted
+     * twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillResults() {
+        if (!backfillNeeded) {
+            return;
+        }
+        backfillNeeded = false;
+        int participants = 0;
+        for (Contest contest : contestRepository.findAll()) {
+            Set<Long> userIds = new HashSet<>();
+            for (Object[] row : submissionRepository.findVerdictsByContestIdSubmittedBefore(contest.getId(), LocalDateTime.now())) {
+                userIds.add((Long) row[1]);
+            }
+            for (Long userId : userIds) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> backfill(contest, userId)))) {
+                        participants++;
+                    }
+                } catch (Exception e) {
+                    // Another node may be doing the same; its results are just as good
+                    log.warn("Could not backfill results of user {} in contest {}: {}", userId, contest.getId(), e.getMessage());
+                }
+            }
+        }
+        if (participants > 0) {
+            log.info("Backfilled problem results of {} contest participants", participants);
+        }
+    }
+
+    private boolean backfill(Contest contest, Long userId) {
+        ContestParticipant participant = contestParticipantRepository.findForUpdate(userId, contest.getId()).orElse(null);
+        if (participant == null) {
+            return false;
+        }
+        Map<Long, ProblemResult> results = new HashMap<>();
+        for (ProblemResult existing : problemResultRepository.findByParticipantId(participant.getId())) {
+            // Replaced by the replay below, which covers the verdict it was built from
+            existing.setBestScore(0);
+            existing.setBestScoreAt(null);
+            existing.setAcceptedAt(null);
+            existing.setRejectedAttempts(0);
+            existing.setLastRejectedAt(null);
+            results.put(existing.getProblemId(), existing);
+        }
+        LocalDateTime lastSubmittedAt = null;
+        for (Object[] row : submissionRepository.findVerdictsByContestIdAndUserId(contest.getId(), userId)) {
+            Long problemId = (Long) row[2];
+            lastSubmittedAt = (LocalDateTime) row[5];
+            // In submission order, so no recount is ever needed
+            ScoringRules.record(results.computeIfAbsent(problemId, id -> new ProblemResult(participant.getId(), problemId)),
+                    (SubmissionStatus) row[3], (Integer) row[4], lastSubmittedAt);
+        }
+        problemResultRepository.saveAll(results.values());
+        ScoringRules.totals(contest, results.values()).applyTo(participant);
+        participant.setLastSubmittedAt(lastSubmittedAt);
+        contestParticipantRepository.save(participant);
+        return true;
+    }
+}
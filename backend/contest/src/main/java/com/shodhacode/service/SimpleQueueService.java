@@ -1,60 +1,76 @@
 package com.shodhacode.service;
 
+import com.shodhacode.config.NodeRole;
 import com.shodhacode.constants.ApplicationConstants;
-import com.shodhacode.entity.SubmissionStatus;
+import com.shodhacode.repository.SourceBlobRepository;
 import com.shodhacode.repository.SubmissionRepository;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.List;
+import java.util.concurrent.Semaphore;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class SimpleQueueService {
 
-    private final Queue<String> submissionQueue = new ConcurrentLinkedQueue<>();
+    // Fair share across users and contests instead of FIFO (see FairShareQueue)
+    private final FairShareQueue submissionQueue = new FairShareQueue();
     private final SubmissionRepository submissionRepository;
+    private final SourceBlobRepository sourceBlobRepository;
     private final CodeExecutorService codeExecutorService;
+    private final DatabaseSubmissionQueue databaseSubmissionQueue;
+    private final VerdictWriter verdictWriter;
+    private final ContestAccessCache contestAccessCache;
 
-    // Thread pool for parallel submission processing
-    private ExecutorService executorService;
+    // Judge workers for parallel submission processing (see AsyncConfig)
+    private final TaskExecutor judgeExecutor;
     private volatile boolean running = true;
+    private Semaphore workerSlots;
+
+    @Value("${app.role:all}")
+    private NodeRole role;
+
+    // memory (single process) or database (shared by API and worker nodes)
+    @Value("${judge.queue.mode:memory}")
+    private String queueMode;
+
+    @Value("${judge.queue.poll-interval:500}")
+    private long databasePollInterval;
+
+    @Value("${judge.workers:4}")
+    private int judgeWorkers;
 
     @PostConstruct
     public void startProcessing() {
         log.info("==================================================");
         log.info("Starting SimpleQueueService");
-        log.info("Creating thread pool with 4 worker threads");
 
-        // Create thread pool with 4 worker threads for parallel execution
-        executorService = Executors.newFixedThreadPool(4);
+        if (!role.runsJudge()) {
+            log.info("Node role {}: submissions are judged by worker nodes", role);
+            log.info("==================================================");
+            return;
+        }
+        boolean databaseQueue = useDatabaseQueue();
+        workerSlots = new Semaphore(judgeWorkers);
+        if (databaseQueue) {
+            log.info("Claiming submissions from the database queue as worker {}", databaseSubmissionQueue.getWorkerId());
+        }
 
         // Main queue processor thread
         Thread processor = new Thread(() -> {
             log.info("Queue processor thread started");
             while (running) {
                 try {
-                    String submissionId = submissionQueue.poll();
-                    if (submissionId != null) {
-                        log.debug("Dequeued submission {} for processing", submissionId);
-                        // Submit to thread pool for async execution
-                        executorService.submit(() -> {
-                            log.debug("Worker thread picked up submission {}", submissionId);
-                            try {
-                                processSubmission(submissionId);
-                            } catch (Exception e) {
-                                log.error("Error processing submission {}: {}", submissionId, e.getMessage(), e);
-                            }
-                        });
+                    if (databaseQueue) {
+                        pollDatabase();
                     } else {
-                        // Queue is empty, wait before checking again
-                        Thread.sleep(ApplicationConstants.QUEUE_PROCESSING_DELAY);
+                        pollMemory();
                     }
                 } catch (InterruptedException e) {
                     log.info("Queue processor interrupted");
@@ -68,50 +84,108 @@ public void startProcessing() {
         });
         processor.setDaemon(true);
         processor.start();
-        log.info("✓ Queue processor started successfully with 4 worker threads");
+        log.info("✓ Queue processor started successfully");
         log.info("==================================================");
     }
 
-    @PreDestroy
-    public void shutdown() {
-        log.info("Shutting down SimpleQueueService...");
-        running = false;
+    private void pollMemory() throws InterruptedException {
+        // Dequeue only for a free worker, so the fair order is not lost in the executor's FIFO
+        workerSlots.acquire();
+        String submissionId = submissionQueue.poll();
+        if (submissionId != null) {
+            log.debug("Dequeued submission {} for processing", submissionId);
+            dispatch(submissionId, () -> {
+                workerSlots.release();
+                // Nothing else would pick up a submission whose verdict could not be written
+                verdictWriter.whenWritten(submissionId, written -> {
+                    if (!written) {
+                        requeue(submissionId);
+                    }
+                });
+            });
+        } else {
+            workerSlots.release();
+            // Queue is empty, wait before checking again
+            Thread.sleep(ApplicationConstants.QUEUE_PROCESSING_DELAY);
+        }
+    }
 
-        if (executorService != null) {
-            executorService.shutdown();
-            log.info("Executor service shutdown initiated");
+    private void pollDatabase() throws InterruptedException {
+        // Only claim what the local workers can start now; the rest stays claimable by other nodes
+        int free = workerSlots.availablePermits();
+        List<String> claimed = free > 0 ? databaseSubmissionQueue.claim(free) : List.of();
+        if (claimed.isEmpty()) {
+            Thread.sleep(databasePollInterval);
+            return;
+        }
+        for (String submissionId : claimed) {
+            workerSlots.acquire();
+            dispatch(submissionId, () -> {
+                workerSlots.release();
+                // The lease is kept renewed until the verdict commits; if it never does, the
+                // lease runs out and another worker judges the submission again
+                verdictWriter.whenWritten(submissionId, written -> databaseSubmissionQueue.done(submissionId));
+            });
+        }
+    }
 
+    private void dispatch(String submissionId, Runnable onDone) {
+        // Hand off to a judge worker for async execution
+        judgeExecutor.execute(() -> {
+            log.debug("Worker thread picked up submission {}", submissionId);
             try {
-                if (!executorService.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS)) {
-                    log.warn("Executor service did not terminate in 5 seconds, forcing shutdown");
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                log.error("Interrupted while waiting for executor shutdown");
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
+                processSubmission(submissionId);
+            } catch (Exception e) {
+                log.error("Error processing submission {}: {}", submissionId, e.getMessage(), e);
+            } finally {
+                onDone.run();
             }
-        }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down SimpleQueueService...");
+        running = false;
 
+        // Judge workers are drained by the executor bean's own shutdown
         log.info("Queue size at shutdown: {} submissions pending", submissionQueue.size());
         log.info("SimpleQueueService shut down complete");
     }
 
-    public void addToQueue(String submissionId) {
-        boolean added = submissionQueue.offer(submissionId);
-        if (added) {
-            log.info("✓ Added submission {} to queue. Current queue size: {}",
-                    submissionId.substring(0, Math.min(8, submissionId.length())),
-                    submissionQueue.size());
-        } else {
-            log.error("✗ Failed to add submission {} to queue", submissionId);
+    public void addToQueue(String submissionId, Long userId, Long contestId, int contestWeight) {
+        if (useDatabaseQueue()) {
+            // The PENDING row is the queue entry; a worker node will claim it
+            log.info("✓ Submission {} pending in the database queue",
+                    submissionId.substring(0, Math.min(8, submissionId.length())));
+            return;
         }
+        submissionQueue.offer(submissionId, userId, contestId, contestWeight);
+        log.info("✓ Added submission {} to queue. Current queue size: {}",
+                submissionId.substring(0, Math.min(8, submissionId.length())),
+                submissionQueue.size());
+    }
+
+    private void requeue(String submissionId) {
+        submissionRepository.findWithUserAndProblemById(submissionId).ifPresent(submission -> {
+            Long problemId = submission.getProblem().getId();
+            ContestAccessCache.ContestAccess contest = contestAccessCache.forProblem(problemId).orElse(null);
+            Long contestId = contest != null ? contest.getId() : null;
+            int weight = contest != null && contest.getJudgeWeight() != null ? contest.getJudgeWeight() : 1;
+            log.warn("Judging submission {} again: its verdict could not be written", submissionId);
+            submissionQueue.offer(submissionId, submission.getUser().getId(), contestId, weight);
+        });
+    }
+
+    private boolean useDatabaseQueue() {
+        // Split roles only make sense with a shared queue
+        return role != NodeRole.ALL || "database".equalsIgnoreCase(queueMode);
     }
 
     private void processSubmission(String submissionId) {
         log.info("Starting to process submission {}", submissionId.substring(0, Math.min(8, submissionId.length())));
 
-        submissionRepository.findById(submissionId).ifPresentOrElse(
+        submissionRepository.findWithUserAndProblemById(submissionId).ifPresentOrElse(
             submission -> {
                 log.info("Found submission {} - User: {}, Problem: {}, Language: {}",
                         submission.getId().substring(0, Math.min(8, submission.getId().length())),
@@ -119,12 +193,16 @@ private void processSubmission(String submissionId) {
                         submission.getProblem() != null ? submission.getProblem().getTitle() : "unknown",
                         submission.getLanguage());
 
-                // Update status to RUNNING
-                submission.setStatus(SubmissionStatus.RUNNING);
-                submissionRepository.save(submission);
-                log.debug("Updated submission {} status to RUNNING", submissionId.substring(0, Math.min(8, submissionId.length())));
+                String code = sourceBlobRepository.findCodeBySubmissionId(submissionId).orElse(null);
+                if (code == null) {
+                    // Not the user's code at fault: reported like other system errors, never judged empty
+                    log.error("✗ Source of submission {} is missing from the blob store", submissionId);
+                    codeExecutorService.failInternally(submission, "Submission source not found. Please contact administrator.");
+                    return;
+                }
+                submission.setCode(code);
 
-                // Execute the code
+                // Execute the code (RUNNING is tracked in memory, not written)
                 codeExecutorService.executeCode(submission);
 
                 log.info("✓ Completed processing submission {}",
@@ -0,0 +1,156 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.CompressedTextConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Content-addressed store for submission source. Each distinct source is kept once in
+ * source_blobs under its SHA-256 with a count of the submissions referencing it; identical
+ * resubmissions, and a run followed by a submit of the same code, only add a reference.
+ * Callers run {@link #retain} in the transaction that inserts the referencing rows.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SourceStore {
+
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    // Adds references, inserting the blob the first time its content is seen
+    private static final String RETAIN =
+            "MERGE INTO source_blobs b " +
+            "USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS INTEGER), CAST(? AS VARBINARY(32768)))) AS v(hash, refs, code) " +
+            "ON b.hash = v.hash " +
+            "WHEN MATCHED THEN UPDATE SET ref_count = b.ref_count + v.refs " +
+            "WHEN NOT MATCHED THEN INSERT (hash, ref_count, code) VALUES (v.hash, v.refs, v.code)";
+
+    // Drops references, deleting the blob with its last one; one statement, so a concurrent
+    // retain of the same source either comes first (and keeps it) or inserts it anew
+    private static final String RELEASE =
+            "MERGE INTO source_blobs b " +
+            "USING (VALUES (CAST(? AS VARCHAR(64)), CAST(? AS INTEGER))) AS v(hash, refs) " +
+            "ON b.hash = v.hash " +
+            "WHEN MATCHED AND b.ref_count <= v.refs THEN DELETE " +
+            "WHEN MATCHED THEN UPDATE SET ref_count = b.ref_count - v.refs";
+
+    // Source stored before the blob store: inline in submissions, then compressed in submission_contents
+    private static final String SELECT_INLINE_SOURCES =
+            "SELECT id, code FROM submissions WHERE source_hash IS NULL AND code IS NOT NULL " +
+            "FETCH FIRST " + MIGRATION_BATCH_SIZE + " ROWS ONLY";
+
+    private static final String SELECT_CONTENT_SOURCES =
+            "SELECT c.submission_id, c.code FROM submission_contents c JOIN submissions s ON s.id = c.submission_id " +
+            "WHERE s.source_hash IS NULL AND c.code IS NOT NULL FETCH FIRST " + MIGRATION_BATCH_SIZE + " ROWS ONLY";
+
+    // Guarded, so nodes migrating at the same time count each submission once
+    private static final String SET_SOURCE_HASH =
+            "UPDATE submissions SET source_hash = ? WHERE id = ? AND source_hash IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public static String hash(String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(code.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Adds one reference per source, storing each distinct source the first time it is seen. */
+    public void retain(Collection<String> codes) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        Map<String, Integer> references = new LinkedHashMap<>();
+        for (String code : codes) {
+            String hash = hash(code);
+            sources.putIfAbsent(hash, code);
+            references.merge(hash, 1, Integer::sum);
+        }
+        List<Object[]> rows = new ArrayList<>();
+        // Compressed once per distinct source; already stored ones only have their count raised
+        sources.forEach((hash, code) -> rows.add(new Object[]{hash, references.get(hash), CompressedTextConverter.compress(code)}));
+        jdbcTemplate.batchUpdate(RETAIN, rows);
+    }
+
+    /** Drops one reference per hash; sources nothing refers to any more are deleted. */
+    public void release(Collection<String> hashes) {
+        Map<String, Integer> references = new LinkedHashMap<>();
+        for (String hash : hashes) {
+            if (hash != null) {
+                references.merge(hash, 1, Integer::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>();
+        references.forEach((hash, count) -> rows.add(new Object[]{hash, count}));
+        jdbcTemplate.batchUpdate(RELEASE, rows);
+    }
+
+    /**
+     * Moves source stored by earlier versions into the blob store. Only runs when the old
+     * columns are still in the schema (kept by {@code ddl-auto: update}); they can be
+     * dropped once this has logged completion on every database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacySources() {
+        if (hasColumn("submissions", "code")) {
+            migrate(SELECT_INLINE_SOURCES, "submissions", "id", value -> (String) value);
+        }
+        if (hasColumn("submission_contents", "code")) {
+            migrate(SELECT_CONTENT_SOURCES, "submission_contents", "submission_id",
+                    value -> CompressedTextConverter.decompress((byte[]) value));
+        }
+    }
+
+    private void migrate(String select, String table, String idColumn, Function<Object, String> decode) {
+        String clearLegacy = "UPDATE " + table + " SET code = NULL WHERE " + idColumn + " = ?";
+        int migrated = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> {
+                List<Object[]> rows = jdbcTemplate.query(select, (rs, i) -> new Object[]{rs.getString(1), rs.getObject(2)});
+                List<String> codes = new ArrayList<>();
+                for (Object[] row : rows) {
+                    String code = decode.apply(row[1]);
+                    if (jdbcTemplate.update(SET_SOURCE_HASH, hash(code), row[0]) == 1) {
+                        codes.add(code);
+                    }
+                    jdbcTemplate.update(clearLegacy, row[0]);
+                }
+                retain(codes);
+                return rows.size();
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            migrated += count;
+            log.info("Moved {} sources from {} into the blob store", migrated, table);
+        }
+        if (migrated > 0) {
+            log.info("Source migration from {}.code complete; the column can be dropped", table);
+        }
+    }
+
+    private boolean hasColumn(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE LOWER(table_name) = ? AND LOWER(column_name) = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,580 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.dto.SubmissionResult;
+import com.shodhacode.dto.SubmissionSource;
+import com.shodhacode.entity.ProgrammingLanguage;
+import com.shodhacode.entity.SubmissionStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Accepts runs and submissions without waiting for the database. Each one gets its ID up
+ * front and is appended to a local log; concurrent appends share one fsync (group commit)
+ * and the request is acknowledged once its record is on disk. A scheduled flush then inserts
+ * the accepted rows in batches and queues them for judging. Records still in the log when
+ * the process starts are inserted again, so nothing that was acknowledged is lost, and a
+ * request that fails is never logged, so nothing the client was told to retry is judged twice.
+ *
+ * <p>IDs are time-ordered, so a node that did not accept a submission can still tell a recent
+ * ID (pending on another node) from an unknown one.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SubmissionIngestor {
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final String LOG_FILE = "submissions.log";
+    // Record frame: payload length, CRC32 of the payload, JSON payload
+    private static final int FRAME_HEADER = 8;
+    private static final long APPEND_TIMEOUT_MS = 5000;
+    private static final Set<PosixFilePermission> PRIVATE_DIR = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> PRIVATE_FILE = PosixFilePermissions.fromString("rw-------");
+    private static final int WAITING = 0;
+    private static final int CLAIMED = 1;
+    private static final int CANCELLED = 2;
+
+    private static final String INSERT_SUBMISSION =
+            "INSERT INTO submissions (id, user_id, problem_id, status, language, score, test_cases_passed, " +
+            "total_test_cases, submitted_at, is_test_run, source_hash) VALUES (?, ?, ?, ?, ?, 0, 0, 0, ?, ?, ?)";
+
+    // Holds the output once judged; the source goes to the blob store
+    private static final String INSERT_CONTENT =
+            "INSERT INTO submission_contents (submission_id) VALUES (?)";
+
+    private static final String SELECT_STATUS = "SELECT status FROM submissions WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SimpleQueueService queueService;
+    private final SourceStore sourceStore;
+
+    @Value("${judge.ingest.enabled:true}")
+    private boolean enabled;
+
+    // Must outlive the process (and container); without it submissions are inserted synchronously
+    @Value("${judge.ingest.log-dir:}")
+    private String logDir;
+
+    // How long another node may still be inserting a submission it accepted
+    @Value("${judge.ingest.remote-pending-window:120000}")
+    private long remotePendingWindow;
+
+    // A recreated schema no longer has the rows the logged submissions refer to
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto;
+
+    // The log is emptied once everything in it is in the database, when idle or past this size
+    @Value("${judge.ingest.max-log-size-mb:64}")
+    private long maxLogSizeMb;
+
+    private final BlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    // Durable in the log, not yet inserted
+    private final BlockingQueue<Accepted> unwritten = new LinkedBlockingQueue<>();
+    private final Map<String, Accepted> pending = new ConcurrentHashMap<>();
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+
+    private FileChannel logFile;
+    private FileLock logFileLock;
+    private Thread logWriter;
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (logDir == null || logDir.isBlank()) {
+            log.warn("judge.ingest.log-dir is not set; accepting submissions synchronously");
+            return;
+        }
+        Path file = Paths.get(logDir, LOG_FILE);
+        try {
+            // Holds contestants' source code
+            Files.createDirectories(file.getParent(), PosixFilePermissions.asFileAttribute(PRIVATE_DIR));
+            Files.setPosixFilePermissions(file.getParent(), PRIVATE_DIR);
+            logFile = FileChannel.open(file, Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE), PosixFilePermissions.asFileAttribute(PRIVATE_FILE));
+            Files.setPosixFilePermissions(file, PRIVATE_FILE);
+            logFileLock = logFile.tryLock();
+            if (logFileLock == null) {
+                throw new IOException("in use by another process");
+            }
+            recover();
+        } catch (IOException e) {
+            // Still correct, only slower: every request waits for its own insert
+            log.error("Submission log {} unusable ({}); accepting submissions synchronously", file, e.getMessage());
+            closeLog();
+            return;
+        }
+        logWriter = new Thread(this::writeLog, "submission-log");
+        logWriter.setDaemon(true);
+        logWriter.start();
+        log.info("Submissions are acknowledged from the log at {} and inserted in batches", file);
+    }
+
+    /** Makes the submission durable and returns its ID; it is judged once inserted. */
+    public String accept(Long userId, Long problemId, ProgrammingLanguage language, String code,
+                         boolean testRun, Long contestId, int contestWeight) {
+        Accepted submission = new Accepted();
+        submission.setId(newId());
+        submission.setUserId(userId);
+        submission.setProblemId(problemId);
+        submission.setLanguage(language);
+        submission.setCode(code);
+        submission.setSourceHash(SourceStore.hash(code));
+        submission.setTestRun(testRun);
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setContestId(contestId);
+        submission.setContestWeight(contestWeight);
+
+        if (logFile == null) {
+            insertOne(submission);
+            enqueue(submission);
+            return submission.getId();
+        }
+
+        Append append = new Append(submission);
+        appends.add(append);
+        try {
+            append.durable.get(APPEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while accepting submission", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Submission could not be stored, please retry", e);
+        } catch (TimeoutException e) {
+            if (append.state.compareAndSet(WAITING, CANCELLED)) {
+                // Never reaches the log, so a retry cannot be judged twice
+                throw new IllegalStateException("Submission could not be stored, please retry", e);
+            }
+            // Already being written: its fsync decides, however long it takes
+            awaitClaimed(append);
+        }
+        return submission.getId();
+    }
+
+    private static void awaitClaimed(Append append) {
+        try {
+            append.durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while accepting submission", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Submission could not be stored, please retry", e);
+        }
+    }
+
+    /** Status of a submission that is accepted but not inserted yet. */
+    public Optional<SubmissionResult> findPendingResult(String submissionId) {
+        Accepted submission = pending.get(submissionId);
+        if (submission == null) {
+            return Optional.empty();
+        }
+        SubmissionResult result = new SubmissionResult();
+        result.setId(submission.getId());
+        result.setProblemId(submission.getProblemId());
+        result.setStatus(SubmissionStatus.PENDING);
+        result.setLanguage(submission.getLanguage());
+        result.setScore(0);
+        result.setTestCasesPassed(0);
+        result.setTotalTestCases(0);
+        result.setIsTestRun(submission.isTestRun());
+        result.setSubmittedAt(submission.getSubmittedAt());
+        return Optional.of(result);
+    }
+
+    /**
+     * Placeholder for a submission accepted moments ago, possibly by another node that has not
+     * inserted it yet; only looked at once the database does not have it either.
+     */
+    public Optional<SubmissionResult> findRecentlyAccepted(String submissionId) {
+        LocalDateTime acceptedAt = acceptedAt(submissionId);
+        LocalDateTime now = LocalDateTime.now();
+        if (acceptedAt == null || acceptedAt.isAfter(now.plusSeconds(5))
+                || acceptedAt.isBefore(now.minusNanos(remotePendingWindow * 1_000_000))) {
+            return Optional.empty();
+        }
+        SubmissionResult result = new SubmissionResult();
+        result.setId(submissionId);
+        result.setStatus(SubmissionStatus.PENDING);
+        result.setScore(0);
+        result.setTestCasesPassed(0);
+        result.setTotalTestCases(0);
+        result.setSubmittedAt(acceptedAt);
+        return Optional.of(result);
+    }
+
+    public Optional<SubmissionSource> findPendingSource(String submissionId) {
+        return Optional.ofNullable(pending.get(submissionId))
+                .map(submission -> new SubmissionSource(submission.getId(), submission.getLanguage(),
+                        submission.getCode(), submission.getSourceHash()));
+    }
+
+    @Scheduled(fixedDelayString = "${judge.ingest.flush-interval:50}")
+    public void flush() {
+        List<Accepted> batch = new ArrayList<>();
+        while (unwritten.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            if (!insert(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (logFile == null) {
+            return;
+        }
+        running = false;
+        logWriter.interrupt();
+        try {
+            logWriter.join(APPEND_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Inserting {} accepted submissions before shutdown", unwritten.size());
+        // Whatever fails here is still in the log and is inserted on the next start
+        flush();
+        try {
+            compactLog(true);
+        } catch (IOException e) {
+            log.debug("Failed to empty submission log: {}", e.getMessage());
+        }
+        closeLog();
+    }
+
+    private void writeLog() {
+        List<Append> batch = new ArrayList<>();
+        while (running || !appends.isEmpty()) {
+            try {
+                Append first = appends.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    compactLog(true);
+                    continue;
+                }
+                batch.add(first);
+                // Everything that arrived while the previous fsync ran shares this one
+                appends.drainTo(batch, MAX_BATCH_SIZE - 1);
+                // Requests that gave up waiting were told to retry; they must not be logged
+                batch.removeIf(append -> !append.state.compareAndSet(WAITING, CLAIMED));
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                compactLog(false);
+                append(batch);
+            } catch (InterruptedException e) {
+                // Shutdown: write what was already handed over, then stop
+                running = false;
+            } catch (Exception e) {
+                log.error("Failed to append {} submissions to the log: {}", batch.size(), e.getMessage());
+                batch.forEach(append -> append.durable.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void append(List<Append> batch) throws IOException {
+        List<ByteBuffer> frames = new ArrayList<>();
+        for (Append append : batch) {
+            frames.add(frame(objectMapper.writeValueAsBytes(append.submission)));
+        }
+        ByteBuffer[] buffers = frames.toArray(new ByteBuffer[0]);
+        long position = logFile.size();
+        try {
+            logFile.position(position);
+            while (hasRemaining(buffers)) {
+                logFile.write(buffers);
+            }
+            logFile.force(false);
+        } catch (IOException e) {
+            // Drop the partial write so the next batch does not follow a torn record
+            logFile.truncate(position);
+            throw e;
+        }
+        for (Append append : batch) {
+            pending.put(append.submission.getId(), append.submission);
+            unwritten.add(append.submission);
+        }
+        logged.addAndGet(batch.size());
+        batch.forEach(append -> append.durable.complete(null));
+        log.debug("Logged {} submissions in one fsync", batch.size());
+    }
+
+    private void compactLog(boolean idle) throws IOException {
+        // Only the log writer appends, so equal counts mean every logged record is in the database
+        long size = logFile.size();
+        if (logged.get() == inserted.get() && size > 0 && (idle || size > maxLogSizeMb * 1024 * 1024)) {
+            logFile.truncate(0);
+            logFile.force(true);
+            log.debug("Submission log emptied");
+        }
+    }
+
+    /** Reads back what the last run logged; a torn record at the end is cut off. */
+    private void recover() throws IOException {
+        long size = logFile.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        List<Accepted> recovered = new ArrayList<>();
+        while (position + FRAME_HEADER <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || position + FRAME_HEADER + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + FRAME_HEADER);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            recovered.add(objectMapper.readValue(payload.array(), Accepted.class));
+            position += FRAME_HEADER + length;
+        }
+        if (position < size) {
+            log.warn("Discarding {} bytes of incomplete records at the end of the submission log", size - position);
+            logFile.truncate(position);
+            logFile.force(true);
+        }
+        if (!recovered.isEmpty() && ddlAuto.startsWith("create")) {
+            // Inserting them would attach them to whatever users and problems were seeded anew
+            log.warn("Discarding {} logged submissions: the schema was recreated on startup (ddl-auto={})",
+                    recovered.size(), ddlAuto);
+            logFile.truncate(0);
+            logFile.force(true);
+            return;
+        }
+        if (!recovered.isEmpty()) {
+            // Rows that made it into the database before the restart are skipped on insert
+            log.info("Recovering {} submissions from the log", recovered.size());
+            recovered.forEach(submission -> pending.put(submission.getId(), submission));
+            unwritten.addAll(recovered);
+            logged.addAndGet(recovered.size());
+        }
+    }
+
+    /** @return false if the database is unavailable and the flush should stop for now */
+    private boolean insert(List<Accepted> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SUBMISSION, batch, batch.size(), this::bind);
+                jdbcTemplate.batchUpdate(INSERT_CONTENT, batch, batch.size(), this::bindContent);
+                sourceStore.retain(batch.stream().map(Accepted::getCode).toList());
+            });
+            batch.forEach(this::inserted);
+            log.debug("Inserted {} accepted submissions", batch.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Batched insert of {} submissions failed, retrying row by row: {}", batch.size(), e.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Accepted submission = batch.get(i);
+            try {
+                insertOrSettle(submission);
+            } catch (Exception e) {
+                log.error("Database unavailable, keeping {} accepted submissions for the next flush: {}",
+                        batch.size() - i, e.getMessage());
+                unwritten.addAll(batch.subList(i, batch.size()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts one record, settling it if the database refuses: a row inserted before a restart
+     * may never have been queued, so it is queued again while still pending. Without a row its
+     * user or problem is gone, and retrying cannot help.
+     */
+    private void insertOrSettle(Accepted submission) {
+        try {
+            insertOne(submission);
+            inserted(submission);
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Insert of submission {} refused: {}", submission.getId(), e.getMessage());
+        }
+        List<String> status = jdbcTemplate.queryForList(SELECT_STATUS, String.class, submission.getId());
+        if (!status.isEmpty() && SubmissionStatus.PENDING.name().equals(status.get(0))) {
+            log.info("Submission {} was inserted before a restart, queueing it", submission.getId());
+            inserted(submission);
+            return;
+        }
+        if (status.isEmpty()) {
+            log.warn("Skipping accepted submission {}: its user or problem no longer exists", submission.getId());
+        } else {
+            log.debug("Submission {} was already judged as {}", submission.getId(), status.get(0));
+        }
+        pending.remove(submission.getId());
+        inserted.incrementAndGet();
+    }
+
+    private void insertOne(Accepted submission) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(INSERT_SUBMISSION, ps -> bind(ps, submission));
+            jdbcTemplate.update(INSERT_CONTENT, ps -> bindContent(ps, submission));
+            sourceStore.retain(List.of(submission.getCode()));
+        });
+    }
+
+    private void inserted(Accepted submission) {
+        enqueue(submission);
+        pending.remove(submission.getId());
+        inserted.incrementAndGet();
+    }
+
+    private void enqueue(Accepted submission) {
+        queueService.addToQueue(submission.getId(), submission.getUserId(), submission.getContestId(),
+                submission.getContestWeight());
+    }
+
+    private void bind(PreparedStatement ps, Accepted submission) throws SQLException {
+        ps.setString(1, submission.getId());
+        ps.setLong(2, submission.getUserId());
+        ps.setLong(3, submission.getProblemId());
+        ps.setString(4, SubmissionStatus.PENDING.name());
+        ps.setString(5, submission.getLanguage().name());
+        ps.setTimestamp(6, Timestamp.valueOf(submission.getSubmittedAt()));
+        ps.setBoolean(7, submission.isTestRun());
+        // Records logged before content hashing carry none
+        ps.setString(8, submission.getSourceHash() != null ? submission.getSourceHash() : SourceStore.hash(submission.getCode()));
+    }
+
+    private void bindContent(PreparedStatement ps, Accepted submission) throws SQLException {
+        ps.setString(1, submission.getId());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (logFile.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of submission log");
+            }
+        }
+    }
+
+    private void closeLog() {
+        try {
+            if (logFileLock != null) {
+                logFileLock.release();
+            }
+            if (logFile != null) {
+                logFile.close();
+            }
+        } catch (IOException e) {
+            log.debug("Failed to close submission log: {}", e.getMessage());
+        }
+        logFile = null;
+    }
+
+    /** A random UUID carrying its creation time in the version 7 layout. */
+    static String newId() {
+        UUID random = UUID.randomUUID();
+        long high = (System.currentTimeMillis() << 16) | 0x7000 | (random.getMostSignificantBits() & 0x0FFF);
+        return new UUID(high, random.getLeastSignificantBits()).toString();
+    }
+
+    /** Creation time of an ID from {@link #newId()}, or null for any other string. */
+    static LocalDateTime acceptedAt(String id) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (uuid.version() != 7) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16),
+                ZoneId.systemDefault());
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return frame;
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        return buffers.length > 0 && buffers[buffers.length - 1].hasRemaining();
+    }
+
+    /** A logged submission as it is written to the log and inserted. */
+    @Data
+    @NoArgsConstructor
+    static class Accepted {
+        private String id;
+        private Long userId;
+        private Long problemId;
+        private ProgrammingLanguage language;
+        private String code;
+        private String sourceHash;
+        private boolean testRun;
+        private LocalDateTime submittedAt;
+        // Only needed to queue it fairly once inserted
+        private Long contestId;
+        private int contestWeight;
+    }
+
+    private static class Append {
+        private final Accepted submission;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+        // WAITING until the log writer claims it or the request gives up
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Append(Accepted submission) {
+            this.submission = submission;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeVerdict;
+import com.shodhacode.dto.SubmissionResult;
+import com.shodhacode.entity.SubmissionStatus;
+import com.shodhacode.repository.SubmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory status of submissions that are being judged or whose verdict is waiting
+ * for the batched write. Transient states (RUNNING, per-test progress) never reach the
+ * database; readers overlay them on the stored row and subscribers get them pushed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SubmissionStatusTracker {
+
+    private static final long EMITTER_TIMEOUT_MS = 120_000;
+
+    private final Map<String, LiveStatus> live = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, SubmissionStatus> lastPushed = new ConcurrentHashMap<>();
+    private final SubmissionRepository submissionRepository;
+
+    public void markRunning(String submissionId, int totalTestCases) {
+        LiveStatus status = new LiveStatus(SubmissionStatus.RUNNING, 0, 0, totalTestCases, null);
+        live.put(submissionId, status);
+        publish(submissionId, status);
+    }
+
+    public void progress(String submissionId, int completed, int passed, int total) {
+        LiveStatus status = new LiveStatus(SubmissionStatus.RUNNING, completed, passed, total, null);
+        live.put(submissionId, status);
+        publish(submissionId, status);
+    }
+
+    /** Records the final verdict; it stays visible here until the verdict write commits. */
+    public void complete(JudgeVerdict verdict) {
+        LiveStatus status = new LiveStatus(verdict.getStatus(), verdict.getTotalTestCases(),
+                verdict.getTestCasesPassed(), verdict.getTotalTestCases(), verdict);
+        live.put(verdict.getSubmissionId(), status);
+        publish(verdict.getSubmissionId(), status);
+        completeSubscribers(verdict.getSubmissionId());
+    }
+
+    /** Called once verdicts are durable; the database is authoritative again. */
+    public void persisted(Collection<JudgeVerdict> verdicts) {
+        for (JudgeVerdict verdict : verdicts) {
+            live.computeIfPresent(verdict.getSubmissionId(),
+                    (id, status) -> status.verdict == verdict ? null : status);
+        }
+    }
+
+    /** Drops a verdict that will never be written; readers see the stored row again. */
+    public void discard(JudgeVerdict verdict) {
+        persisted(List.of(verdict));
+    }
+
+    public boolean isLive(String submissionId) {
+        return live.containsKey(submissionId);
+    }
+
+    /** Overlays the in-memory state (if any) on a result read from the database. */
+    public SubmissionResult overlay(SubmissionResult result) {
+        LiveStatus status = live.get(result.getId());
+        if (status != null) {
+            apply(status, result);
+        }
+        return result;
+    }
+
+    public SseEmitter subscribe(SubmissionResult current) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        String submissionId = current.getId();
+        LiveStatus status = live.get(submissionId);
+        boolean finished = status == null ? isFinished(current.getStatus()) : status.verdict != null;
+
+        if (!finished) {
+            List<SseEmitter> emitters = subscribers.computeIfAbsent(submissionId, id -> new CopyOnWriteArrayList<>());
+            emitters.add(emitter);
+            emitter.onCompletion(() -> emitters.remove(emitter));
+            emitter.onTimeout(() -> emitters.remove(emitter));
+            lastPushed.put(submissionId, current.getStatus());
+        }
+        send(emitter, overlay(current));
+        if (finished) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Catches up subscribers whose submission is not judged in this process (API nodes with
+     * separate workers), or whose verdict landed between the subscribe check and registration.
+     * Stored rows are read in one query per tick, however many submissions have subscribers.
+     */
+    @Scheduled(fixedDelayString = "${judge.queue.poll-interval:500}")
+    public void refreshSubscribers() {
+        List<String> stored = new ArrayList<>();
+        for (Map.Entry<String, List<SseEmitter>> entry : subscribers.entrySet()) {
+            String submissionId = entry.getKey();
+            if (entry.getValue().isEmpty()) {
+                // Every subscriber timed out or disconnected
+                subscribers.remove(submissionId, entry.getValue());
+                lastPushed.remove(submissionId);
+                continue;
+            }
+            LiveStatus status = live.get(submissionId);
+            if (status == null) {
+                stored.add(submissionId);
+            } else if (status.verdict != null) {
+                publish(submissionId, status);
+                completeSubscribers(submissionId);
+            }
+        }
+        if (stored.isEmpty()) {
+            return;
+        }
+        for (SubmissionResult result : submissionRepository.findResultsByIdIn(stored)) {
+            String submissionId = result.getId();
+            if (result.getStatus() != lastPushed.get(submissionId)) {
+                lastPushed.put(submissionId, result.getStatus());
+                List<SseEmitter> emitters = subscribers.get(submissionId);
+                if (emitters != null) {
+                    emitters.forEach(emitter -> send(emitter, result));
+                }
+            }
+            if (isFinished(result.getStatus())) {
+                completeSubscribers(submissionId);
+            }
+        }
+    }
+
+    private void publish(String submissionId, LiveStatus status) {
+        List<SseEmitter> emitters = subscribers.get(submissionId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        SubmissionResult event = new SubmissionResult();
+        event.setId(submissionId);
+        if (status.verdict != null) {
+            event.setProblemId(status.verdict.getProblemId());
+            event.setIsTestRun(status.verdict.isTestRun());
+        }
+        apply(status, event);
+        for (SseEmitter emitter : emitters) {
+            send(emitter, event);
+        }
+    }
+
+    private void completeSubscribers(String submissionId) {
+        List<SseEmitter> emitters = subscribers.remove(submissionId);
+        lastPushed.remove(submissionId);
+        if (emitters != null) {
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    private void send(SseEmitter emitter, SubmissionResult event) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(event));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping status subscriber for {}: {}", event.getId(), e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static boolean isFinished(SubmissionStatus status) {
+        return status != SubmissionStatus.PENDING && status != SubmissionStatus.RUNNING;
+    }
+
+    private static void apply(LiveStatus status, SubmissionResult result) {
+        result.setStatus(status.status);
+        result.setTestCasesCompleted(status.completed);
+        result.setTestCasesPassed(status.passed);
+        result.setTotalTestCases(status.total);
+        JudgeVerdict verdict = status.verdict;
+        if (verdict != null) {
+            result.setScore(verdict.getScore());
+            result.setExecutionTime(verdict.getExecutionTime());
+            result.setOutput(verdict.getOutput());
+            result.setErrorMessage(verdict.getErrorMessage());
+        }
+    }
+
+    private static class LiveStatus {
+        private final SubmissionStatus status;
+        private final int completed;
+        private final int passed;
+        private final int total;
+        private final JudgeVerdict verdict;
+
+        LiveStatus(SubmissionStatus status, int completed, int passed, int total, JudgeVerdict verdict) {
+            this.status = status;
+            this.completed = completed;
+            this.passed = passed;
+            this.total = total;
+            this.verdict = verdict;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.shodhacode.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-contestant token buckets for runs and submissions. A contest may override the
+ * rate and burst; otherwise {@code judge.throttle.*} applies. Buckets live on the API
+ * node that received the request, so the limit is per node: a contestant whose requests are
+ * spread over N nodes gets up to N times the rate.
+ */
+@Service
+@Slf4j
+public class SubmissionThrottle {
+
+    private static final long NO_CONTEST = 0L;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${judge.throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.throttle.submissions-per-minute:10}")
+    private int defaultPerMinute;
+
+    @Value("${judge.throttle.burst:5}")
+    private int defaultBurst;
+
+    /**
+     * Takes a token for this user in this contest.
+     *
+     * @return 0 if the request may proceed, otherwise milliseconds until the next token
+     */
+    public long tryAcquire(Long userId, ContestAccessCache.ContestAccess contest) {
+        if (!enabled) {
+            return 0;
+        }
+        int perMinute = contest.getSubmissionsPerMinute() != null ? contest.getSubmissionsPerMinute() : defaultPerMinute;
+        int burst = contest.getSubmissionBurst() != null ? contest.getSubmissionBurst() : defaultBurst;
+        if (perMinute <= 0) {
+            // 0 disables throttling for the contest
+            return 0;
+        }
+        String key = userId + ":" + (contest.isContest() ? contest.getId() : NO_CONTEST);
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket());
+        return bucket.tryAcquire(perMinute, Math.max(1, burst), System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        // A bucket untouched for longer than it takes to refill holds no state worth keeping
+        buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+    }
+
+    private static class TokenBucket {
+        private double tokens = -1;
+        private long updatedAt;
+        private long idleAfter;
+
+        synchronized long tryAcquire(int perMinute, int burst, long now) {
+            double refillPerMilli = perMinute / 60000.0;
+            if (tokens < 0) {
+                tokens = burst;
+            } else {
+                tokens = Math.min(burst, tokens + (now - updatedAt) * refillPerMilli);
+            }
+            updatedAt = now;
+            idleAfter = (long) Math.ceil(burst / refillPerMilli);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerMilli);
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now - updatedAt > idleAfter;
+        }
+    }
+}
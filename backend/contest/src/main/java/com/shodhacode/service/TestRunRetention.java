@@ -0,0 +1,83 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.SubmissionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deletes judged test runs once they are older than {@code judge.test-runs.retention}.
+ * Test runs go through the same queue as submissions (worker nodes claim them from the
+ * database), but nothing reads them after the user has seen the result, so the table only
+ * keeps growing with real submissions.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TestRunRetention {
+
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private static final String SELECT_EXPIRED =
+            "SELECT id, source_hash FROM submissions WHERE is_test_run = TRUE AND submitted_at < ? " +
+            "AND status NOT IN ('" + SubmissionStatus.PENDING + "', '" + SubmissionStatus.RUNNING + "') " +
+            "FETCH FIRST " + PURGE_BATCH_SIZE + " ROWS ONLY";
+
+    private static final String DELETE_CONTENT = "DELETE FROM submission_contents WHERE submission_id = ?";
+    private static final String DELETE_TEST_RUN = "DELETE FROM submissions WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SourceStore sourceStore;
+
+    @Value("${judge.test-runs.retention:3600000}")
+    private long retention;
+
+    @Scheduled(fixedDelayString = "${judge.test-runs.purge-interval:60000}")
+    public void purgeExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusNanos(retention * 1_000_000));
+        int purged = 0;
+        while (true) {
+            Integer count;
+            try {
+                count = transactionTemplate.execute(status -> purgeBatch(cutoff));
+            } catch (Exception e) {
+                log.error("Failed to purge expired test runs: {}", e.getMessage());
+                return;
+            }
+            if (count == null || count == 0) {
+                break;
+            }
+            purged += count;
+        }
+        if (purged > 0) {
+            log.info("Purged {} test runs older than {} ms", purged, retention);
+        }
+    }
+
+    private int purgeBatch(Timestamp cutoff) {
+        List<String[]> expired = jdbcTemplate.query(SELECT_EXPIRED,
+                (rs, i) -> new String[]{rs.getString(1), rs.getString(2)}, cutoff);
+        List<String> releasedSources = new ArrayList<>();
+        int deleted = 0;
+        for (String[] testRun : expired) {
+            jdbcTemplate.update(DELETE_CONTENT, testRun[0]);
+            // Another node may have purged it first; only the one that deletes the row releases the source
+            if (jdbcTemplate.update(DELETE_TEST_RUN, testRun[0]) == 1) {
+                releasedSources.add(testRun[1]);
+                deleted++;
+            }
+        }
+        sourceStore.release(releasedSources);
+        return deleted;
+    }
+}
@@ -0,0 +1,252 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeVerdict;
+import com.shodhacode.entity.CompressedTextConverter;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind for judge verdicts. Workers hand over the final result and move on;
+ * verdicts are written in one batched UPDATE per flush that touches only the result
+ * columns, plus one for the compressed output in the side table (the stored source is
+ * never rewritten). Score maintenance runs after the batch commits.
+ *
+ * <p>A verdict that cannot be written is retried with exponential backoff. After
+ * {@code MAX_WRITE_ATTEMPTS} it is given up on and handed back through
+ * {@link #whenWritten} so the submission is judged again. Verdicts live only in memory until
+ * written: they are flushed on shutdown, but a crash loses them (with the database queue the
+ * expired lease gets them judged again; with the memory queue the rows stay PENDING).
+ *
+ * <p>A verdict is only written while this worker still holds the submission's lease (memory
+ * queue rows carry no lease). If the lease ran out and another worker claimed the submission,
+ * the update matches no row: the verdict is dropped unscored and the other worker's stands.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class VerdictWriter {
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int MAX_WRITE_ATTEMPTS = 8;
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    private static final String UPDATE_VERDICT =
+            "UPDATE submissions SET status = ?, score = ?, test_cases_passed = ?, total_test_cases = ?, " +
+            "execution_time = ?, error_message = ?, judged_at = ? " +
+            "WHERE id = ? AND (claimed_by IS NULL OR claimed_by = ?)";
+
+    private static final String UPDATE_OUTPUT =
+            "UPDATE submission_contents SET output = ? WHERE submission_id = ?";
+
+    private final BlockingQueue<JudgeVerdict> pending = new LinkedBlockingQueue<>();
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+    // Submissions whose verdict is not written yet, with what to run once it is (or given up)
+    private final Map<String, List<Consumer<Boolean>>> awaitingWrite = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SubmissionStatusTracker statusTracker;
+    private final ScoringService scoringService;
+    private final DatabaseSubmissionQueue databaseSubmissionQueue;
+
+    public void submit(JudgeVerdict verdict) {
+        awaitingWrite.computeIfAbsent(verdict.getSubmissionId(), id -> new CopyOnWriteArrayList<>());
+        statusTracker.complete(verdict);
+        pending.add(verdict);
+    }
+
+    /**
+     * Runs the action with true once the submission's verdict is committed (or dropped because
+     * another worker took the submission over), or with false if it was given up on; right away
+     * with true if no verdict of it is waiting.
+     */
+    public void whenWritten(String submissionId, Consumer<Boolean> action) {
+        boolean[] deferred = {false};
+        awaitingWrite.computeIfPresent(submissionId, (id, actions) -> {
+            actions.add(action);
+            deferred[0] = true;
+            return actions;
+        });
+        if (!deferred[0]) {
+            action.accept(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${judge.verdict.flush-interval:200}")
+    public void flush() {
+        List<Retry> due = new ArrayList<>();
+        retries.drainTo(due);
+        due.forEach(retry -> pending.add(retry.verdict));
+
+        List<JudgeVerdict> batch = new ArrayList<>();
+        while (pending.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing {} pending verdicts before shutdown", pending.size() + retries.size());
+        // One last attempt for verdicts waiting out a backoff
+        retries.forEach(retry -> pending.add(retry.verdict));
+        retries.clear();
+        flush();
+        if (!retries.isEmpty()) {
+            log.error("{} verdicts could not be written before shutdown and are lost", retries.size());
+        }
+    }
+
+    private void write(List<JudgeVerdict> batch) {
+        List<JudgeVerdict> superseded = new ArrayList<>();
+        List<JudgeVerdict> written;
+        try {
+            written = transactionTemplate.execute(status -> {
+                int[][] counts = jdbcTemplate.batchUpdate(UPDATE_VERDICT, batch, batch.size(), this::bind);
+                List<JudgeVerdict> updated = new ArrayList<>();
+                int i = 0;
+                for (int[] chunk : counts) {
+                    for (int count : chunk) {
+                        (count == 0 ? superseded : updated).add(batch.get(i++));
+                    }
+                }
+                // The output row of a superseded verdict belongs to the worker that took over
+                if (!updated.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_OUTPUT, updated, updated.size(), this::bindOutput);
+                }
+                return updated;
+            });
+        } catch (Exception e) {
+            log.error("Batched verdict write of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+            superseded.clear();
+            written = writeIndividually(batch, superseded);
+        }
+        log.debug("Wrote {} verdicts", written.size());
+
+        superseded.forEach(verdict -> {
+            log.warn("Dropping the verdict of submission {}: its lease was taken over by another worker",
+                    verdict.getSubmissionId());
+            statusTracker.discard(verdict);
+            failedAttempts.remove(verdict.getSubmissionId());
+            finished(verdict.getSubmissionId(), true);
+        });
+
+        statusTracker.persisted(written);
+        written.forEach(scoringService::applyVerdict);
+        written.forEach(verdict -> {
+            failedAttempts.remove(verdict.getSubmissionId());
+            finished(verdict.getSubmissionId(), true);
+        });
+    }
+
+    private List<JudgeVerdict> writeIndividually(List<JudgeVerdict> batch, List<JudgeVerdict> superseded) {
+        List<JudgeVerdict> written = new ArrayList<>();
+        for (JudgeVerdict verdict : batch) {
+            try {
+                boolean updated = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    if (jdbcTemplate.update(UPDATE_VERDICT, ps -> bind(ps, verdict)) == 0) {
+                        return false;
+                    }
+                    jdbcTemplate.update(UPDATE_OUTPUT, ps -> bindOutput(ps, verdict));
+                    return true;
+                }));
+                (updated ? written : superseded).add(verdict);
+            } catch (Exception e) {
+                retryLater(verdict, e);
+            }
+        }
+        return written;
+    }
+
+    private void retryLater(JudgeVerdict verdict, Exception e) {
+        String submissionId = verdict.getSubmissionId();
+        int attempts = failedAttempts.merge(submissionId, 1, Integer::sum);
+        if (attempts >= MAX_WRITE_ATTEMPTS) {
+            failedAttempts.remove(submissionId);
+            log.error("Giving up on the verdict of submission {} after {} attempts: {}", submissionId, attempts, e.getMessage());
+            // The stored row is authoritative again, and the submission is judged again
+            statusTracker.discard(verdict);
+            finished(submissionId, false);
+            return;
+        }
+        // Stays visible in the tracker meanwhile
+        long delay = Math.min(RETRY_DELAY_MS << (attempts - 1), MAX_RETRY_DELAY_MS);
+        log.warn("Failed to write verdict for submission {} (attempt {}), retrying in {} ms: {}",
+                submissionId, attempts, delay, e.getMessage());
+        retries.add(new Retry(verdict, delay));
+    }
+
+    private void finished(String submissionId, boolean written) {
+        List<Consumer<Boolean>> actions = awaitingWrite.remove(submissionId);
+        if (actions == null) {
+            return;
+        }
+        for (Consumer<Boolean> action : actions) {
+            try {
+                action.accept(written);
+            } catch (Exception e) {
+                log.error("Verdict callback for submission {} failed: {}", submissionId, e.getMessage());
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, JudgeVerdict verdict) throws SQLException {
+        ps.setString(1, verdict.getStatus().name());
+        ps.setObject(2, verdict.getScore(), Types.INTEGER);
+        ps.setObject(3, verdict.getTestCasesPassed(), Types.INTEGER);
+        ps.setObject(4, verdict.getTotalTestCases(), Types.INTEGER);
+        ps.setObject(5, verdict.getExecutionTime(), Types.BIGINT);
+        ps.setString(6, verdict.getErrorMessage());
+        ps.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+        ps.setString(8, verdict.getSubmissionId());
+        ps.setString(9, databaseSubmissionQueue.getWorkerId());
+    }
+
+    private void bindOutput(PreparedStatement ps, JudgeVerdict verdict) throws SQLException {
+        ps.setBytes(1, CompressedTextConverter.compress(verdict.getOutput()));
+        ps.setString(2, verdict.getSubmissionId());
+    }
+
+    private static class Retry implements Delayed {
+        private final JudgeVerdict verdict;
+        private final long dueAt;
+
+        Retry(JudgeVerdict verdict, long delayMillis) {
+            this.verdict = verdict;
+            this.dueAt = System.currentTimeMillis() + delayMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
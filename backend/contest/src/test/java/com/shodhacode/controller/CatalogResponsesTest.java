@@ -0,0 +1,75 @@
+package com.shodhacode.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.service.CatalogCacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogResponsesTest {
+
+    private final CatalogCacheService.Entry entry = new CatalogCacheService(new ObjectMapper())
+            .serialize(List.of(Map.of("id", 1, "title", "Contest")));
+
+    @Test
+    void servesGzipUnderItsOwnETag() throws IOException {
+        ResponseEntity<byte[]> gzip = CatalogResponses.of(entry, request("gzip, deflate, br", null));
+        ResponseEntity<byte[]> identity = CatalogResponses.of(entry, request(null, null));
+
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getBody())).readAllBytes())
+                .isEqualTo(identity.getBody());
+        assertThat(gzip.getHeaders().getETag()).isNotEqualTo(identity.getHeaders().getETag())
+                .startsWith("\"").endsWith("-gz\"");
+        assertThat(identity.getHeaders().getETag()).isEqualTo(entry.getEtag());
+        assertThat(gzip.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(identity.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void answersNotModifiedOnlyForTheTagOfTheEncodingServed() {
+        String gzipEtag = CatalogResponses.of(entry, request("gzip", null)).getHeaders().getETag();
+
+        ResponseEntity<byte[]> cached = CatalogResponses.of(entry, request("gzip", "\"other\", " + gzipEtag));
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cached.getHeaders().getETag()).isEqualTo(gzipEtag);
+        assertThat(cached.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+
+        // A client that cached the gzip body must not get a 304 for the identity one
+        assertThat(CatalogResponses.of(entry, request(null, gzipEtag)).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(CatalogResponses.of(entry, request(null, entry.getEtag())).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(CatalogResponses.of(entry, request("gzip", "W/" + gzipEtag)).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void honoursARefusedGzip() {
+        ResponseEntity<byte[]> response = CatalogResponses.of(entry, request("gzip;q=0, identity", null));
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getBody()).isEqualTo(entry.getBody());
+        assertThat(CatalogResponses.of(null, request("gzip", null)).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private static MockHttpServletRequest request(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,84 @@
+package com.shodhacode.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset paging as the history queries do it: newest first by (submittedAt, id), each page
+ * strictly after the cursor's position.
+ */
+class SubmissionHistoryPageTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Test
+    void walksEveryRowOnceAcrossTiedTimestamps() {
+        List<SubmissionSummary> history = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            // Pairs share a timestamp, so the id has to break the tie
+            history.add(summary("id-" + (char) ('a' + i), START.plusSeconds(i / 2).plusNanos(1000)));
+        }
+        history.sort(Comparator.comparing(SubmissionSummary::getSubmittedAt)
+                .thenComparing(SubmissionSummary::getId).reversed());
+
+        List<SubmissionSummary> seen = new ArrayList<>();
+        SubmissionHistoryPage page = SubmissionHistoryPage.of(history.subList(0, 4), 3);
+        seen.addAll(page.getSubmissions());
+        while (page.getNextCursor() != null) {
+            SubmissionHistoryPage.Cursor cursor = SubmissionHistoryPage.decodeCursor(page.getNextCursor());
+            List<SubmissionSummary> older = history.stream()
+                    .filter(row -> row.getSubmittedAt().isBefore(cursor.getSubmittedAt())
+                            || row.getSubmittedAt().equals(cursor.getSubmittedAt())
+                            && row.getId().compareTo(cursor.getId()) < 0)
+                    .limit(4)
+                    .toList();
+            page = SubmissionHistoryPage.of(older, 3);
+            seen.addAll(page.getSubmissions());
+        }
+
+        assertThat(seen).containsExactlyElementsOf(history);
+    }
+
+    @Test
+    void hasNoCursorWhenNothingOlderWasFetched() {
+        List<SubmissionSummary> rows = List.of(summary("b", START.plusMinutes(1)), summary("a", START));
+
+        SubmissionHistoryPage page = SubmissionHistoryPage.of(rows, 2);
+
+        assertThat(page.getSubmissions()).containsExactlyElementsOf(rows);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorPointsAtTheLastRowOfThePage() {
+        SubmissionSummary last = summary("0190a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a5b", START.plusNanos(123_456_789));
+
+        SubmissionHistoryPage.Cursor cursor = SubmissionHistoryPage.decodeCursor(
+                SubmissionHistoryPage.encodeCursor(last));
+
+        assertThat(cursor.getSubmittedAt()).isEqualTo(last.getSubmittedAt());
+        assertThat(cursor.getId()).isEqualTo(last.getId());
+    }
+
+    @Test
+    void rejectsACursorItDidNotIssue() {
+        assertThatThrownBy(() -> SubmissionHistoryPage.decodeCursor("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SubmissionHistoryPage.decodeCursor("bm8tc2VwYXJhdG9y"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SubmissionSummary summary(String id, LocalDateTime submittedAt) {
+        SubmissionSummary summary = new SubmissionSummary();
+        summary.setId(id);
+        summary.setSubmittedAt(submittedAt);
+        return summary;
+    }
+}
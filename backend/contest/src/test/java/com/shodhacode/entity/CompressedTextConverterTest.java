@@ -0,0 +1,66 @@
+package com.shodhacode.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedTextConverterTest {
+
+    private static final String SOLUTION = String.join("\n",
+            "import sys",
+            "input = sys.stdin.readline",
+            "",
+            "def main():",
+            "    n = int(input())",
+            "    arr = list(map(int, input().split()))",
+            "    print(max(arr))",
+            "",
+            "if __name__ == '__main__':",
+            "    main()",
+            "");
+
+    @Test
+    void readsBackWhatItStored() {
+        CompressedTextConverter converter = new CompressedTextConverter();
+        for (String text : new String[]{"", "x", SOLUTION, "Ünïcødé ✓ 漢字\n".repeat(50), "0 1\n".repeat(100_000)}) {
+            assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text))).isEqualTo(text);
+        }
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void shrinksShortBoilerplateWithTheDictionary() {
+        byte[] stored = CompressedTextConverter.compress(SOLUTION);
+
+        assertThat(stored[0]).isEqualTo((byte) 1);
+        assertThat(stored.length).isLessThan(SOLUTION.length() / 3);
+    }
+
+    @Test
+    void keepsTextThatDoesNotCompressAsPlainUtf8() {
+        // Too short for deflate's framing to pay off
+        String text = "42\n";
+
+        byte[] stored = CompressedTextConverter.compress(text);
+
+        assertThat(stored[0]).isZero();
+        assertThat(Arrays.copyOfRange(stored, 1, stored.length)).isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+        assertThat(CompressedTextConverter.decompress(stored)).isEqualTo(text);
+    }
+
+    @Test
+    void rejectsDamagedOrUnknownValues() {
+        byte[] stored = CompressedTextConverter.compress(SOLUTION);
+
+        assertThatThrownBy(() -> CompressedTextConverter.decompress(Arrays.copyOf(stored, stored.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompressedTextConverter.decompress(new byte[]{9, 1, 2}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("format 9");
+    }
+}
@@ -0,0 +1,92 @@
+package com.shodhacode.sandbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Slots under a temporary root. Where the test may mount (running as root) the slots are
+ * tmpfs mounts and released ones are remounted; elsewhere they are plain directories that are
+ * emptied file by file. Either way a released slot must come back empty and private.
+ */
+class WorkDirPoolTest {
+
+    @TempDir
+    Path base;
+
+    private WorkDirPool pool;
+
+    @BeforeEach
+    void createPool() {
+        pool = new WorkDirPool();
+        ReflectionTestUtils.setField(pool, "root", base.toString());
+        ReflectionTestUtils.setField(pool, "poolSize", 1);
+        ReflectionTestUtils.setField(pool, "quotaMb", 1);
+        pool.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void releasedSlotIsHandedOutAgainEmptyAndPrivate() throws IOException {
+        Path slot = pool.acquire();
+        Files.createDirectories(slot.resolve("a/b"));
+        Files.writeString(slot.resolve("a/b/out.txt"), "output");
+        Files.writeString(slot.resolve("Main.java"), "class Main {}");
+        Files.setPosixFilePermissions(slot, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        pool.release(slot);
+
+        Path again = pool.acquire();
+        assertThat(again).isEqualTo(slot);
+        try (Stream<Path> entries = Files.list(again)) {
+            assertThat(entries).isEmpty();
+        }
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(again))).isEqualTo("rwx------");
+    }
+
+    @Test
+    void mountedSlotStaysMountedAcrossReleases() throws IOException {
+        Path slot = pool.acquire();
+        if (!mounted().contains(slot)) {
+            // Not permitted to mount here; the plain-directory path is covered above
+            return;
+        }
+        for (int i = 0; i < 3; i++) {
+            Files.writeString(slot.resolve("file-" + i), "x");
+            pool.release(slot);
+            slot = pool.acquire();
+        }
+
+        assertThat(mounted()).containsExactly(slot);
+        assertThat(mountCount(slot)).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Path> mounted() {
+        return (Set<Path>) ReflectionTestUtils.getField(pool, "mountedSlots");
+    }
+
+    /** Stacked mounts would show up more than once; a remount must replace, not cover. */
+    private static long mountCount(Path slot) throws IOException {
+        Path mounts = Paths.get("/proc/self/mounts");
+        try (Stream<String> lines = Files.lines(mounts)) {
+            return lines.map(line -> line.split(" ")[1]).filter(slot.toString()::equals).count();
+        }
+    }
+}
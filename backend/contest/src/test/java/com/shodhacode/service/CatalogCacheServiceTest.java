@@ -0,0 +1,100 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogCacheServiceTest {
+
+    private CatalogCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CatalogCacheService(new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "ttl", 30000L);
+    }
+
+    @Test
+    void loadsOnceForConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<CatalogCacheService.Entry> leader = CompletableFuture.supplyAsync(() ->
+                cache.get("contests", () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return List.of("contest");
+                }));
+        loading.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<CatalogCacheService.Entry> follower = CompletableFuture.supplyAsync(() ->
+                cache.get("contests", () -> {
+                    loads.incrementAndGet();
+                    return List.of("other");
+                }));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get(5, TimeUnit.SECONDS));
+        assertThat(loads).hasValue(1);
+        assertThat(new String(cache.get("contests", () -> null).getBody())).isEqualTo("[\"contest\"]");
+    }
+
+    @Test
+    void doesNotKeepALoadThatRacedWithAnEviction() {
+        CatalogCacheService.Entry stale = cache.get("problems/1", () -> {
+            // A write commits while the old row is being serialized
+            cache.evict("problems/1");
+            return "old";
+        });
+
+        assertThat(new String(stale.getBody())).isEqualTo("\"old\"");
+        assertThat(cache.contains("problems/1")).isFalse();
+        // Other keys are not affected by the eviction of one
+        cache.get("problems/2", () -> "two");
+        assertThat(cache.contains("problems/2")).isTrue();
+    }
+
+    @Test
+    void reloadsEntriesOlderThanTheTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttl", 20L);
+        cache.get("contests", () -> "before");
+        assertThat(cache.contains("contests")).isTrue();
+
+        // Edited through another node, which this one never hears about
+        Thread.sleep(40);
+
+        assertThat(cache.contains("contests")).isFalse();
+        assertThat(new String(cache.get("contests", () -> "after").getBody())).isEqualTo("\"after\"");
+    }
+
+    @Test
+    void cachesNeitherMissingValuesNorFailures() {
+        assertThat(cache.get("problems/9", () -> null)).isNull();
+        assertThat(cache.contains("problems/9")).isFalse();
+
+        assertThatThrownBy(() -> cache.get("problems/9", () -> {
+            throw new IllegalStateException("database down");
+        })).hasMessage("database down");
+        assertThat(new String(cache.get("problems/9", () -> "found").getBody())).isEqualTo("\"found\"");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.shodhacode.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Claims and leases against an in-memory H2 database with just the columns the queue reads;
+ * two queue instances with different worker ids stand for two worker nodes.
+ */
+class DatabaseSubmissionQueueTest {
+
+    private static final LocalDateTime START = LocalDateTime.now().minusMinutes(10);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:queue-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE contests (id BIGINT PRIMARY KEY, judge_weight INT)");
+        jdbcTemplate.execute("CREATE TABLE problems (id BIGINT PRIMARY KEY, contest_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE submissions (id VARCHAR(36) PRIMARY KEY, user_id BIGINT, "
+                + "problem_id BIGINT, status VARCHAR(32), submitted_at TIMESTAMP, claimed_by VARCHAR(255), "
+                + "claimed_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO contests VALUES (1, 1)");
+        jdbcTemplate.update("INSERT INTO problems VALUES (1, 1)");
+    }
+
+    @Test
+    void letsUsersTakeTurnsWithinAContest() {
+        submit("a1", 1, 1);
+        submit("a2", 1, 2);
+        submit("a3", 1, 3);
+        submit("b1", 2, 4);
+
+        List<String> claimed = queue("worker-1").claim(2);
+
+        // The flood from user 1 does not keep user 2 waiting
+        assertThat(claimed).containsExactlyInAnyOrder("a1", "b1");
+        assertThat(claimant("a1")).isEqualTo("worker-1");
+        assertThat(status("a1")).isEqualTo("RUNNING");
+        assertThat(status("a2")).isEqualTo("PENDING");
+    }
+
+    @Test
+    void neverHandsTheSameSubmissionToTwoWorkers() {
+        for (int i = 0; i < 5; i++) {
+            submit("s" + i, i, i);
+        }
+
+        List<String> first = queue("worker-1").claim(3);
+        List<String> second = queue("worker-2").claim(3);
+
+        assertThat(first).hasSize(3);
+        assertThat(second).hasSize(2).doesNotContainAnyElementsOf(first);
+        assertThat(queue("worker-3").claim(3)).isEmpty();
+    }
+
+    @Test
+    void reclaimsASubmissionWhoseLeaseExpired() {
+        submit("s1", 1, 1);
+        DatabaseSubmissionQueue crashed = queue("worker-1");
+        crashed.claim(1);
+        jdbcTemplate.update("UPDATE submissions SET claimed_at = ? WHERE id = 's1'",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(5)));
+
+        DatabaseSubmissionQueue survivor = queue("worker-2");
+        assertThat(survivor.claim(1)).containsExactly("s1");
+
+        // The first worker coming back must not take the lease over again
+        crashed.renewLeases();
+        assertThat(claimant("s1")).isEqualTo("worker-2");
+    }
+
+    @Test
+    void renewsOnlyTheLeasesStillBeingJudged() {
+        submit("s1", 1, 1);
+        submit("s2", 2, 2);
+        DatabaseSubmissionQueue worker = queue("worker-1");
+        worker.claim(2);
+        Timestamp stale = Timestamp.valueOf(LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.SECONDS));
+        jdbcTemplate.update("UPDATE submissions SET claimed_at = ?", stale);
+
+        worker.done("s2");
+        worker.renewLeases();
+
+        assertThat(claimedAt("s1")).isAfter(stale);
+        assertThat(claimedAt("s2")).isEqualTo(stale);
+        // A renewed lease keeps the row away from other workers
+        assertThat(queue("worker-2").claim(2)).isEmpty();
+    }
+
+    private DatabaseSubmissionQueue queue(String workerId) {
+        DatabaseSubmissionQueue queue = new DatabaseSubmissionQueue(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(queue, "leaseMillis", 120000L);
+        ReflectionTestUtils.setField(queue, "fairnessWindowMillis", 60000L);
+        ReflectionTestUtils.setField(queue, "workerId", workerId);
+        return queue;
+    }
+
+    private void submit(String id, long userId, int minute) {
+        jdbcTemplate.update("INSERT INTO submissions (id, user_id, problem_id, status, submitted_at) "
+                + "VALUES (?, ?, 1, 'PENDING', ?)", id, userId, Timestamp.valueOf(START.plusMinutes(minute)));
+    }
+
+    private String status(String id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM submissions WHERE id = ?", String.class, id);
+    }
+
+    private String claimant(String id) {
+        return jdbcTemplate.queryForObject("SELECT claimed_by FROM submissions WHERE id = ?", String.class, id);
+    }
+
+    private Timestamp claimedAt(String id) {
+        return jdbcTemplate.queryForObject("SELECT claimed_at FROM submissions WHERE id = ?", Timestamp.class, id);
+    }
+}
@@ -0,0 +1,92 @@
+package com.shodhacode.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairShareQueueTest {
+
+    @Test
+    void alternatesBetweenUsersOfAContest() {
+        FairShareQueue queue = new FairShareQueue();
+        queue.offer("a1", 1L, 1L, 1);
+        queue.offer("a2", 1L, 1L, 1);
+        queue.offer("a3", 1L, 1L, 1);
+        queue.offer("b1", 2L, 1L, 1);
+
+        assertThat(drain(queue)).containsExactly("a1", "b1", "a2", "a3");
+    }
+
+    @Test
+    void givesContestsSlotsInProportionToTheirWeight() {
+        FairShareQueue queue = new FairShareQueue();
+        for (int i = 1; i <= 4; i++) {
+            queue.offer("heavy" + i, (long) i, 1L, 2);
+            queue.offer("light" + i, (long) i, 2L, 1);
+        }
+
+        assertThat(drain(queue).subList(0, 6))
+                .containsExactly("heavy1", "heavy2", "light1", "heavy3", "heavy4", "light2");
+    }
+
+    @Test
+    void treatsSubmissionsOutsideContestsAsOneLane() {
+        FairShareQueue queue = new FairShareQueue();
+        queue.offer("practice", 1L, null, 1);
+        queue.offer("contest", 2L, 1L, 1);
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(drain(queue)).containsExactly("practice", "contest");
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    void doesNotLetAnIdleContestBankCredit() {
+        FairShareQueue queue = new FairShareQueue();
+        queue.offer("heavy1", 1L, 1L, 5);
+        assertThat(queue.poll()).isEqualTo("heavy1");
+
+        queue.offer("light1", 2L, 2L, 1);
+        queue.offer("heavy2", 1L, 1L, 5);
+        queue.offer("light2", 2L, 2L, 1);
+
+        assertThat(drain(queue)).containsExactly("light1", "heavy2", "light2");
+    }
+
+    @Test
+    void appliesAChangedWeightToQueuedSubmissions() {
+        FairShareQueue queue = new FairShareQueue();
+        for (int i = 1; i <= 3; i++) {
+            queue.offer("a" + i, (long) i, 1L, 1);
+            queue.offer("b" + i, (long) i, 2L, 1);
+        }
+        // Contest 1 was reweighted while its submissions waited
+        queue.offer("a4", 4L, 1L, 3);
+
+        assertThat(drain(queue)).containsExactly("a1", "a2", "a3", "b1", "a4", "b2", "b3");
+    }
+
+    @Test
+    void servesAUsersSubmissionsInTheOrderTheyArrived() {
+        FairShareQueue queue = new FairShareQueue();
+        queue.offer("a1", 1L, 1L, 1);
+        queue.offer("b1", 2L, 1L, 1);
+        queue.offer("a2", 1L, 1L, 1);
+        queue.offer("c1", 3L, 1L, 1);
+        queue.offer("a3", 1L, 1L, 1);
+
+        assertThat(drain(queue)).containsExactly("a1", "b1", "c1", "a2", "a3");
+    }
+
+    private static List<String> drain(FairShareQueue queue) {
+        List<String> order = new ArrayList<>();
+        String next;
+        while ((next = queue.poll()) != null) {
+            order.add(next);
+        }
+        return order;
+    }
+}
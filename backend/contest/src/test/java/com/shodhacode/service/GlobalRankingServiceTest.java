@@ -0,0 +1,178 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.GlobalRankEntry;
+import com.shodhacode.dto.UserRank;
+import com.shodhacode.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GlobalRankingServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final LeaderboardService leaderboardService = mock(LeaderboardService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final Map<Long, int[]> heldBack = new HashMap<>();
+    private GlobalRankingService rankings;
+
+    @BeforeEach
+    void setUp() {
+        // A new map each time, like the real one
+        when(leaderboardService.heldBack()).thenAnswer(invocation -> new HashMap<>(heldBack));
+        rankings = new GlobalRankingService(userRepository, leaderboardService, transactionTemplate);
+    }
+
+    @Test
+    void ranksByScoreWithTiesSharingARank() {
+        when(userRepository.findAllTotals()).thenReturn(rows(
+                row(1L, "alice", 300, 3),
+                row(2L, "bob", 500, 4),
+                row(3L, "carol", 300, 2)));
+
+        List<GlobalRankEntry> top = rankings.top(10);
+
+        assertThat(top).extracting(GlobalRankEntry::getUsername).containsExactly("bob", "alice", "carol");
+        assertThat(top).extracting(GlobalRankEntry::getRank).containsExactly(1, 2, 2);
+        UserRank carol = rankings.rankOf(3L).orElseThrow();
+        assertThat(carol.getRank()).isEqualTo(2);
+        assertThat(carol.getTotalUsers()).isEqualTo(3);
+        assertThat(carol.getPercentile()).isZero();
+        assertThat(rankings.rankOf(9L)).isEmpty();
+    }
+
+    @Test
+    void handlesScoresBeyondTheInitialCapacity() {
+        when(userRepository.findAllTotals()).thenReturn(rows(
+                row(1L, "alice", 5000, 10),
+                row(2L, "bob", 20, 1)));
+
+        assertThat(rankings.rankOf(1L).orElseThrow().getRank()).isEqualTo(1);
+        assertThat(rankings.rankOf(2L).orElseThrow().getRank()).isEqualTo(2);
+        assertThat(rankings.rankOf(2L).orElseThrow().getPercentile()).isZero();
+        assertThat(rankings.rankOf(1L).orElseThrow().getPercentile()).isEqualTo(50.0);
+    }
+
+    @Test
+    void leavesOutWhatFrozenScoreboardsHoldBack() {
+        when(userRepository.findAllTotals()).thenReturn(rows(
+                row(1L, "alice", 300, 3),
+                row(2L, "bob", 400, 4)));
+        heldBack.put(2L, new int[]{200, 1});
+
+        assertThat(rankings.rankOf(2L).orElseThrow().getScore()).isEqualTo(200);
+        assertThat(rankings.top(1)).extracting(GlobalRankEntry::getUsername).containsExactly("alice");
+
+        // Published
+        heldBack.clear();
+        when(userRepository.findTotalsUpdatedSince(any())).thenReturn(List.of());
+        rankings.refresh();
+
+        assertThat(rankings.rankOf(2L).orElseThrow().getScore()).isEqualTo(400);
+        assertThat(rankings.top(1)).extracting(GlobalRankEntry::getUsername).containsExactly("bob");
+    }
+
+    @Test
+    void refreshesOnlyTheUsersThatChanged() {
+        LocalDateTime loadedAt = LocalDateTime.now();
+        when(userRepository.findAllTotals()).thenReturn(rows(
+                row(1L, "alice", 300, 3),
+                row(2L, "bob", 400, 4)));
+        rankings.top(10);
+        when(userRepository.findTotalsUpdatedSince(any())).thenReturn(rows(row(1L, "alice", 600, 5)));
+
+        rankings.refresh();
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository).findTotalsUpdatedSince(since.capture());
+        // From the load, less the overlap window
+        assertThat(since.getValue()).isBetween(loadedAt.minusMinutes(1), loadedAt);
+        assertThat(rankings.top(10)).extracting(GlobalRankEntry::getUsername).containsExactly("alice", "bob");
+        assertThat(rankings.rankOf(1L).orElseThrow().getProblemsSolved()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotLoadUntilFirstAsked() {
+        rankings.refresh();
+
+        verify(userRepository, never()).findTotalsUpdatedSince(any());
+    }
+
+    @Test
+    void agreesWithABruteForceRankingAfterManyUpdates() {
+        Random random = new Random(7);
+        Map<Long, Integer> scores = new HashMap<>();
+        List<Object[]> initial = rows();
+        for (long id = 1; id <= 50; id++) {
+            scores.put(id, random.nextInt(300));
+            initial.add(row(id, "user" + id, scores.get(id), 1));
+        }
+        when(userRepository.findAllTotals()).thenReturn(initial);
+        rankings.top(1);
+
+        for (int round = 0; round < 20; round++) {
+            List<Object[]> updates = rows();
+            for (int i = 0; i < 5; i++) {
+                // Scores go down as well as up, and new users join past the initial capacity
+                long id = 1 + random.nextInt(60);
+                scores.put(id, random.nextInt(round < 10 ? 300 : 3000));
+                updates.add(row(id, "user" + id, scores.get(id), 1));
+            }
+            when(userRepository.findTotalsUpdatedSince(any())).thenReturn(updates);
+            rankings.refresh();
+
+            for (Map.Entry<Long, Integer> user : scores.entrySet()) {
+                long higher = scores.values().stream().filter(score -> score > user.getValue()).count();
+                assertThat(rankings.rankOf(user.getKey()).orElseThrow().getRank()).isEqualTo(higher + 1);
+            }
+        }
+        assertThat(rankings.top(scores.size())).extracting(GlobalRankEntry::getScore)
+                .isSortedAccordingTo((a, b) -> Integer.compare(b, a));
+    }
+
+    @Test
+    void keepsTheLastRankingWhenARefreshFails() {
+        when(userRepository.findAllTotals()).thenReturn(rows(row(1L, "alice", 300, 3)));
+        rankings.top(10);
+        when(userRepository.findTotalsUpdatedSince(any())).thenThrow(new IllegalStateException("database down"));
+
+        rankings.refresh();
+
+        assertThat(rankings.rankOf(1L).orElseThrow().getScore()).isEqualTo(300);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stampsUsersWithoutAnUpdateTimeOnStartup() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        when(userRepository.stampMissingScoreUpdates(any())).thenReturn(4);
+
+        rankings.backfillUpdateTimes();
+
+        verify(userRepository).stampMissingScoreUpdates(any());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Object[] row(Long id, String username, int score, int problemsSolved) {
+        return new Object[]{id, username, username, score, problemsSolved, LocalDateTime.now().minusHours(1)};
+    }
+}
@@ -0,0 +1,240 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ContestParticipant;
+import com.shodhacode.entity.SubmissionStatus;
+import com.shodhacode.entity.User;
+import com.shodhacode.repository.ContestParticipantRepository;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.SubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Versions, pages and change sets of a contest leaderboard, with the ranking query replaced
+ * by rows the test sets between refreshes; while frozen, by the verdict rows the scoreboard
+ * is rebuilt from.
+ */
+class LeaderboardServiceTest {
+
+    private static final Long CONTEST = 1L;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ContestRepository contestRepository = mock(ContestRepository.class);
+    private final ContestParticipantRepository participantRepository = mock(ContestParticipantRepository.class);
+    private final SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private final Contest contest = new Contest();
+    // Rows of the ranking query: [userId, username, fullName, score, solved, penalty, lastSubmittedAt, position]
+    private List<Object[]> ranking = new ArrayList<>();
+    private LeaderboardService service;
+
+    @BeforeEach
+    void setUp() {
+        contest.setId(CONTEST);
+        when(contestRepository.existsById(CONTEST)).thenReturn(true);
+        when(contestRepository.findById(CONTEST)).thenReturn(Optional.of(contest));
+        when(participantRepository.findIoiRankingByContestId(CONTEST)).thenAnswer(invocation -> ranking);
+        service = new LeaderboardService(contestRepository, participantRepository, submissionRepository,
+                mock(ScoringService.class), new CatalogCacheService(objectMapper));
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        ReflectionTestUtils.setField(service, "historySize", 3);
+        ReflectionTestUtils.setField(service, "idleTimeout", 300000L);
+    }
+
+    @Test
+    void keepsTheVersionWhileTheRankingIsUnchanged() throws IOException {
+        rank(row(1, 100), row(2, 50));
+        long version = version();
+
+        service.refresh();
+        assertThat(version()).isEqualTo(version);
+
+        // Another node, or this one after a restart, derives the same version
+        LeaderboardService other = new LeaderboardService(contestRepository, participantRepository,
+                mock(SubmissionRepository.class), mock(ScoringService.class), new CatalogCacheService(objectMapper));
+        assertThat(json(other.changes(CONTEST, version)).path("version").asLong()).isEqualTo(version);
+
+        rank(row(1, 100), row(2, 60));
+        service.refresh();
+        assertThat(version()).isNotEqualTo(version);
+    }
+
+    @Test
+    void sendsOnlyTheEntriesThatMovedOrChanged() throws IOException {
+        rank(row(1, 100), row(2, 50), row(3, 10));
+        long before = version();
+
+        rank(row(2, 150), row(1, 100), row(3, 10));
+        service.refresh();
+        JsonNode changes = json(service.changes(CONTEST, before));
+
+        assertThat(changes.path("full").asBoolean()).isFalse();
+        assertThat(changes.path("fromVersion").asLong()).isEqualTo(before);
+        assertThat(userIds(changes.path("changed"))).containsExactly(2L, 1L);
+        assertThat(changes.path("changed").get(0).path("rank").asInt()).isEqualTo(1);
+        assertThat(changes.path("removed")).isEmpty();
+    }
+
+    @Test
+    void listsUsersThatLeftTheRanking() throws IOException {
+        rank(row(1, 100), row(2, 50));
+        long before = version();
+
+        rank(row(1, 100));
+        service.refresh();
+        JsonNode changes = json(service.changes(CONTEST, before));
+
+        assertThat(changes.path("changed")).isEmpty();
+        assertThat(changes.path("removed").get(0).asLong()).isEqualTo(2L);
+        assertThat(changes.path("totalEntries").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void asksForAFullReloadOnceAVersionLeftTheHistory() throws IOException {
+        rank(row(1, 10));
+        long oldest = version();
+        for (int score = 20; score <= 50; score += 10) {
+            rank(row(1, score));
+            service.refresh();
+        }
+
+        assertThat(json(service.changes(CONTEST, oldest)).path("full").asBoolean()).isTrue();
+        assertThat(json(service.changes(CONTEST, 12345L)).path("full").asBoolean()).isTrue();
+    }
+
+    @Test
+    void splitsTheRankingIntoPages() throws IOException {
+        rank(row(1, 30), row(2, 20), row(3, 10));
+
+        JsonNode last = json(service.page(CONTEST, 1));
+        assertThat(last.path("totalPages").asInt()).isEqualTo(2);
+        assertThat(userIds(last.path("entries"))).containsExactly(3L);
+        assertThat(json(service.page(CONTEST, 7)).path("entries")).isEmpty();
+        assertThat(json(service.leaderboard(CONTEST))).hasSize(3);
+        assertThat(service.page(2L, 0)).isNull();
+    }
+
+    @Test
+    void holdsBackVerdictsOfSubmissionsMadeAfterTheFreeze() throws IOException {
+        LocalDateTime freeze = LocalDateTime.now().minusHours(1);
+        freeze(freeze, LocalDateTime.now().plusHours(1));
+        when(submissionRepository.findVerdictsByContestIdSubmittedBefore(CONTEST, freeze)).thenReturn(List.<Object[]>of(
+                verdict("s1", 1, 40, freeze.minusMinutes(10))));
+        when(submissionRepository.findVerdictsByContestIdJudgedSince(eq(CONTEST), any())).thenReturn(List.<Object[]>of(
+                verdict("s2", 2, 100, freeze.plusMinutes(5)),
+                verdict("s3", 1, 60, freeze.minusMinutes(1))));
+
+        JsonNode page = json(service.page(CONTEST, 0));
+
+        assertThat(page.path("frozen").asBoolean()).isTrue();
+        assertThat(userIds(page.path("entries"))).containsExactly(1L, 2L);
+        // Judged after the freeze but submitted before it: shown
+        assertThat(page.path("entries").get(0).path("score").asInt()).isEqualTo(60);
+        assertThat(page.path("entries").get(1).path("score").asInt()).isZero();
+        Map<Long, int[]> heldBack = service.heldBack();
+        assertThat(heldBack).containsOnlyKeys(2L);
+        assertThat(heldBack.get(2L)).containsExactly(100, 1);
+    }
+
+    @Test
+    void revealsTheHeldVerdictsAsOneChangeAtPublication() throws IOException {
+        LocalDateTime freeze = LocalDateTime.now().minusHours(1);
+        freeze(freeze, LocalDateTime.now().plusHours(1));
+        when(submissionRepository.findVerdictsByContestIdSubmittedBefore(CONTEST, freeze)).thenReturn(List.<Object[]>of(
+                verdict("s1", 1, 40, freeze.minusMinutes(10))));
+        when(submissionRepository.findVerdictsByContestIdJudgedSince(eq(CONTEST), any())).thenReturn(List.<Object[]>of(
+                verdict("s2", 2, 100, freeze.plusMinutes(5))));
+        long frozenVersion = version();
+
+        contest.setPublishTime(LocalDateTime.now().minusSeconds(1));
+        service.refresh();
+        JsonNode changes = json(service.changes(CONTEST, frozenVersion));
+
+        assertThat(changes.path("frozen").asBoolean()).isFalse();
+        assertThat(changes.path("full").asBoolean()).isFalse();
+        assertThat(userIds(changes.path("changed"))).containsExactly(2L, 1L);
+        assertThat(changes.path("changed").get(0).path("score").asInt()).isEqualTo(100);
+        assertThat(service.heldBack()).isEmpty();
+    }
+
+    @Test
+    void isFrozenFromTheFreezeUntilPublication() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+        contest.setEndTime(now.plusHours(1));
+
+        assertThat(LeaderboardService.isFrozen(contest, now)).isFalse();
+        contest.setFreezeTime(now);
+        assertThat(LeaderboardService.isFrozen(contest, now)).isTrue();
+        assertThat(LeaderboardService.isFrozen(contest, now.plusHours(1))).isFalse();
+        contest.setPublishTime(now.plusHours(2));
+        assertThat(LeaderboardService.isFrozen(contest, now.plusHours(1))).isTrue();
+        assertThat(LeaderboardService.isFrozen(contest, now.minusSeconds(1))).isFalse();
+    }
+
+    private void freeze(LocalDateTime freezeTime, LocalDateTime endTime) {
+        contest.setFreezeTime(freezeTime);
+        contest.setEndTime(endTime);
+        when(contestRepository.findByFreezeTimeLessThanEqual(any())).thenReturn(List.of(contest));
+        when(participantRepository.findByContestId(CONTEST)).thenAnswer(invocation -> new ArrayList<>(List.of(
+                participant(1), participant(2))));
+    }
+
+    private ContestParticipant participant(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("user" + userId);
+        ContestParticipant participant = new ContestParticipant();
+        participant.setUser(user);
+        participant.setContest(contest);
+        return participant;
+    }
+
+    // Rows of [id, userId, problemId, status, score, submittedAt, judgedAt, language]
+    private static Object[] verdict(String id, long userId, int score, LocalDateTime submittedAt) {
+        SubmissionStatus status = score == 100 ? SubmissionStatus.ACCEPTED : SubmissionStatus.PARTIALLY_ACCEPTED;
+        return new Object[]{id, userId, 1L, status, score, submittedAt, LocalDateTime.now().minusSeconds(10), null};
+    }
+
+    private void rank(Object[]... rows) {
+        ranking = new ArrayList<>(List.of(rows));
+        for (int i = 0; i < rows.length; i++) {
+            rows[i][7] = (long) i + 1;
+        }
+    }
+
+    private static Object[] row(long userId, int score) {
+        return new Object[]{userId, "user" + userId, "User " + userId, score, score > 0 ? 1 : 0, 0,
+                START.plusMinutes(userId), null};
+    }
+
+    private long version() throws IOException {
+        return json(service.page(CONTEST, 0)).path("version").asLong();
+    }
+
+    private JsonNode json(CatalogCacheService.Entry entry) throws IOException {
+        return objectMapper.readTree(entry.getBody());
+    }
+
+    private static List<Long> userIds(JsonNode entries) {
+        List<Long> ids = new ArrayList<>();
+        entries.forEach(entry -> ids.add(entry.path("userId").asLong()));
+        return ids;
+    }
+}
@@ -0,0 +1,221 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.dto.ProblemImportResult;
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.Problem;
+import com.shodhacode.repository.ContestRepository;
+import com.shodhacode.repository.ProblemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProblemImportServiceTest {
+
+    private static final String METADATA = "{\"title\":\"Max\",\"points\":100,\"timeLimit\":1000,\"memoryLimit\":256}";
+
+    private final ContestRepository contestRepository = mock(ContestRepository.class);
+    private final ProblemRepository problemRepository = mock(ProblemRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    // "sample <input>" or "hidden <input>" per inserted test, in insert order
+    private final List<String> insertedInputs = new ArrayList<>();
+    private ProblemImportService importService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        when(problemRepository.save(any(Problem.class))).thenAnswer(invocation -> {
+            Problem problem = invocation.getArgument(0);
+            problem.setId(1L);
+            return problem;
+        });
+        doAnswer(invocation -> {
+            Collection<Object> batch = invocation.getArgument(1);
+            ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+            for (Object test : batch) {
+                PreparedStatement ps = mock(PreparedStatement.class);
+                doAnswer(set -> {
+                    insertedInputs.add((set.<Boolean>getArgument(1) ? "hidden " : "sample "));
+                    return null;
+                }).when(ps).setBoolean(eq(2), any(Boolean.class));
+                doAnswer(set -> {
+                    int last = insertedInputs.size() - 1;
+                    insertedInputs.set(last, insertedInputs.get(last) + read(set.getArgument(1)));
+                    return null;
+                }).when(ps).setCharacterStream(eq(5), any(Reader.class));
+                setter.setValues(ps, test);
+            }
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+        importService = new ProblemImportService(contestRepository, problemRepository, jdbcTemplate,
+                transactionTemplate, new ObjectMapper());
+    }
+
+    @Test
+    void importsSamplesFirstAndTestsInNumericOrder() throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("max/problem.json", METADATA);
+        for (String name : List.of("10", "2", "1", "02a")) {
+            files.put("max/tests/" + name + ".in", name);
+            files.put("max/tests/" + name + ".out", name);
+        }
+        files.put("max/samples/1.in", "s1");
+        files.put("max/samples/1.out", "s1");
+
+        ProblemImportResult result = importService.importPackage(zip(files), null);
+
+        assertThat(result.getProblems()).hasSize(1);
+        assertThat(result.getTestCases()).isEqualTo(5);
+        assertThat(insertedInputs).containsExactly("sample s1", "hidden 1", "hidden 2", "hidden 02a", "hidden 10");
+    }
+
+    @Test
+    void rejectsTestDataThatIsNotUtf8() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            put(zip, "max/problem.json", METADATA.getBytes(StandardCharsets.UTF_8));
+            put(zip, "max/tests/1.in", new byte[]{(byte) 0xff, (byte) 0xfe, '1'});
+            put(zip, "max/tests/1.out", "1".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThatThrownBy(() -> importService.importPackage(new ByteArrayInputStream(bytes.toByteArray()), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("max/tests/1.in is not valid UTF-8");
+    }
+
+    @Test
+    void rejectsATestWithoutItsExpectedOutput() {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("problem.json", METADATA);
+        files.put("tests/1.in", "1");
+
+        assertThatThrownBy(() -> importService.importPackage(zip(files), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("needs both .in and .out");
+    }
+
+    @Test
+    void importsEveryProblemOfAPackageIntoTheContest() throws IOException {
+        Contest contest = new Contest();
+        contest.setId(4L);
+        when(contestRepository.findById(4L)).thenReturn(Optional.of(contest));
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("set/max/problem.json", METADATA);
+        files.put("set/min/problem.json", METADATA.replace("Max", "Min"));
+        for (int i = 1; i <= 120; i++) {
+            files.put("set/max/tests/" + i + ".in", "12345");
+            files.put("set/max/tests/" + i + ".out", "6");
+        }
+        files.put("set/min/samples/1.in", "1 2");
+        files.put("set/min/samples/1.out", "1");
+        files.put("set/README.md", "ignored");
+
+        ProblemImportResult result = importService.importPackage(zip(files), 4L);
+
+        assertThat(result.getProblems()).extracting("title").containsExactly("Max", "Min");
+        assertThat(result.getTestCases()).isEqualTo(121);
+        assertThat(result.getBytes()).isEqualTo(120 * 6 + 4);
+        // Inserted in batches, never all tests of a problem at once
+        verify(jdbcTemplate, times(4)).batchUpdate(anyString(), any(Collection.class), anyInt(), any());
+        verify(problemRepository, times(2)).save(argThat(problem -> problem.getContest() == contest));
+    }
+
+    @Test
+    void importsNothingIntoAContestThatDoesNotExist() {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("problem.json", METADATA);
+        files.put("tests/1.in", "1");
+        files.put("tests/1.out", "1");
+
+        assertThatThrownBy(() -> importService.importPackage(zip(files), 99L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Contest not found: 99");
+        verify(problemRepository, never()).save(any(Problem.class));
+    }
+
+    @Test
+    void rejectsAProblemWithoutTitleOrTests() {
+        Map<String, String> untitled = new LinkedHashMap<>();
+        untitled.put("problem.json", "{\"points\":100}");
+        untitled.put("tests/1.in", "1");
+        untitled.put("tests/1.out", "1");
+        Map<String, String> untested = new LinkedHashMap<>();
+        untested.put("problem.json", METADATA);
+
+        assertThatThrownBy(() -> importService.importPackage(zip(untitled), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Missing title");
+        assertThatThrownBy(() -> importService.importPackage(zip(untested), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No test cases");
+        verify(problemRepository, never()).save(any(Problem.class));
+    }
+
+    @Test
+    void comparesDigitRunsAsNumbers() {
+        assertThat(ProblemImportService.compareNames("2", "10")).isNegative();
+        assertThat(ProblemImportService.compareNames("test9", "test10")).isNegative();
+        assertThat(ProblemImportService.compareNames("a2b", "a2c")).isNegative();
+        assertThat(ProblemImportService.compareNames("b1", "a2")).isPositive();
+        assertThat(ProblemImportService.compareNames("01", "1")).isNotZero();
+        assertThat(ProblemImportService.compareNames("7", "7")).isZero();
+    }
+
+    private static ByteArrayInputStream zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                put(zip, file.getKey(), file.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    private static void put(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringWriter content = new StringWriter();
+        reader.transferTo(content);
+        return content.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.Contest;
+import com.shodhacode.entity.ProblemResult;
+import com.shodhacode.entity.ScoringModel;
+import com.shodhacode.entity.SubmissionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringRulesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Test
+    void keepsTheBestScoreAndWhenItWasFirstReached() {
+        ProblemResult result = new ProblemResult(1L, 1L);
+
+        ScoringRules.record(result, SubmissionStatus.PARTIALLY_ACCEPTED, 40, START.plusMinutes(5));
+        ScoringRules.record(result, SubmissionStatus.PARTIALLY_ACCEPTED, 30, START.plusMinutes(6));
+        ScoringRules.record(result, SubmissionStatus.PARTIALLY_ACCEPTED, 40, START.plusMinutes(7));
+
+        assertThat(result.getBestScore()).isEqualTo(40);
+        assertThat(result.getBestScoreAt()).isEqualTo(START.plusMinutes(5));
+    }
+
+    @Test
+    void countsRejectionsBeforeTheAcceptanceOnly() {
+        ProblemResult result = new ProblemResult(1L, 1L);
+
+        ScoringRules.record(result, SubmissionStatus.WRONG_ANSWER, 0, START.plusMinutes(1));
+        ScoringRules.record(result, SubmissionStatus.COMPILATION_ERROR, 0, START.plusMinutes(2));
+        ScoringRules.record(result, SubmissionStatus.TIME_LIMIT_EXCEEDED, 0, START.plusMinutes(3));
+        ScoringRules.record(result, SubmissionStatus.ACCEPTED, 100, START.plusMinutes(4));
+        ScoringRules.record(result, SubmissionStatus.WRONG_ANSWER, 0, START.plusMinutes(5));
+
+        assertThat(result.getRejectedAttempts()).isEqualTo(2);
+        assertThat(result.getLastRejectedAt()).isEqualTo(START.plusMinutes(3));
+        assertThat(result.getAcceptedAt()).isEqualTo(START.plusMinutes(4));
+    }
+
+    @Test
+    void asksForARecountWhenAnEarlierAcceptanceArrivesLate() {
+        ProblemResult result = new ProblemResult(1L, 1L);
+
+        ScoringRules.record(result, SubmissionStatus.WRONG_ANSWER, 0, START.plusMinutes(9));
+        boolean inOrder = ScoringRules.record(result, SubmissionStatus.ACCEPTED, 100, START.plusMinutes(4));
+
+        assertThat(inOrder).isFalse();
+        assertThat(result.getAcceptedAt()).isEqualTo(START.plusMinutes(4));
+    }
+
+    @Test
+    void sumsIcpcPenaltyFromTheStartAndRejectedAttempts() {
+        Contest contest = contest(ScoringModel.ICPC);
+        contest.setPenaltyMinutes(20);
+        ProblemResult solved = new ProblemResult(1L, 1L);
+        ScoringRules.record(solved, SubmissionStatus.WRONG_ANSWER, 0, START.plusMinutes(10));
+        ScoringRules.record(solved, SubmissionStatus.ACCEPTED, 100, START.plusMinutes(30));
+        ProblemResult unsolved = new ProblemResult(1L, 2L);
+        ScoringRules.record(unsolved, SubmissionStatus.PARTIALLY_ACCEPTED, 50, START.plusMinutes(40));
+
+        ScoringRules.Totals totals = ScoringRules.totals(contest, List.of(solved, unsolved));
+
+        assertThat(totals.getProblemsSolved()).isEqualTo(1);
+        assertThat(totals.getScore()).isEqualTo(100);
+        assertThat(totals.getPenalty()).isEqualTo(30 + 20);
+        assertThat(totals.getLastScoredAt()).isEqualTo(START.plusMinutes(30));
+    }
+
+    @Test
+    void countsPartialScoresUnderIoi() {
+        Contest contest = contest(ScoringModel.IOI);
+        ProblemResult partial = new ProblemResult(1L, 1L);
+        ScoringRules.record(partial, SubmissionStatus.PARTIALLY_ACCEPTED, 50, START.plusMinutes(40));
+
+        ScoringRules.Totals totals = ScoringRules.totals(contest, List.of(partial));
+
+        assertThat(totals.getScore()).isEqualTo(50);
+        assertThat(totals.getProblemsSolved()).isEqualTo(1);
+        assertThat(totals.getPenalty()).isZero();
+    }
+
+    @Test
+    void ranksIcpcBySolvedThenPenalty() {
+        ScoringRules.Totals fewerSolved = new ScoringRules.Totals(300, 1, 10, START);
+        ScoringRules.Totals morePenalty = new ScoringRules.Totals(200, 2, 90, START);
+        ScoringRules.Totals lessPenalty = new ScoringRules.Totals(200, 2, 60, START);
+
+        List<ScoringRules.Totals> ranked = List.of(fewerSolved, morePenalty, lessPenalty).stream()
+                .sorted(ScoringRules.ranking(ScoringModel.ICPC))
+                .toList();
+
+        assertThat(ranked).containsExactly(lessPenalty, morePenalty, fewerSolved);
+    }
+
+    @Test
+    void ranksIoiByScoreThenSolvedThenWhoGotThereFirst() {
+        ScoringRules.Totals lower = new ScoringRules.Totals(150, 3, 0, START);
+        ScoringRules.Totals later = new ScoringRules.Totals(200, 2, 0, START.plusMinutes(50));
+        ScoringRules.Totals earlier = new ScoringRules.Totals(200, 2, 0, START.plusMinutes(20));
+        ScoringRules.Totals moreSolved = new ScoringRules.Totals(200, 3, 0, START.plusMinutes(90));
+        ScoringRules.Totals nothing = new ScoringRules.Totals(0, 0, 0, null);
+
+        List<ScoringRules.Totals> ranked = List.of(nothing, lower, later, earlier, moreSolved).stream()
+                .sorted(ScoringRules.ranking(ScoringModel.IOI))
+                .toList();
+
+        assertThat(ranked).containsExactly(moreSolved, earlier, later, lower, nothing);
+    }
+
+    @Test
+    void endsInTheSameResultWhateverOrderVerdictsArriveIn() {
+        Object[][] verdicts = {
+                {SubmissionStatus.COMPILATION_ERROR, 0, START.plusMinutes(1)},
+                {SubmissionStatus.WRONG_ANSWER, 0, START.plusMinutes(2)},
+                {SubmissionStatus.PARTIALLY_ACCEPTED, 60, START.plusMinutes(3)},
+                {SubmissionStatus.ACCEPTED, 100, START.plusMinutes(4)},
+                {SubmissionStatus.ACCEPTED, 100, START.plusMinutes(5)}
+        };
+        ProblemResult inOrder = new ProblemResult(1L, 1L);
+        for (Object[] verdict : verdicts) {
+            ScoringRules.record(inOrder, (SubmissionStatus) verdict[0], (Integer) verdict[1], (LocalDateTime) verdict[2]);
+        }
+        ProblemResult reversed = new ProblemResult(1L, 1L);
+        for (int i = verdicts.length - 1; i >= 0; i--) {
+            Object[] verdict = verdicts[i];
+            ScoringRules.record(reversed, (SubmissionStatus) verdict[0], (Integer) verdict[1], (LocalDateTime) verdict[2]);
+        }
+
+        assertThat(reversed.getBestScore()).isEqualTo(inOrder.getBestScore()).isEqualTo(100);
+        assertThat(reversed.getBestScoreAt()).isEqualTo(inOrder.getBestScoreAt()).isEqualTo(START.plusMinutes(4));
+        assertThat(reversed.getAcceptedAt()).isEqualTo(inOrder.getAcceptedAt());
+        // The compilation error costs nothing
+        assertThat(reversed.getRejectedAttempts()).isEqualTo(inOrder.getRejectedAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void defaultsToIoiAndTwentyMinutesPerRejection() {
+        Contest contest = contest(null);
+        ProblemResult solved = new ProblemResult(1L, 1L);
+        ScoringRules.record(solved, SubmissionStatus.WRONG_ANSWER, 0, START.plusMinutes(5));
+        ScoringRules.record(solved, SubmissionStatus.ACCEPTED, 100, START.plusMinutes(10));
+
+        assertThat(ScoringRules.model(contest)).isEqualTo(ScoringModel.IOI);
+        assertThat(ScoringRules.model(null)).isEqualTo(ScoringModel.IOI);
+        contest.setScoringModel(ScoringModel.ICPC);
+        assertThat(ScoringRules.totals(contest, List.of(solved)).getPenalty()).isEqualTo(10 + 20);
+    }
+
+    private static Contest contest(ScoringModel model) {
+        Contest contest = new Contest();
+        contest.setStartTime(START);
+        contest.setScoringModel(model);
+        return contest;
+    }
+}
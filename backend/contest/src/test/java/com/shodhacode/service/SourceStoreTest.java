@@ -0,0 +1,90 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.CompressedTextConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reference counting and the legacy migration against an in-memory H2 database holding the
+ * tables the store touches, with the columns earlier versions kept source in.
+ */
+class SourceStoreTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SourceStore sourceStore;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:sources-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        sourceStore = new SourceStore(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        jdbcTemplate.execute("CREATE TABLE source_blobs (hash VARCHAR(64) PRIMARY KEY, ref_count INT NOT NULL, "
+                + "code VARBINARY(32768))");
+        jdbcTemplate.execute("CREATE TABLE submissions (id VARCHAR(36) PRIMARY KEY, source_hash VARCHAR(64), "
+                + "code VARCHAR(10000))");
+        jdbcTemplate.execute("CREATE TABLE submission_contents (submission_id VARCHAR(36) PRIMARY KEY, "
+                + "code VARBINARY(32768))");
+    }
+
+    @Test
+    void storesEachDistinctSourceOnceWithItsReferences() {
+        sourceStore.retain(List.of("print(1)", "print(2)", "print(1)"));
+        sourceStore.retain(List.of("print(1)"));
+
+        assertThat(references("print(1)")).isEqualTo(3);
+        assertThat(references("print(2)")).isEqualTo(1);
+        byte[] stored = jdbcTemplate.queryForObject("SELECT code FROM source_blobs WHERE hash = ?", byte[].class,
+                SourceStore.hash("print(1)"));
+        assertThat(CompressedTextConverter.decompress(stored)).isEqualTo("print(1)");
+    }
+
+    @Test
+    void deletesASourceWithItsLastReference() {
+        sourceStore.retain(List.of("print(1)", "print(1)", "print(2)"));
+
+        sourceStore.release(Arrays.asList(SourceStore.hash("print(1)"), SourceStore.hash("print(2)"), null));
+        assertThat(references("print(1)")).isEqualTo(1);
+        assertThat(references("print(2)")).isNull();
+
+        sourceStore.release(List.of(SourceStore.hash("print(1)")));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM source_blobs", Integer.class)).isZero();
+    }
+
+    @Test
+    void movesLegacySourcesIntoTheStoreOnce() {
+        jdbcTemplate.update("INSERT INTO submissions (id, code) VALUES ('inline-1', 'print(1)')");
+        jdbcTemplate.update("INSERT INTO submissions (id, code) VALUES ('inline-2', 'print(1)')");
+        jdbcTemplate.update("INSERT INTO submissions (id) VALUES ('compressed')");
+        jdbcTemplate.update("INSERT INTO submission_contents VALUES ('compressed', ?)",
+                (Object) CompressedTextConverter.compress("print(2)"));
+
+        sourceStore.migrateLegacySources();
+        sourceStore.migrateLegacySources();
+
+        assertThat(references("print(1)")).isEqualTo(2);
+        assertThat(references("print(2)")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT source_hash FROM submissions WHERE id = 'compressed'",
+                String.class)).isEqualTo(SourceStore.hash("print(2)"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submissions WHERE code IS NOT NULL",
+                Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submission_contents WHERE code IS NOT NULL",
+                Integer.class)).isZero();
+    }
+
+    private Integer references(String code) {
+        List<Integer> counts = jdbcTemplate.queryForList("SELECT ref_count FROM source_blobs WHERE hash = ?",
+                Integer.class, SourceStore.hash(code));
+        return counts.isEmpty() ? null : counts.get(0);
+    }
+}
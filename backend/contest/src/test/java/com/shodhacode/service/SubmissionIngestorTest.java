@@ -0,0 +1,172 @@
+package com.shodhacode.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodhacode.dto.SubmissionResult;
+import com.shodhacode.entity.ProgrammingLanguage;
+import com.shodhacode.entity.SubmissionStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The log's recovery path: what a node acknowledged but never inserted is inserted by the next
+ * start. A node "crashes" here by shutting down while the database refuses every insert.
+ */
+class SubmissionIngestorTest {
+
+    @TempDir
+    Path logDir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleQueueService queueService = mock(SimpleQueueService.class);
+
+    @Test
+    void insertsWhatThePreviousRunAcknowledged() {
+        String id = acceptWhileDatabaseIsDown();
+
+        SubmissionIngestor restarted = ingestor(databaseUp(), "update");
+        restarted.init();
+
+        SubmissionResult pending = restarted.findPendingResult(id).orElseThrow();
+        assertThat(pending.getStatus()).isEqualTo(SubmissionStatus.PENDING);
+        assertThat(pending.getProblemId()).isEqualTo(3L);
+        assertThat(restarted.findPendingSource(id).orElseThrow().getCode()).isEqualTo("print(1)");
+
+        restarted.flush();
+
+        verify(queueService).addToQueue(eq(id), eq(1L), eq(7L), eq(2));
+        assertThat(restarted.findPendingResult(id)).isEmpty();
+        restarted.shutdown();
+    }
+
+    @Test
+    void cutsOffATornRecordAtTheEnd() throws IOException {
+        String id = acceptWhileDatabaseIsDown();
+        Path log = logDir.resolve("submissions.log");
+        long intact = Files.size(log);
+        // Length of a record that never finished writing
+        Files.write(log, new byte[]{0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        SubmissionIngestor restarted = ingestor(databaseUp(), "update");
+        restarted.init();
+
+        assertThat(restarted.findPendingResult(id)).isPresent();
+        assertThat(Files.size(log)).isEqualTo(intact);
+        restarted.shutdown();
+    }
+
+    @Test
+    void discardsTheLogWhenTheSchemaWasRecreated() throws IOException {
+        String id = acceptWhileDatabaseIsDown();
+
+        SubmissionIngestor restarted = ingestor(databaseUp(), "create-drop");
+        restarted.init();
+        restarted.flush();
+
+        assertThat(restarted.findPendingResult(id)).isEmpty();
+        assertThat(Files.size(logDir.resolve("submissions.log"))).isZero();
+        verify(queueService, never()).addToQueue(eq(id), any(), any(), eq(2));
+        restarted.shutdown();
+    }
+
+    @Test
+    void queuesARecordThatWasInsertedButNotJudgedBeforeTheRestart() {
+        String id = acceptWhileDatabaseIsDown();
+        alreadyInserted(id, "PENDING");
+
+        SubmissionIngestor restarted = ingestor(databaseUp(), "update");
+        restarted.init();
+        restarted.flush();
+
+        verify(queueService).addToQueue(eq(id), eq(1L), eq(7L), eq(2));
+        assertThat(restarted.findPendingResult(id)).isEmpty();
+        restarted.shutdown();
+    }
+
+    @Test
+    void dropsARecordThatWasAlreadyJudgedOrLostItsProblem() {
+        String judged = acceptWhileDatabaseIsDown();
+        String orphaned = acceptWhileDatabaseIsDown();
+        alreadyInserted(judged, "ACCEPTED");
+        alreadyInserted(orphaned);
+
+        SubmissionIngestor restarted = ingestor(databaseUp(), "update");
+        restarted.init();
+        restarted.flush();
+
+        verify(queueService, never()).addToQueue(any(), any(), any(), eq(2));
+        assertThat(restarted.findPendingResult(judged)).isEmpty();
+        assertThat(restarted.findPendingResult(orphaned)).isEmpty();
+        restarted.shutdown();
+        // Everything in the log is settled, so it is emptied
+        assertThat(logDir.resolve("submissions.log")).isEmptyFile();
+    }
+
+    // The database refuses every insert; the given statuses are what it holds for the id
+    @SuppressWarnings("unchecked")
+    private void alreadyInserted(String id, String... status) {
+        DuplicateKeyException duplicate = new DuplicateKeyException("duplicate key");
+        doThrow(duplicate).when(jdbcTemplate).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        doThrow(duplicate).when(jdbcTemplate).update(anyString(), any(PreparedStatementSetter.class));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(id))).thenReturn(List.of(status));
+    }
+
+    private String acceptWhileDatabaseIsDown() {
+        TransactionTemplate down = mock(TransactionTemplate.class);
+        doThrow(new IllegalStateException("database down")).when(down).executeWithoutResult(any());
+        SubmissionIngestor first = ingestor(down, "update");
+        first.init();
+        String id = first.accept(1L, 3L, ProgrammingLanguage.PYTHON3, "print(1)", false, 7L, 2);
+        first.shutdown();
+        verify(queueService, never()).addToQueue(eq(id), any(), any(), eq(2));
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TransactionTemplate databaseUp() {
+        TransactionTemplate up = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(up).executeWithoutResult(any());
+        return up;
+    }
+
+    private SubmissionIngestor ingestor(TransactionTemplate transactionTemplate, String ddlAuto) {
+        SubmissionIngestor ingestor = new SubmissionIngestor(jdbcTemplate, transactionTemplate,
+                new ObjectMapper().findAndRegisterModules(), queueService, mock(SourceStore.class));
+        ReflectionTestUtils.setField(ingestor, "enabled", true);
+        ReflectionTestUtils.setField(ingestor, "logDir", logDir.toString());
+        ReflectionTestUtils.setField(ingestor, "remotePendingWindow", 120000L);
+        ReflectionTestUtils.setField(ingestor, "ddlAuto", ddlAuto);
+        ReflectionTestUtils.setField(ingestor, "maxLogSizeMb", 64L);
+        return ingestor;
+    }
+}
@@ -0,0 +1,92 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeVerdict;
+import com.shodhacode.dto.SubmissionResult;
+import com.shodhacode.entity.SubmissionStatus;
+import com.shodhacode.repository.SubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubmissionStatusTrackerTest {
+
+    private SubmissionRepository submissionRepository;
+    private SubmissionStatusTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository = mock(SubmissionRepository.class);
+        tracker = new SubmissionStatusTracker(submissionRepository);
+    }
+
+    @Test
+    void refreshReadsEveryStoredSubscriptionInOneQuery() {
+        tracker.subscribe(result("queued", SubmissionStatus.PENDING));
+        tracker.subscribe(result("judged", SubmissionStatus.PENDING));
+        tracker.subscribe(result("judged-here", SubmissionStatus.PENDING));
+        tracker.markRunning("running-here", 3);
+        tracker.subscribe(result("running-here", SubmissionStatus.PENDING));
+        when(submissionRepository.findResultsByIdIn(anyCollection())).thenReturn(List.of(
+                result("queued", SubmissionStatus.RUNNING), result("judged", SubmissionStatus.ACCEPTED)));
+        // Its verdict completes the subscribers at once; nothing is left to read for it
+        tracker.complete(JudgeVerdict.builder().submissionId("judged-here").status(SubmissionStatus.ACCEPTED)
+                .totalTestCases(1).testCasesPassed(1).build());
+
+        tracker.refreshSubscribers();
+
+        verify(submissionRepository).findResultsByIdIn(argThatContainsExactly("queued", "judged"));
+        verify(submissionRepository, never()).findResultById(anyString());
+        assertThat(subscribers()).containsOnlyKeys("queued", "running-here");
+    }
+
+    @Test
+    void refreshSkipsTheQueryWithoutStoredSubscriptions() {
+        tracker.markRunning("running-here", 3);
+        tracker.subscribe(result("running-here", SubmissionStatus.PENDING));
+
+        tracker.refreshSubscribers();
+
+        verify(submissionRepository, never()).findResultsByIdIn(any());
+    }
+
+    @Test
+    void finishedSubmissionIsNotSubscribed() {
+        tracker.subscribe(result("judged", SubmissionStatus.ACCEPTED));
+
+        tracker.refreshSubscribers();
+
+        assertThat(subscribers()).isEmpty();
+        verify(submissionRepository, never()).findResultsByIdIn(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> subscribers() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(tracker, "subscribers");
+    }
+
+    private static Collection<String> argThatContainsExactly(String... ids) {
+        return argThat(actual -> actual != null
+                && actual.size() == ids.length && actual.containsAll(List.of(ids)));
+    }
+
+    private static SubmissionResult result(String id, SubmissionStatus status) {
+        SubmissionResult result = new SubmissionResult();
+        result.setId(id);
+        result.setStatus(status);
+        return result;
+    }
+}
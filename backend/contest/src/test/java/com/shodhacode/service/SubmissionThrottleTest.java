@@ -0,0 +1,68 @@
+package com.shodhacode.service;
+
+import com.shodhacode.entity.Contest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubmissionThrottleTest {
+
+    @Test
+    void allowsABurstThenAsksToWaitForTheNextToken() {
+        SubmissionThrottle throttle = throttle(6, 3);
+        ContestAccessCache.ContestAccess contest = contest(1L, null, null);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.tryAcquire(1L, contest)).isZero();
+        }
+
+        // One token every 10 seconds at 6 per minute
+        assertThat(throttle.tryAcquire(1L, contest)).isBetween(9000L, 10000L);
+    }
+
+    @Test
+    void keepsABucketPerContestantAndContest() {
+        SubmissionThrottle throttle = throttle(6, 1);
+        ContestAccessCache.ContestAccess first = contest(1L, null, null);
+        ContestAccessCache.ContestAccess second = contest(2L, null, null);
+
+        assertThat(throttle.tryAcquire(1L, first)).isZero();
+        assertThat(throttle.tryAcquire(1L, first)).isPositive();
+        assertThat(throttle.tryAcquire(2L, first)).isZero();
+        assertThat(throttle.tryAcquire(1L, second)).isZero();
+        assertThat(throttle.tryAcquire(1L, ContestAccessCache.ContestAccess.NONE)).isZero();
+    }
+
+    @Test
+    void appliesTheContestsOwnRateAndBurst() {
+        SubmissionThrottle throttle = throttle(6, 1);
+        ContestAccessCache.ContestAccess generous = contest(1L, 60, 2);
+        ContestAccessCache.ContestAccess unlimited = contest(2L, 0, null);
+
+        assertThat(throttle.tryAcquire(1L, generous)).isZero();
+        assertThat(throttle.tryAcquire(1L, generous)).isZero();
+        assertThat(throttle.tryAcquire(1L, generous)).isBetween(900L, 1000L);
+        for (int i = 0; i < 20; i++) {
+            assertThat(throttle.tryAcquire(1L, unlimited)).isZero();
+        }
+    }
+
+    private static SubmissionThrottle throttle(int perMinute, int burst) {
+        SubmissionThrottle throttle = new SubmissionThrottle();
+        ReflectionTestUtils.setField(throttle, "enabled", true);
+        ReflectionTestUtils.setField(throttle, "defaultPerMinute", perMinute);
+        ReflectionTestUtils.setField(throttle, "defaultBurst", burst);
+        return throttle;
+    }
+
+    private static ContestAccessCache.ContestAccess contest(Long id, Integer perMinute, Integer burst) {
+        Contest contest = new Contest();
+        contest.setId(id);
+        contest.setSubmissionsPerMinute(perMinute);
+        contest.setSubmissionBurst(burst);
+        return new ContestAccessCache.ContestAccess(contest, new BitSet());
+    }
+}
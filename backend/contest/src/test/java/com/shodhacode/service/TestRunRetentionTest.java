@@ -0,0 +1,98 @@
+package com.shodhacode.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Purging against an in-memory H2 database with the tables a test run spans; sources go
+ * through the real blob store so shared ones are seen to survive.
+ */
+class TestRunRetentionTest {
+
+    private static final LocalDateTime OLD = LocalDateTime.now().minusHours(2);
+
+    private JdbcTemplate jdbcTemplate;
+    private SourceStore sourceStore;
+    private TestRunRetention retention;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:retention-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        sourceStore = new SourceStore(jdbcTemplate, transactionTemplate);
+        retention = new TestRunRetention(jdbcTemplate, transactionTemplate, sourceStore);
+        ReflectionTestUtils.setField(retention, "retention", 3600000L);
+        jdbcTemplate.execute("CREATE TABLE source_blobs (hash VARCHAR(64) PRIMARY KEY, ref_count INT NOT NULL, "
+                + "code VARBINARY(32768))");
+        jdbcTemplate.execute("CREATE TABLE submissions (id VARCHAR(36) PRIMARY KEY, is_test_run BOOLEAN, "
+                + "status VARCHAR(32), submitted_at TIMESTAMP, source_hash VARCHAR(64))");
+        jdbcTemplate.execute("CREATE TABLE submission_contents (submission_id VARCHAR(36) PRIMARY KEY)");
+    }
+
+    @Test
+    void purgesOnlyJudgedTestRunsPastTheRetention() {
+        insert("expired", true, "ACCEPTED", OLD, "print(1)");
+        insert("recent", true, "ACCEPTED", LocalDateTime.now(), "print(2)");
+        insert("still-queued", true, "PENDING", OLD, "print(3)");
+        insert("judging", true, "RUNNING", OLD, "print(4)");
+        insert("submission", false, "WRONG_ANSWER", OLD, "print(5)");
+
+        retention.purgeExpired();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM submissions ORDER BY id", String.class))
+                .containsExactly("judging", "recent", "still-queued", "submission");
+        assertThat(jdbcTemplate.queryForList("SELECT submission_id FROM submission_contents", String.class))
+                .doesNotContain("expired");
+        assertThat(references("print(1)")).isZero();
+        assertThat(references("print(2)")).isEqualTo(1);
+    }
+
+    @Test
+    void keepsASourceAnotherSubmissionStillRefersTo() {
+        insert("run", true, "ACCEPTED", OLD, "print(1)");
+        insert("submit", false, "ACCEPTED", OLD, "print(1)");
+
+        retention.purgeExpired();
+
+        assertThat(references("print(1)")).isEqualTo(1);
+    }
+
+    @Test
+    void purgesABacklogLargerThanOneBatch() {
+        for (int i = 0; i < 1203; i++) {
+            insert("run-" + i, true, "ACCEPTED", OLD, "print(" + i % 7 + ")");
+        }
+
+        retention.purgeExpired();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submissions", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM source_blobs", Integer.class)).isZero();
+    }
+
+    private void insert(String id, boolean testRun, String status, LocalDateTime submittedAt, String code) {
+        jdbcTemplate.update("INSERT INTO submissions VALUES (?, ?, ?, ?, ?)", id, testRun, status,
+                Timestamp.valueOf(submittedAt), SourceStore.hash(code));
+        jdbcTemplate.update("INSERT INTO submission_contents VALUES (?)", id);
+        sourceStore.retain(List.of(code));
+    }
+
+    private int references(String code) {
+        List<Integer> counts = jdbcTemplate.queryForList("SELECT ref_count FROM source_blobs WHERE hash = ?",
+                Integer.class, SourceStore.hash(code));
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+}
@@ -0,0 +1,179 @@
+package com.shodhacode.service;
+
+import com.shodhacode.dto.JudgeVerdict;
+import com.shodhacode.entity.CompressedTextConverter;
+import com.shodhacode.entity.SubmissionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verdict writes against an in-memory H2 database with the columns they touch; this worker is
+ * {@code worker-a}, rows claimed by anyone else have been taken over.
+ */
+class VerdictWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SubmissionStatusTracker statusTracker;
+    private ScoringService scoringService;
+    private VerdictWriter writer;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:verdicts-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        statusTracker = mock(SubmissionStatusTracker.class);
+        scoringService = mock(ScoringService.class);
+        DatabaseSubmissionQueue queue = mock(DatabaseSubmissionQueue.class);
+        when(queue.getWorkerId()).thenReturn("worker-a");
+        writer = new VerdictWriter(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                statusTracker, scoringService, queue);
+        jdbcTemplate.execute("CREATE TABLE submissions (id VARCHAR(36) PRIMARY KEY, status VARCHAR(32), score INT, "
+                + "test_cases_passed INT, total_test_cases INT, execution_time BIGINT, error_message VARCHAR(16), "
+                + "judged_at TIMESTAMP, claimed_by VARCHAR(64))");
+        jdbcTemplate.execute("CREATE TABLE submission_contents (submission_id VARCHAR(36) PRIMARY KEY, "
+                + "output VARBINARY(4096))");
+    }
+
+    @Test
+    void writesTheBatchAndScoresItOnceCommitted() {
+        insert("claimed", "worker-a");
+        insert("memory-queue", null);
+        JudgeVerdict first = verdict("claimed", "ok");
+        JudgeVerdict second = verdict("memory-queue", "ok");
+        List<Boolean> outcomes = new ArrayList<>();
+
+        writer.submit(first);
+        writer.submit(second);
+        writer.whenWritten("claimed", outcomes::add);
+        writer.flush();
+
+        assertThat(jdbcTemplate.queryForList("SELECT status FROM submissions ORDER BY id", String.class))
+                .containsExactly("ACCEPTED", "ACCEPTED");
+        assertThat(output("claimed")).isEqualTo("output of claimed");
+        verify(statusTracker).persisted(List.of(first, second));
+        verify(scoringService).applyVerdict(first);
+        verify(scoringService).applyVerdict(second);
+        assertThat(outcomes).containsExactly(true);
+    }
+
+    @Test
+    void dropsTheVerdictOfASubmissionAnotherWorkerTookOver() {
+        insert("mine", "worker-a");
+        insert("taken-over", "worker-b");
+        JudgeVerdict mine = verdict("mine", "ok");
+        JudgeVerdict stale = verdict("taken-over", "ok");
+        List<Boolean> outcomes = new ArrayList<>();
+
+        writer.submit(mine);
+        writer.submit(stale);
+        writer.whenWritten("taken-over", outcomes::add);
+        writer.flush();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM submissions WHERE id = 'taken-over'", String.class))
+                .isEqualTo("RUNNING");
+        assertThat(output("taken-over")).isNull();
+        assertThat(output("mine")).isEqualTo("output of mine");
+        verify(statusTracker).discard(stale);
+        verify(scoringService).applyVerdict(mine);
+        verify(scoringService, never()).applyVerdict(stale);
+        // Nothing for this worker to redo: the other worker's verdict stands
+        assertThat(outcomes).containsExactly(true);
+    }
+
+    @Test
+    void failedRowIsRetriedWhileTheRestOfTheBatchIsWritten() {
+        insert("good", "worker-a");
+        insert("bad", "worker-a");
+        JudgeVerdict good = verdict("good", "ok");
+        JudgeVerdict bad = verdict("bad", "an error message too long for the column");
+        List<Boolean> outcomes = new ArrayList<>();
+
+        writer.submit(good);
+        writer.submit(bad);
+        writer.whenWritten("bad", outcomes::add);
+        writer.flush();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM submissions WHERE id = 'good'", String.class))
+                .isEqualTo("ACCEPTED");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM submissions WHERE id = 'bad'", String.class))
+                .isEqualTo("RUNNING");
+        verify(scoringService).applyVerdict(good);
+        verify(scoringService, never()).applyVerdict(bad);
+        verify(statusTracker, never()).discard(any());
+        // Waiting out the backoff, not given up on
+        assertThat(outcomes).isEmpty();
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        insert("bad", "worker-a");
+        JudgeVerdict bad = verdict("bad", "an error message too long for the column");
+        failedAttempts().put("bad", 7);
+        List<Boolean> outcomes = new ArrayList<>();
+
+        writer.submit(bad);
+        writer.whenWritten("bad", outcomes::add);
+        writer.flush();
+
+        verify(statusTracker).discard(bad);
+        verify(scoringService, never()).applyVerdict(any());
+        assertThat(outcomes).containsExactly(false);
+        assertThat(failedAttempts()).isEmpty();
+    }
+
+    @Test
+    void whenWrittenRunsAtOnceWithNothingPending() {
+        List<Boolean> outcomes = new ArrayList<>();
+
+        writer.whenWritten("unknown", outcomes::add);
+
+        assertThat(outcomes).containsExactly(true);
+    }
+
+    private void insert(String id, String claimedBy) {
+        jdbcTemplate.update("INSERT INTO submissions (id, status, claimed_by) VALUES (?, 'RUNNING', ?)", id, claimedBy);
+        jdbcTemplate.update("INSERT INTO submission_contents (submission_id) VALUES (?)", id);
+    }
+
+    private String output(String id) {
+        byte[] stored = jdbcTemplate.queryForObject(
+                "SELECT output FROM submission_contents WHERE submission_id = ?", byte[].class, id);
+        return stored == null ? null : CompressedTextConverter.decompress(stored);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Integer> failedAttempts() {
+        return (Map<String, Integer>) ReflectionTestUtils.getField(writer, "failedAttempts");
+    }
+
+    private static JudgeVerdict verdict(String id, String errorMessage) {
+        return JudgeVerdict.builder()
+                .submissionId(id)
+                .status(SubmissionStatus.ACCEPTED)
+                .score(100)
+                .testCasesPassed(3)
+                .totalTestCases(3)
+                .executionTime(12L)
+                .output("output of " + id)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
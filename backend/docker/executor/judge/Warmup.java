@@ -0,0 +1,42 @@
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Exercises the library classes typical solutions use, so the class list dumped
+ * while it runs puts them into the CDS archive.
+ */
+public class Warmup {
+    public static void main(String[] args) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        StringTokenizer tokens = new StringTokenizer(reader.readLine());
+        int n = Integer.parseInt(tokens.nextToken());
+        Scanner scanner = new Scanner("1 2 3\nhello");
+        long sum = scanner.nextLong() + scanner.nextInt() + scanner.nextInt();
+        scanner.nextLine();
+
+        List<Integer> list = new ArrayList<>(List.of(3, 1, 2));
+        Collections.sort(list);
+        Map<String, Integer> map = new HashMap<>();
+        map.merge("a", 1, Integer::sum);
+        TreeMap<Integer, Integer> tree = new TreeMap<>(Map.of(1, 1));
+        Deque<Integer> deque = new ArrayDeque<>(list);
+        PriorityQueue<long[]> heap = new PriorityQueue<>(Comparator.comparingLong(a -> a[0]));
+        heap.add(new long[]{sum, n});
+        Set<Long> set = new HashSet<>(Arrays.asList(1L, 2L));
+        int[] array = IntStream.range(0, n).map(i -> -i).sorted().toArray();
+        String joined = list.stream().map(String::valueOf).collect(Collectors.joining(" "));
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d %.2f %s%n", sum, Math.sqrt(n), joined));
+        out.append(tree.firstKey()).append(deque.peek()).append(heap.poll()[1]).append(set.size())
+                .append(array.length).append(Arrays.toString(array)).append(map);
+        PrintWriter writer = new PrintWriter(System.out);
+        writer.println(out);
+        writer.flush();
+        System.out.println(Long.MAX_VALUE + " " + Double.parseDouble("1.5") + " " + new java.math.BigInteger("12345"));
+    }
+}
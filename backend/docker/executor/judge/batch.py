@@ -0,0 +1,193 @@
+#!/usr/bin/env python3
+"""Runs every test case of a submission inside one sandbox.
+
+Usage: batch.py <tests dir>
+<tests dir>/manifest.json holds
+    {"command": ..., "user": ..., "tests": [{"timeLimit": ms, "outputLimit": bytes}, ...]}
+and test i reads <tests dir>/<i>.in. As soon as a test ends one record is printed on stdout:
+    __JUDGE_TEST__ <i> <exit code> <timed out 0|1> <user ms> <peak RSS KB> <output limit exceeded 0|1>
+        <stdout b64> <stderr b64>
+Output beyond the limit is read and discarded.
+User time runs from the launcher's mark in $JUDGE_START_FD (see run.py), or from the start of
+the command when it never marks, to the end of the program; it is measured here, outside it.
+Signalled programs get exit code 128 + signal, like in the shell. Memory limits are checked by
+the judge against the peak RSS; the sandbox itself is capped at the largest one.
+
+The runner must start as root; every test runs as the unprivileged "user", so it cannot read
+other tests' data, signal or inspect the runner, or write to its stdout. All inputs are read
+and the tests directory removed before the first test starts, and everything a test left
+behind (processes and files) is removed before the next one.
+"""
+import base64
+import ctypes
+import json
+import os
+import pwd
+import shutil
+import signal
+import subprocess
+import sys
+import threading
+import time
+
+PR_SET_CHILD_SUBREAPER = 36
+# Places the test user can write to outside the read-only work directory
+SCRATCH_DIRS = ('/tmp', '/var/tmp', '/dev/shm')
+
+
+class Capture:
+    def __init__(self, limit):
+        self.chunks = []
+        self.room = limit
+        self.exceeded = False
+
+    def drain(self, pipe):
+        for chunk in iter(lambda: pipe.read(65536), b''):
+            if len(chunk) > self.room:
+                self.exceeded = True
+                chunk = chunk[:self.room]
+            self.room -= len(chunk)
+            if chunk:
+                self.chunks.append(chunk)
+        pipe.close()
+
+
+def feed(pipe, data):
+    try:
+        pipe.write(data)
+        pipe.close()
+    except BrokenPipeError:
+        # The program exited without reading all of its input
+        pass
+
+
+def encode(chunks):
+    return base64.b64encode(b''.join(chunks)).decode('ascii') or '-'
+
+
+def await_start(pipe, started):
+    # The first byte marks the start of user code
+    if os.read(pipe, 1):
+        started[0] = time.monotonic()
+    os.close(pipe)
+
+
+def clear_user(user):
+    """Kills every process of the test user and deletes its files, as that user."""
+    helper = os.fork()
+    if helper == 0:
+        try:
+            os.setgroups([])
+            os.setgid(user.pw_gid)
+            os.setuid(user.pw_uid)
+            # kill(-1) reaches every process of this uid but the caller; repeat for forks it raced
+            for _ in range(3):
+                try:
+                    os.kill(-1, signal.SIGKILL)
+                except ProcessLookupError:
+                    break
+            for directory in SCRATCH_DIRS + (user.pw_dir,):
+                remove_owned(directory, user.pw_uid)
+        finally:
+            os._exit(0)
+    os.waitpid(helper, 0)
+    # Orphans of the test were adopted by this process (child subreaper); reap them
+    while True:
+        try:
+            if os.waitpid(-1, os.WNOHANG)[0] == 0:
+                break
+        except ChildProcessError:
+            break
+
+
+def remove_owned(directory, uid):
+    try:
+        entries = os.listdir(directory)
+    except OSError:
+        return
+    for name in entries:
+        path = os.path.join(directory, name)
+        try:
+            if os.lstat(path).st_uid != uid:
+                continue
+            if os.path.isdir(path) and not os.path.islink(path):
+                shutil.rmtree(path, ignore_errors=True)
+            else:
+                os.unlink(path)
+        except OSError:
+            pass
+
+
+def run_test(index, data, command, time_limit, output_limit, user):
+    # Output is captured through pipes, so it does not count against the work directory's
+    # quota and the next test cannot touch it
+    start_read, start_write = os.pipe()
+    env = {'PATH': os.environ.get('PATH', '/usr/bin:/bin'), 'HOME': user.pw_dir, 'LANG': 'C.UTF-8',
+           'JUDGE_START_FD': str(start_write)}
+    started = [time.monotonic()]
+    proc = subprocess.Popen(['/bin/bash', '-c', command], stdin=subprocess.PIPE, stdout=subprocess.PIPE,
+                            stderr=subprocess.PIPE, start_new_session=True, pass_fds=(start_write,), env=env,
+                            user=user.pw_uid, group=user.pw_gid, extra_groups=[])
+    os.close(start_write)
+    marker = threading.Thread(target=await_start, args=(start_read, started), daemon=True)
+    marker.start()
+    stdout, stderr = Capture(output_limit), Capture(output_limit)
+    pumps = [threading.Thread(target=stdout.drain, args=(proc.stdout,)),
+             threading.Thread(target=stderr.drain, args=(proc.stderr,)),
+             threading.Thread(target=feed, args=(proc.stdin, data))]
+    for pump in pumps:
+        pump.start()
+
+    timed_out = threading.Event()
+
+    def expire():
+        timed_out.set()
+        try:
+            os.killpg(proc.pid, signal.SIGKILL)
+        except ProcessLookupError:
+            pass
+
+    timer = threading.Timer(time_limit / 1000.0, expire)
+    timer.start()
+    # wait4 rather than Popen.wait: it also returns the child's resource usage
+    _, status, usage = os.wait4(proc.pid, 0)
+    ended = time.monotonic()
+    timer.cancel()
+    proc.returncode = os.waitstatus_to_exitcode(status)
+    # Nothing the program started may outlive its test (or hold the pipes open)
+    clear_user(user)
+    for pump in pumps:
+        pump.join()
+    marker.join()
+    wall = int((ended - started[0]) * 1000)
+
+    exit_code = proc.returncode if proc.returncode >= 0 else 128 - proc.returncode
+    return '__JUDGE_TEST__ %d %d %d %d %d %d %s %s' % (
+        index, exit_code, 1 if timed_out.is_set() else 0, wall, usage.ru_maxrss,
+        1 if stdout.exceeded or stderr.exceeded else 0, encode(stdout.chunks), encode(stderr.chunks))
+
+
+def main():
+    directory = sys.argv[1]
+    if os.geteuid() != 0:
+        sys.exit('batch.py must start as root to run tests as another user')
+    with open(os.path.join(directory, 'manifest.json')) as f:
+        manifest = json.load(f)
+    user = pwd.getpwnam(manifest['user'])
+    inputs = []
+    for index in range(1, len(manifest['tests']) + 1):
+        with open(os.path.join(directory, '%d.in' % index), 'rb') as f:
+            inputs.append(f.read())
+    shutil.rmtree(directory)
+
+    # The test user may read and run the compiled solution, but not change it
+    os.chmod(os.getcwd(), 0o755)
+    ctypes.CDLL(None, use_errno=True).prctl(PR_SET_CHILD_SUBREAPER, 1, 0, 0, 0)
+
+    for index, test in enumerate(manifest['tests'], start=1):
+        print(run_test(index, inputs[index - 1], manifest['command'], test['timeLimit'], test['outputLimit'], user),
+              flush=True)
+
+
+if __name__ == '__main__':
+    main()
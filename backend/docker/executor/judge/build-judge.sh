@@ -0,0 +1,22 @@
+#!/bin/sh
+# Compiles the judge launchers and dumps the Java CDS archive into JUDGE_HOME (default /opt/judge)
+set -e
+JUDGE_HOME=${JUDGE_HOME:-/opt/judge}
+cd "$JUDGE_HOME"
+
+mkdir -p classes warmup
+javac -d classes JudgeRunner.java
+javac -d warmup Warmup.java
+jar cf judge-runner.jar -C classes .
+
+# Time keeper that runs every solution, and the system call filter the namespace sandbox
+# applies to every sandboxed command
+cc -O2 -o judge-time judge-time.c
+cc -O2 -o seccomp-exec seccomp-exec.c
+
+# Record the classes a typical solution loads, then archive them for fast JVM startup
+# (CDS only accepts jars on the dump-time class path)
+echo "5" | java -Xshare:off -XX:DumpLoadedClassList=classlist -cp judge-runner.jar:warmup JudgeRunner Warmup > /dev/null 2>&1
+java -Xshare:dump -XX:SharedClassListFile=classlist -XX:SharedArchiveFile=java-base.jsa \
+    -cp "$JUDGE_HOME/judge-runner.jar" > /dev/null
+rm -rf classes warmup classlist
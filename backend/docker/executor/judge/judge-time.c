@@ -0,0 +1,110 @@
+/*
+ * Usage: judge-time <nonce file> <command> [args...]
+ * Runs the command and reports how long user code ran, from outside the user's process:
+ *     __JUDGE_TIME_MS__=<nonce>:<ms>    (last line on stderr)
+ * The clock starts when the launcher writes a byte to the pipe in $JUDGE_START_FD, right
+ * before it hands over to user code (or when the command starts, if it never does), and
+ * stops when the last process the command started has exited. The nonce is read from the
+ * file and the file removed before the command starts, and this process cannot be inspected
+ * by the command, so user code cannot print a report the judge accepts.
+ * Exits with the command's status, or 128 + signal like the shell.
+ */
+#define _GNU_SOURCE
+#include <errno.h>
+#include <fcntl.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/prctl.h>
+#include <sys/wait.h>
+#include <time.h>
+#include <unistd.h>
+
+static long long now_ms(void) {
+    struct timespec ts;
+    clock_gettime(CLOCK_MONOTONIC, &ts);
+    return ts.tv_sec * 1000LL + ts.tv_nsec / 1000000;
+}
+
+static int read_nonce(const char *path, char *nonce, size_t size) {
+    int fd = open(path, O_RDONLY | O_CLOEXEC);
+    if (fd < 0) {
+        return -1;
+    }
+    ssize_t length = read(fd, nonce, size - 1);
+    close(fd);
+    unlink(path);
+    if (length <= 0) {
+        return -1;
+    }
+    nonce[length] = '\0';
+    nonce[strcspn(nonce, "\r\n")] = '\0';
+    return 0;
+}
+
+int main(int argc, char **argv) {
+    char nonce[128];
+    int start_pipe[2];
+    if (argc < 3) {
+        fprintf(stderr, "usage: %s <nonce file> <command> [args...]\n", argv[0]);
+        return 2;
+    }
+    if (read_nonce(argv[1], nonce, sizeof(nonce)) != 0) {
+        fprintf(stderr, "judge-time: cannot read %s\n", argv[1]);
+        return 125;
+    }
+    /* Keeps the nonce out of /proc/<pid>/mem, and adopts whatever the command leaves behind */
+    prctl(PR_SET_DUMPABLE, 0, 0, 0, 0);
+    prctl(PR_SET_CHILD_SUBREAPER, 1, 0, 0, 0);
+    if (pipe2(start_pipe, O_CLOEXEC) != 0) {
+        perror("judge-time: pipe");
+        return 125;
+    }
+
+    long long started = now_ms();
+    pid_t child = fork();
+    if (child < 0) {
+        perror("judge-time: fork");
+        return 125;
+    }
+    if (child == 0) {
+        char fd[16];
+        int start_fd = dup(start_pipe[1]);
+        snprintf(fd, sizeof(fd), "%d", start_fd);
+        setenv("JUDGE_START_FD", fd, 1);
+        execvp(argv[2], argv + 2);
+        perror("judge-time: exec");
+        _exit(127);
+    }
+    close(start_pipe[1]);
+
+    /* The first byte marks the start of user code; end of file means it never came */
+    char mark;
+    ssize_t marked;
+    do {
+        marked = read(start_pipe[0], &mark, 1);
+    } while (marked < 0 && errno == EINTR);
+    if (marked == 1) {
+        started = now_ms();
+    }
+    close(start_pipe[0]);
+
+    int status = 0;
+    int exit_code = 0;
+    for (;;) {
+        pid_t done = wait(&status);
+        if (done < 0) {
+            if (errno == EINTR) {
+                continue;
+            }
+            break;
+        }
+        if (done == child) {
+            exit_code = WIFEXITED(status) ? WEXITSTATUS(status) : 128 + WTERMSIG(status);
+        }
+    }
+    long long elapsed = now_ms() - started;
+
+    fprintf(stderr, "\n__JUDGE_TIME_MS__=%s:%lld\n", nonce, elapsed);
+    return exit_code;
+}
@@ -0,0 +1,36 @@
+"""Runs a submitted script under judge-time, marking when user code starts so interpreter
+startup is not charged to the time limit."""
+import os
+import runpy
+import sys
+import traceback
+
+
+def main():
+    path = sys.argv[1]
+    sys.argv = sys.argv[1:]
+    sys.path[0] = os.path.dirname(os.path.abspath(path))
+    exit_code = 0
+    mark_start()
+    try:
+        runpy.run_path(path, run_name="__main__")
+    except SystemExit:
+        raise
+    except BaseException as error:
+        # Report the traceback from the user's script, without the launcher frames
+        tb = error.__traceback__
+        while tb is not None and tb.tb_frame.f_code.co_filename != path:
+            tb = tb.tb_next
+        traceback.print_exception(type(error), error, tb)
+        exit_code = 1
+    sys.exit(exit_code)
+
+
+def mark_start():
+    fd = os.environ.pop("JUDGE_START_FD", None)
+    if fd is not None:
+        os.write(int(fd), b".")
+        os.close(int(fd))
+
+
+main()
@@ -0,0 +1,111 @@
+/*
+ * Usage: seccomp-exec <command> [args...]
+ * Installs a seccomp filter that refuses the system calls a solution never needs but could use
+ * to leave or inspect its sandbox (mounts, namespaces, tracing, kernel keyrings, BPF, modules),
+ * including clone calls that ask for new namespaces, then executes the command. The filter is inherited by every process the command starts.
+ */
+#include <errno.h>
+#include <linux/audit.h>
+#include <linux/sched.h>
+#include <linux/filter.h>
+#include <linux/seccomp.h>
+#include <stddef.h>
+#include <stdio.h>
+#include <sys/prctl.h>
+#include <sys/syscall.h>
+#include <unistd.h>
+
+#if defined(__x86_64__)
+#define JUDGE_AUDIT_ARCH AUDIT_ARCH_X86_64
+#elif defined(__aarch64__)
+#define JUDGE_AUDIT_ARCH AUDIT_ARCH_AARCH64
+#else
+#error "seccomp-exec supports x86_64 and aarch64"
+#endif
+
+#define DENY(name) \
+    BPF_JUMP(BPF_JMP | BPF_JEQ | BPF_K, __NR_##name, 0, 1), \
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_ERRNO | EPERM)
+
+/* clone flags that create namespaces; the flags are the first argument on both architectures */
+#define NAMESPACE_FLAGS (CLONE_NEWNS | CLONE_NEWCGROUP | CLONE_NEWUTS | CLONE_NEWIPC | CLONE_NEWUSER \
+        | CLONE_NEWPID | CLONE_NEWNET)
+
+static struct sock_filter filter[] = {
+    /* Syscall numbers of another ABI would slip past the list below */
+    BPF_STMT(BPF_LD | BPF_W | BPF_ABS, offsetof(struct seccomp_data, arch)),
+    BPF_JUMP(BPF_JMP | BPF_JEQ | BPF_K, JUDGE_AUDIT_ARCH, 1, 0),
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_KILL_PROCESS),
+    BPF_STMT(BPF_LD | BPF_W | BPF_ABS, offsetof(struct seccomp_data, nr)),
+#if defined(__x86_64__)
+    /* x32 calls share the architecture tag */
+    BPF_JUMP(BPF_JMP | BPF_JGE | BPF_K, 0x40000000, 0, 1),
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_ERRNO | EPERM),
+#endif
+    /* Plain fork and thread creation stay allowed; the namespace flags are all in the low word */
+    BPF_JUMP(BPF_JMP | BPF_JEQ | BPF_K, __NR_clone, 0, 4),
+    BPF_STMT(BPF_LD | BPF_W | BPF_ABS, offsetof(struct seccomp_data, args[0])),
+    BPF_JUMP(BPF_JMP | BPF_JSET | BPF_K, NAMESPACE_FLAGS, 0, 1),
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_ERRNO | EPERM),
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_ALLOW),
+#ifdef __NR_clone3
+    /* clone3 passes its flags in memory the filter cannot read; glibc falls back to clone on ENOSYS */
+    BPF_JUMP(BPF_JMP | BPF_JEQ | BPF_K, __NR_clone3, 0, 1),
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_ERRNO | ENOSYS),
+#endif
+    DENY(mount),
+    DENY(umount2),
+    DENY(pivot_root),
+    DENY(chroot),
+    DENY(unshare),
+    DENY(setns),
+    DENY(ptrace),
+    DENY(process_vm_readv),
+    DENY(process_vm_writev),
+    DENY(kcmp),
+    DENY(keyctl),
+    DENY(add_key),
+    DENY(request_key),
+    DENY(bpf),
+    DENY(perf_event_open),
+    DENY(userfaultfd),
+    DENY(open_by_handle_at),
+    DENY(name_to_handle_at),
+    DENY(init_module),
+    DENY(finit_module),
+    DENY(delete_module),
+    DENY(kexec_load),
+    DENY(reboot),
+    DENY(swapon),
+    DENY(swapoff),
+    DENY(acct),
+    DENY(quotactl),
+    DENY(fsopen),
+    DENY(fsmount),
+    DENY(move_mount),
+    DENY(open_tree),
+#if defined(__x86_64__)
+    DENY(iopl),
+    DENY(ioperm),
+#endif
+    BPF_STMT(BPF_RET | BPF_K, SECCOMP_RET_ALLOW),
+};
+
+int main(int argc, char **argv) {
+    struct sock_fprog program = {
+        .len = (unsigned short) (sizeof(filter) / sizeof(filter[0])),
+        .filter = filter,
+    };
+    if (argc < 2) {
+        fprintf(stderr, "usage: %s <command> [args...]\n", argv[0]);
+        return 2;
+    }
+    if (prctl(PR_SET_NO_NEW_PRIVS, 1, 0, 0, 0) != 0
+            || prctl(PR_SET_SECCOMP, SECCOMP_MODE_FILTER, &program) != 0) {
+        perror("seccomp-exec: cannot install filter");
+        return 126;
+    }
+    execvp(argv[1], argv + 1);
+    perror("seccomp-exec: exec");
+    return 127;
+}
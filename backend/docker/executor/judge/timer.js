@@ -0,0 +1,10 @@
+// Preloaded with `node -r` under judge-time: marks when user code starts, so runtime startup
+// is not charged to the time limit
+const fs = require('fs');
+
+const startFd = process.env.JUDGE_START_FD;
+if (startFd !== undefined) {
+    delete process.env.JUDGE_START_FD;
+    fs.writeSync(Number(startFd), '.');
+    fs.closeSync(Number(startFd));
+}
@@ -1,5 +1,6 @@
 import { useState, useEffect } from 'react';
 import { Trophy, Medal, Award, User } from 'lucide-react';
+import { contestApi } from '../services/api';
 
 interface LeaderboardEntry {
   rank: number;
@@ -28,11 +29,7 @@ export default function Leaderboard({ contestId }: LeaderboardProps) {
 
   const loadLeaderboard = async () => {
     try {
-      const response = await fetch(`http://localhost:8080/api/contests/${contestId}/leaderboard`);
-      if (response.ok) {
-        const data = await response.json();
-        setEntries(data);
-      }
+      setEntries(await contestApi.syncLeaderboard(contestId));
     } catch (error) {
       console.error('Failed to load leaderboard:', error);
     } finally {
@@ -14,7 +14,7 @@ import {
   XCircle,
   AlertCircle
 } from 'lucide-react';
-import { contestApi } from '../services/api';
+import { contestApi, submissionApi } from '../services/api';
 import { useStore } from '../store/useStore';
 import type { Contest as ContestType } from '../types';
 
@@ -25,6 +25,7 @@ interface LeaderboardEntry {
   fullName: string;
   score: number;
   problemsSolved: number;
+  penalty?: number;
   lastSubmission?: string;
 }
 
@@ -39,7 +40,7 @@ interface UserSubmission {
   testCasesPassed: number;
   totalTestCases: number;
   submittedAt: string;
-  code: string;
+  code?: string;
   isTestRun: boolean;
   executionTime?: number;
 }
@@ -51,6 +52,7 @@ export default function Contest({ user }: { user: any }) {
   // Component state
   const [contest, setContest] = useState<ContestType | null>(null);
   const [leaderboard, setLeaderboard] = useState<LeaderboardEntry[]>([]);
+  const [leaderboardFrozen, setLeaderboardFrozen] = useState(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [activeTab, setActiveTab] = useState<'problems' | 'leaderboard' | 'submissions'>('problems');
@@ -59,6 +61,8 @@ export default function Contest({ user }: { user: any }) {
   const [checkingJoinStatus, setCheckingJoinStatus] = useState(true);
   const [userSubmissions, setUserSubmissions] = useState<UserSubmission[]>([]);
   const [loadingSubmissions, setLoadingSubmissions] = useState(false);
+  const [submissionsCursor, setSubmissionsCursor] = useState<string | undefined>();
+  const [loadingMoreSubmissions, setLoadingMoreSubmissions] = useState(false);
   const [selectedSubmission, setSelectedSubmission] = useState<UserSubmission | null>(null);
   
   useEffect(() => {
@@ -110,32 +114,48 @@ export default function Contest({ user }: { user: any }) {
   
   const loadLeaderboard = async (contestId: number) => {
     try {
-      const data = await contestApi.getLeaderboard(contestId);
+      const data = await contestApi.syncLeaderboard(contestId);
       setLeaderboard(data);
+      setLeaderboardFrozen(contestApi.isLeaderboardFrozen(contestId));
     } catch (err) {
       console.error('Error loading leaderboard:', err);
     }
   };
 
+  // Reads pages from the cursor until one holds a submission (test runs are not listed)
+  const fetchSubmissions = async (
+    contestId: number,
+    userId: number,
+    cursor?: string
+  ): Promise<{ submissions: UserSubmission[]; nextCursor?: string }> => {
+    let next = cursor;
+    do {
+      const page = await submissionApi.getUserContestSubmissions(userId, contestId, next);
+      next = page.nextCursor;
+      // Filter out test runs and enrich with problem titles and points
+      const finalSubmissions = page.submissions
+        .filter((s) => !s.isTestRun)
+        .map((s) => {
+          const problem = contest?.problems?.find(p => p.id === s.problemId);
+          return {
+            ...s,
+            problemTitle: problem?.title || 'Unknown Problem',
+            problemPoints: problem?.points || 100
+          };
+        });
+      if (finalSubmissions.length > 0) {
+        return { submissions: finalSubmissions, nextCursor: next };
+      }
+    } while (next);
+    return { submissions: [], nextCursor: undefined };
+  };
+
   const loadUserSubmissions = async (contestId: number, userId: number) => {
     setLoadingSubmissions(true);
     try {
-      const response = await fetch(`http://localhost:8080/api/submissions/user/${userId}/contest/${contestId}`);
-      if (response.ok) {
-        const submissions = await response.json();
-        // Filter out test runs and enrich with problem titles and points
-        const finalSubmissions = submissions
-          .filter((s: any) => !s.isTestRun)
-          .map((s: any) => {
-            const problem = contest?.problems?.find(p => p.id === s.problem.id);
-            return {
-              ...s,
-              problemTitle: problem?.title || 'Unknown Problem',
-              problemPoints: problem?.points || 100
-            };
-          });
-        setUserSubmissions(finalSubmissions);
-      }
+      const page = await fetchSubmissions(contestId, userId);
+      setUserSubmissions(page.submissions);
+      setSubmissionsCursor(page.nextCursor);
     } catch (err) {
       console.error('Error loading user submissions:', err);
     } finally {
@@ -143,6 +163,31 @@ export default function Contest({ user }: { user: any }) {
     }
   };
 
+  const loadMoreSubmissions = async () => {
+    if (!contest || !user || !submissionsCursor) return;
+    setLoadingMoreSubmissions(true);
+    try {
+      const page = await fetchSubmissions(contest.id, user.id, submissionsCursor);
+      setUserSubmissions((previous) => [...previous, ...page.submissions]);
+      setSubmissionsCursor(page.nextCursor);
+    } catch (err) {
+      console.error('Error loading more submissions:', err);
+    } finally {
+      setLoadingMoreSubmissions(false);
+    }
+  };
+
+  const viewSubmissionCode = async (submission: UserSubmission) => {
+    setSelectedSubmission(submission);
+    try {
+      // Source is not part of the history rows; load it only when opened
+      const source = await submissionApi.getCode(submission.id);
+      setSelectedSubmission({ ...submission, code: source.code });
+    } catch (err) {
+      console.error('Error loading submission code:', err);
+    }
+  };
+
   const checkJoinStatus = async (contestId: number, userId: number) => {
     try {
       const response = await fetch(`http://localhost:8080/api/contests/${contestId}/participants/${userId}`);
@@ -350,6 +395,17 @@ export default function Contest({ user }: { user: any }) {
             </div>
           ) : activeTab === 'leaderboard' ? (
             <div className="space-y-4">
+              {leaderboardFrozen && (
+                <div className="flex items-center space-x-2 rounded-lg bg-blue-50 px-4 py-3 text-sm text-blue-700">
+                  <Clock className="h-4 w-4" />
+                  <span>
+                    The scoreboard is frozen
+                    {contest.freezeTime && ` since ${formatDateTime(contest.freezeTime)}`}
+                    ; results of later submissions will be revealed
+                    {contest.publishTime ? ` at ${formatDateTime(contest.publishTime)}` : ' after the contest'}.
+                  </span>
+                </div>
+              )}
               {/* Leaderboard */}
               <div className="overflow-x-auto">
                 <table className="w-full">
@@ -367,6 +423,11 @@ export default function Contest({ user }: { user: any }) {
                       <th className="px-4 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">
                         Score
                       </th>
+                      {contest.scoringModel === 'ICPC' && (
+                        <th className="px-4 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">
+                          Penalty
+                        </th>
+                      )}
                     </tr>
                   </thead>
                   <tbody className="divide-y divide-gray-200">
@@ -399,11 +460,16 @@ export default function Contest({ user }: { user: any }) {
                           <td className="px-4 py-3">
                             <span className="font-semibold text-gray-900">{entry.score}</span>
                           </td>
+                          {contest.scoringModel === 'ICPC' && (
+                            <td className="px-4 py-3">
+                              <span className="text-gray-600">{entry.penalty ?? 0}</span>
+                            </td>
+                          )}
                         </tr>
                       ))
                     ) : (
                       <tr>
-                        <td colSpan={4} className="px-4 py-8 text-center text-gray-500">
+                        <td colSpan={contest.scoringModel === 'ICPC' ? 5 : 4} className="px-4 py-8 text-center text-gray-500">
                           No submissions yet. Be the first to solve a problem!
                         </td>
                       </tr>
@@ -493,7 +559,7 @@ export default function Contest({ user }: { user: any }) {
                             </td>
                             <td className="px-4 py-3">
                               <button
-                                onClick={() => setSelectedSubmission(submission)}
+                                onClick={() => viewSubmissionCode(submission)}
                                 className="text-indigo-600 hover:text-indigo-800 text-sm font-medium"
                               >
                                 View Code
@@ -505,6 +571,18 @@ export default function Contest({ user }: { user: any }) {
                     </table>
                   </div>
 
+                  {submissionsCursor && (
+                    <div className="text-center">
+                      <button
+                        onClick={loadMoreSubmissions}
+                        disabled={loadingMoreSubmissions}
+                        className="px-4 py-2 text-indigo-600 hover:text-indigo-800 text-sm font-medium disabled:opacity-50"
+                      >
+                        {loadingMoreSubmissions ? 'Loading...' : 'Load more'}
+                      </button>
+                    </div>
+                  )}
+
                   {/* Code Modal */}
                   {selectedSubmission && (
                     <div className="fixed inset-0 z-50 flex items-center justify-center bg-black bg-opacity-50">
@@ -1,5 +1,5 @@
 import axios from 'axios';
-import type { User, Contest, Problem, Submission, SubmissionRequest, SubmissionResponse, ProgrammingLanguage } from '../types';
+import type { User, Contest, Problem, Submission, SubmissionSummary, SubmissionHistoryPage, SubmissionSource, SubmissionRequest, SubmissionResponse, ProgrammingLanguage, LeaderboardEntry, LeaderboardPage, LeaderboardChanges } from '../types';
 
 const API_BASE_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080/api';
 
@@ -32,6 +32,36 @@ export const userApi = {
   },
 };
 
+// Last leaderboard snapshot per contest, kept up to date with the changes endpoint
+const leaderboards = new Map<number, { version: number; frozen: boolean; entries: LeaderboardEntry[] }>();
+
+// Restarts allowed when the ranking moves while paging; past them, the mixed pages are shown
+// once and the next sync loads them again
+const MAX_LEADERBOARD_RELOADS = 3;
+
+const loadLeaderboardPages = async (contestId: number, attempt = 0): Promise<LeaderboardEntry[]> => {
+  const first = await contestApi.getLeaderboardPage(contestId, 0);
+  const entries = [...first.entries];
+  let consistent = true;
+  for (let page = 1; page < first.totalPages; page++) {
+    const next = await contestApi.getLeaderboardPage(contestId, page);
+    if (next.version !== first.version) {
+      if (attempt < MAX_LEADERBOARD_RELOADS) {
+        // The ranking moved while paging; start over from the new snapshot
+        return loadLeaderboardPages(contestId, attempt + 1);
+      }
+      consistent = false;
+    }
+    entries.push(...next.entries);
+  }
+  if (consistent) {
+    leaderboards.set(contestId, { version: first.version, frozen: first.frozen, entries });
+  } else {
+    leaderboards.delete(contestId);
+  }
+  return entries;
+};
+
 export const contestApi = {
   getAll: async (): Promise<Contest[]> => {
     const { data } = await api.get('/contests');
@@ -52,6 +82,36 @@ export const contestApi = {
     const { data } = await api.get(`/contests/${contestId}/leaderboard`);
     return data;
   },
+
+  getLeaderboardPage: async (contestId: number, page: number): Promise<LeaderboardPage> => {
+    const { data } = await api.get(`/contests/${contestId}/leaderboard`, { params: { page } });
+    return data;
+  },
+
+  getLeaderboardChanges: async (contestId: number, since: number): Promise<LeaderboardChanges> => {
+    const { data } = await api.get(`/contests/${contestId}/leaderboard/changes`, { params: { since } });
+    return data;
+  },
+
+  // Loads the pages once, then only applies the changes since the version already held
+  syncLeaderboard: async (contestId: number): Promise<LeaderboardEntry[]> => {
+    const held = leaderboards.get(contestId);
+    if (held) {
+      const changes = await contestApi.getLeaderboardChanges(contestId, held.version);
+      if (!changes.full) {
+        const byUser = new Map(held.entries.map((entry) => [entry.userId, entry]));
+        changes.removed.forEach((userId) => byUser.delete(userId));
+        changes.changed.forEach((entry) => byUser.set(entry.userId, entry));
+        const entries = [...byUser.values()].sort((a, b) => a.rank - b.rank);
+        leaderboards.set(contestId, { version: changes.version, frozen: changes.frozen, entries });
+        return entries;
+      }
+    }
+    return loadLeaderboardPages(contestId);
+  },
+
+  // Whether the last synced leaderboard is the frozen public view
+  isLeaderboardFrozen: (contestId: number): boolean => leaderboards.get(contestId)?.frozen ?? false,
   
   joinContest: async (username: string, contestId: number): Promise<any> => {
     const { data } = await api.post('/contests/join', { username, contestId });
@@ -87,18 +147,23 @@ export const submissionApi = {
     return data;
   },
   
-  getLatest: async (userId: number, problemId: number): Promise<Submission> => {
+  getCode: async (id: string): Promise<SubmissionSource> => {
+    const { data } = await api.get(`/submissions/${id}/code`);
+    return data;
+  },
+  
+  getLatest: async (userId: number, problemId: number): Promise<SubmissionSummary> => {
     const { data } = await api.get(`/submissions/user/${userId}/problem/${problemId}/latest`);
     return data;
   },
   
-  getUserProblemSubmissions: async (userId: number, problemId: number): Promise<Submission[]> => {
-    const { data } = await api.get(`/submissions/user/${userId}/problem/${problemId}`);
+  getUserProblemSubmissions: async (userId: number, problemId: number, cursor?: string): Promise<SubmissionHistoryPage> => {
+    const { data } = await api.get(`/submissions/user/${userId}/problem/${problemId}`, { params: { cursor } });
     return data;
   },
   
-  getUserContestSubmissions: async (userId: number, contestId: number): Promise<Submission[]> => {
-    const { data } = await api.get(`/submissions/user/${userId}/contest/${contestId}`);
+  getUserContestSubmissions: async (userId: number, contestId: number, cursor?: string): Promise<SubmissionHistoryPage> => {
+    const { data } = await api.get(`/submissions/user/${userId}/contest/${contestId}`, { params: { cursor } });
     return data;
   },
   
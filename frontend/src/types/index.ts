@@ -14,6 +14,10 @@ export interface Contest {
   startTime: string;
   endTime: string;
   isActive: boolean;
+  freezeTime?: string;
+  publishTime?: string;
+  scoringModel?: 'IOI' | 'ICPC';
+  penaltyMinutes?: number;
 }
 
 export interface Problem {
@@ -55,10 +59,9 @@ export type SubmissionStatus =
   | 'RUNTIME_ERROR' 
   | 'COMPILATION_ERROR';
 
-export interface Submission {
+export interface SubmissionSummary {
   id: string;
-  user: User;
-  problem: Problem;
+  problemId: number;
   status: SubmissionStatus;
   language: ProgrammingLanguage;
   score: number;
@@ -66,11 +69,58 @@ export interface Submission {
   totalTestCases: number;
   submittedAt: string;
   executionTime?: number;
-  code: string;
+  isTestRun: boolean;
+}
+
+export interface Submission extends SubmissionSummary {
   output?: string;
   errorMessage?: string;
 }
 
+export interface SubmissionSource {
+  id: string;
+  language: ProgrammingLanguage;
+  code: string;
+}
+
+export interface SubmissionHistoryPage {
+  submissions: SubmissionSummary[];
+  nextCursor?: string;
+}
+
+export interface LeaderboardEntry {
+  rank: number;
+  userId: number;
+  username: string;
+  fullName: string;
+  score: number;
+  problemsSolved: number;
+  penalty?: number;
+  lastSubmission?: string;
+}
+
+export interface LeaderboardPage {
+  contestId: number;
+  version: number;
+  frozen: boolean;
+  page: number;
+  pageSize: number;
+  totalPages: number;
+  totalEntries: number;
+  entries: LeaderboardEntry[];
+}
+
+export interface LeaderboardChanges {
+  contestId: number;
+  fromVersion: number;
+  version: number;
+  full: boolean;
+  frozen: boolean;
+  totalEntries: number;
+  changed: LeaderboardEntry[];
+  removed: number[];
+}
+
 export interface SubmissionRequest {
   userId: number;
   problemId: number;